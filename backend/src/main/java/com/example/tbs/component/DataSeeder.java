@@ -17,6 +17,10 @@ import com.example.tbs.entity.Train;
 import com.example.tbs.entity.TrainSchedule;
 import com.example.tbs.entity.User;
 import com.example.tbs.repository.*;
+import com.example.tbs.service.SeatInventory;
+import com.example.tbs.service.StationDistanceService;
+import com.example.tbs.service.TimetableIndex;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -38,12 +42,20 @@ public class DataSeeder implements CommandLineRunner {
     private final BookingRepository bookingRepository;
     private final BookedSeatRepository bookedSeatRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TimetableIndex timetableIndex;
+    private final SeatInventory seatInventory;
+    private final StationDistanceService stationDistanceService;
+    private final boolean sampleNetwork;
+    private final boolean resetOnStartup;
     private final Random random = new Random();
 
     public DataSeeder(StationRepository stationRepository, TrainRepository trainRepository,
             TrainScheduleRepository trainScheduleRepository, UserRepository userRepository,
             BookingRepository bookingRepository, BookedSeatRepository bookedSeatRepository,
-            PasswordEncoder passwordEncoder) {
+            PasswordEncoder passwordEncoder, TimetableIndex timetableIndex, SeatInventory seatInventory,
+            StationDistanceService stationDistanceService,
+            @Value("${seed.sample-network:true}") boolean sampleNetwork,
+            @Value("${seed.reset-on-startup:true}") boolean resetOnStartup) {
         this.stationRepository = stationRepository;
         this.trainRepository = trainRepository;
         this.trainScheduleRepository = trainScheduleRepository;
@@ -51,10 +63,28 @@ public class DataSeeder implements CommandLineRunner {
         this.bookingRepository = bookingRepository;
         this.bookedSeatRepository = bookedSeatRepository;
         this.passwordEncoder = passwordEncoder;
+        this.timetableIndex = timetableIndex;
+        this.seatInventory = seatInventory;
+        this.stationDistanceService = stationDistanceService;
+        this.sampleNetwork = sampleNetwork;
+        this.resetOnStartup = resetOnStartup;
     }
 
     @Override
     public void run(String... args) throws Exception {
+        // Other data sources (CSV import, the synthetic profile) own the network; only the accounts are seeded
+        if (!sampleNetwork) {
+            seedUsers();
+            return;
+        }
+
+        // Keeping the network leaves the timetable version alone, so the index snapshot file stays valid
+        if (!resetOnStartup && stationRepository.count() > 0) {
+            seedUsers();
+            System.out.println("Keeping existing network (seed.reset-on-startup=false)");
+            return;
+        }
+
         // 1. Clear Data (Order matters for FK constraints)
         System.out.println("Cleaning up database...");
 
@@ -89,6 +119,8 @@ public class DataSeeder implements CommandLineRunner {
 
         // 4. Seed Trains
         seedTrains(allStations);
+        timetableIndex.invalidate();
+        seatInventory.invalidateAll();
 
         System.out.println("Data Seeding Verification Complete!");
     }
@@ -284,11 +316,6 @@ public class DataSeeder implements CommandLineRunner {
     }
 
     private double calculateDistance(Station s1, Station s2) {
-        double latDiff = s1.getLatitude() - s2.getLatitude();
-        double lngDiff = s1.getLongitude() - s2.getLongitude();
-        // Approx conversion for Karnataka/India lat
-        double latKm = latDiff * 111;
-        double lngKm = lngDiff * 111 * Math.cos(Math.toRadians(s1.getLatitude()));
-        return Math.sqrt(latKm * latKm + lngKm * lngKm);
+        return stationDistanceService.distanceKm(s1, s2);
     }
 }
@@ -0,0 +1,426 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.example.tbs.component;
+
+import com.example.tbs.entity.User;
+import com.example.tbs.repository.UserRepository;
+import com.example.tbs.service.SeatInventory;
+import com.example.tbs.service.StationDistanceService;
+import com.example.tbs.service.TimetableIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates a production-sized network for benchmarks and load tests:
+ * clustered stations, trains running along corridors of nearby stations, and
+ * bookings for every train-day in a window. Only active under the
+ * "synthetic" profile (see application-synthetic.properties).
+ * <p>
+ * The same settings and seed always produce the same rows. Generated stations
+ * and trains are prefixed with SYN-, which real station codes and train
+ * numbers never start with, so the cleanup leaves those alone. Bookings belong
+ * to the synthetic user, and that user's full name records the settings once a run completes. A restart
+ * with the same settings is a no-op; anything else (or an interrupted run)
+ * deletes the previous generated rows and starts over. Without a configured
+ * start date, bookings start on the day of the first run, and later restarts
+ * keep that date rather than regenerating every day.
+ */
+@Component
+@Profile("synthetic")
+public class SyntheticNetworkGenerator implements CommandLineRunner {
+
+    private static final String PREFIX = "SYN-";
+    private static final String USERNAME = "synthetic";
+    private static final int BATCH_SIZE = 1000;
+    private static final int NEIGHBOURS = 6;
+    private static final int MAX_STOPS = 30;
+
+    // Roughly the Indian mainland
+    private static final double MIN_LAT = 8, MAX_LAT = 30, MIN_LNG = 70, MAX_LNG = 88;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final TimetableIndex timetableIndex;
+    private final SeatInventory seatInventory;
+
+    private final long seed;
+    private final int stationCount;
+    private final int trainCount;
+    private final int bookingDays;
+    private final int bookingsPerTrainDay;
+    private final LocalDate configuredStartDate;
+
+    public SyntheticNetworkGenerator(JdbcTemplate jdbcTemplate, UserRepository userRepository,
+            TimetableIndex timetableIndex, SeatInventory seatInventory,
+            @Value("${synthetic.seed:42}") long seed,
+            @Value("${synthetic.stations:5000}") int stationCount,
+            @Value("${synthetic.trains:20000}") int trainCount,
+            @Value("${synthetic.booking-days:90}") int bookingDays,
+            @Value("${synthetic.bookings-per-train-day:5}") int bookingsPerTrainDay,
+            @Value("${synthetic.start-date:}") String startDate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.timetableIndex = timetableIndex;
+        this.seatInventory = seatInventory;
+        this.seed = seed;
+        this.stationCount = stationCount;
+        this.trainCount = trainCount;
+        this.bookingDays = bookingDays;
+        this.bookingsPerTrainDay = bookingsPerTrainDay;
+        this.configuredStartDate = startDate.isBlank() ? null : LocalDate.parse(startDate);
+    }
+
+    @Override
+    public void run(String... args) {
+        // The start date goes last, so a run without one can match whatever date was used before
+        String settings = "Synthetic load: seed " + seed + ", " + stationCount + " stations, " + trainCount
+                + " trains, " + bookingsPerTrainDay + " bookings per train-day for " + bookingDays + " days from ";
+        User user = userRepository.findByUsername(USERNAME).orElseGet(User::new);
+        String generated = user.getFullName();
+        if (generated != null && generated.startsWith(settings)
+                && (configuredStartDate == null || generated.equals(settings + configuredStartDate))) {
+            System.out.println("Synthetic network already generated (" + generated + ")");
+            return;
+        }
+        LocalDate startDate = configuredStartDate != null ? configuredStartDate : LocalDate.now();
+
+        long started = System.currentTimeMillis();
+        user.setUsername(USERNAME);
+        user.setPassword("!"); // matches no password, so nobody can log in as this user
+        user.setRole("USER");
+        user.setEmail("synthetic@example.com");
+        user.setFullName(null);
+        user = userRepository.save(user);
+
+        deletePrevious(user.getUserId());
+        Random random = new Random(seed);
+        Network network = generateStations(random);
+        List<Route> routes = generateTrains(random, network);
+        long bookings = generateBookings(random, routes, user.getUserId(), startDate);
+
+        // Written last, so an interrupted run is redone on the next start
+        user.setFullName(settings + startDate);
+        userRepository.save(user);
+
+        timetableIndex.invalidate();
+        seatInventory.invalidateAll();
+        System.out.println("Generated synthetic network: " + stationCount + " stations, " + routes.size()
+                + " trains, " + bookings + " bookings in " + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    private void deletePrevious(Long userId) {
+        String generatedTrains = "select train_id from karbs.train where train_number like '" + PREFIX + "%'";
+        String generatedStations = "select station_id from karbs.station where station_code like '" + PREFIX + "%'";
+        String affectedBookings = "select booking_id from karbs.booking where user_id = ? or train_id in ("
+                + generatedTrains + ") or source_station_id in (" + generatedStations
+                + ") or dest_station_id in (" + generatedStations + ")";
+        jdbcTemplate.update("delete from karbs.booked_seat where booking_id in (" + affectedBookings + ")", userId);
+        jdbcTemplate.update("delete from karbs.booking where booking_id in (" + affectedBookings + ")", userId);
+        jdbcTemplate.update("delete from karbs.train_schedule where train_id in (" + generatedTrains
+                + ") or station_id in (" + generatedStations + ")");
+        jdbcTemplate.update("delete from karbs.train where train_number like '" + PREFIX + "%'");
+        jdbcTemplate.update("delete from karbs.station where station_code like '" + PREFIX + "%'");
+    }
+
+    // ------------------------------------------------------------------
+    // Stations: a few stations around each city, cities spread uniformly
+    // ------------------------------------------------------------------
+
+    private record Network(long[] ids, double[] lat, double[] lng, int[][] neighbours) {
+    }
+
+    private Network generateStations(Random random) {
+        int cities = Math.max(1, stationCount / 3);
+        double[][] centres = new double[cities][];
+        for (int c = 0; c < cities; c++) {
+            centres[c] = new double[] { MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT),
+                    MIN_LNG + random.nextDouble() * (MAX_LNG - MIN_LNG) };
+        }
+
+        long[] ids = allocateIds("station", "station_id", stationCount);
+        double[] lat = new double[stationCount];
+        double[] lng = new double[stationCount];
+        int[] stationsInCity = new int[cities];
+        Batch batch = new Batch("insert into karbs.station (station_id, station_code, station_name, city, latitude, "
+                + "longitude) values (?, ?, ?, ?, ?, ?)");
+        for (int i = 0; i < stationCount; i++) {
+            // Every city gets one station first, the rest land in random cities
+            int city = i < cities ? i : random.nextInt(cities);
+            int nth = stationsInCity[city]++;
+            lat[i] = centres[city][0] + (nth == 0 ? 0 : (random.nextDouble() - 0.5) * 0.2);
+            lng[i] = centres[city][1] + (nth == 0 ? 0 : (random.nextDouble() - 0.5) * 0.2);
+            String cityName = "City " + (city + 1);
+            batch.add(ids[i], code(PREFIX, i, stationCount), cityName + (nth == 0 ? " Jn" : " Halt " + nth),
+                    cityName, lat[i], lng[i]);
+        }
+        batch.flush();
+        return new Network(ids, lat, lng, neighbours(lat, lng));
+    }
+
+    /** The nearest few stations to each station, looked up through a grid of about four stations per cell. */
+    private int[][] neighbours(double[] lat, double[] lng) {
+        int n = lat.length;
+        double cell = Math.sqrt((MAX_LAT - MIN_LAT) * (MAX_LNG - MIN_LNG) * 4 / Math.max(1, n));
+        Map<Long, List<Integer>> grid = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            grid.computeIfAbsent(cellKey((int) Math.floor(lat[i] / cell), (int) Math.floor(lng[i] / cell)),
+                    k -> new ArrayList<>()).add(i);
+        }
+        int[][] neighbours = new int[n][];
+        for (int i = 0; i < n; i++) {
+            int row = (int) Math.floor(lat[i] / cell);
+            int col = (int) Math.floor(lng[i] / cell);
+            List<Integer> candidates = new ArrayList<>();
+            for (int ring = 1; ring <= 4 && candidates.size() <= NEIGHBOURS; ring++) {
+                candidates.clear();
+                for (int r = row - ring; r <= row + ring; r++) {
+                    for (int c = col - ring; c <= col + ring; c++) {
+                        for (int j : grid.getOrDefault(cellKey(r, c), List.of())) {
+                            if (j != i) {
+                                candidates.add(j);
+                            }
+                        }
+                    }
+                }
+            }
+            final int from = i;
+            neighbours[i] = candidates.stream()
+                    .sorted(Comparator.comparingDouble(j -> calculateDistance(lat[from], lng[from], lat[j], lng[j])))
+                    .limit(NEIGHBOURS).mapToInt(Integer::intValue).toArray();
+        }
+        return neighbours;
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) ^ (col & 0xffffffffL);
+    }
+
+    // ------------------------------------------------------------------
+    // Trains: walk from a random station towards a random destination
+    // ------------------------------------------------------------------
+
+    /** Stops of one generated train: station ids and cumulative distances. */
+    private record Route(long trainId, int seats, int coaches, long[] stationIds, int[] distances) {
+    }
+
+    private List<Route> generateTrains(Random random, Network network) {
+        long[] ids = allocateIds("train", "train_id", trainCount);
+        List<Route> routes = new ArrayList<>();
+        Batch trains = new Batch("insert into karbs.train (train_id, train_number, train_name, total_seats_per_coach, "
+                + "number_of_coaches, price) values (?, ?, ?, ?, ?, ?)");
+        Batch stops = new Batch("insert into karbs.train_schedule (train_id, station_id, arrival_time, departure_time, "
+                + "stop_sequence, distance_from_start_km) values (?, ?, ?, ?, ?, ?)", trains);
+        for (int t = 0; t < trainCount; t++) {
+            int[] path = walk(random, network);
+            int[] distances = new int[path.length];
+            for (int s = 1; s < path.length; s++) {
+                // Track is longer than the straight line
+                distances[s] = distances[s - 1] + (int) Math.round(1.2 * calculateDistance(
+                        network.lat()[path[s - 1]], network.lng()[path[s - 1]],
+                        network.lat()[path[s]], network.lng()[path[s]]));
+            }
+            int coaches = 3 + random.nextInt(6);
+            long[] stationIds = Arrays.stream(path).mapToLong(s -> network.ids()[s]).toArray();
+            Route route = new Route(ids[t], 40, coaches, stationIds, distances);
+            routes.add(route);
+
+            String first = code(PREFIX, path[0], stationCount);
+            String last = code(PREFIX, path[path.length - 1], stationCount);
+            trains.add(ids[t], code(PREFIX, t, trainCount), first + "-" + last + (path.length > 10 ? " Exp" : " Pass"),
+                    route.seats(), coaches, Math.max(50L, distances[path.length - 1]));
+
+            int speed = 50 + random.nextInt(60); // km/h
+            LocalTime time = LocalTime.of(random.nextInt(24), random.nextInt(60));
+            for (int s = 0; s < path.length; s++) {
+                if (s > 0) {
+                    time = time.plusMinutes(1 + (distances[s] - distances[s - 1]) * 60L / speed);
+                }
+                LocalTime arrival = s == 0 ? null : time;
+                LocalTime departure = s == path.length - 1 ? null : time.plusMinutes(2);
+                stops.add(ids[t], stationIds[s], arrival, departure, s + 1, distances[s]);
+                if (departure != null) {
+                    time = departure;
+                }
+            }
+        }
+        stops.flush();
+        return routes;
+    }
+
+    private int[] walk(Random random, Network network) {
+        int n = network.ids().length;
+        while (true) {
+            int current = random.nextInt(n);
+            int target = random.nextInt(n);
+            int length = 2 + random.nextInt(MAX_STOPS - 1);
+            List<Integer> path = new ArrayList<>(List.of(current));
+            Set<Integer> visited = new HashSet<>(path);
+            while (path.size() < length && current != target) {
+                // Head for the target, picking among the two best unvisited neighbours for variety
+                List<Integer> next = Arrays.stream(network.neighbours()[current]).boxed()
+                        .filter(j -> !visited.contains(j))
+                        .sorted(Comparator.comparingDouble(j -> distanceTo(network, j, target)))
+                        .toList();
+                if (next.isEmpty()) {
+                    break;
+                }
+                current = next.get(random.nextInt(Math.min(2, next.size())));
+                path.add(current);
+                visited.add(current);
+            }
+            if (path.size() >= 2 || n < 2) {
+                return path.stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+    }
+
+    private static double distanceTo(Network network, int from, int to) {
+        return calculateDistance(network.lat()[from], network.lng()[from], network.lat()[to], network.lng()[to]);
+    }
+
+    // ------------------------------------------------------------------
+    // Bookings: random sub-trips, seats picked so they never overlap
+    // ------------------------------------------------------------------
+
+    private long generateBookings(Random random, List<Route> routes, Long userId, LocalDate startDate) {
+        Batch bookings = new Batch("insert into karbs.booking (booking_id, user_id, train_id, journey_date, "
+                + "source_station_id, dest_station_id, booking_status, pnr, total_fare) "
+                + "values (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        Batch seats = new Batch("insert into karbs.booked_seat (booking_id, coach_type, seat_number, from_seq, to_seq) "
+                + "values (?, ?, ?, ?, ?)", bookings);
+        long[] ids = new long[0];
+        int nextId = 0;
+        long count = 0;
+        for (int d = 0; d < bookingDays; d++) {
+            LocalDate date = startDate.plusDays(d);
+            for (Route route : routes) {
+                int stops = route.stationIds().length;
+                // One mask per seat; bit i is the hop from stop i+1 to stop i+2
+                long[] taken = new long[route.seats() * route.coaches()];
+                int wanted = random.nextInt(2 * bookingsPerTrainDay + 1);
+                for (int b = 0; b < wanted; b++) {
+                    int from = random.nextInt(stops - 1);
+                    int to = from + 1 + random.nextInt(stops - 1 - from);
+                    long hops = ((1L << (to - from)) - 1) << from;
+                    int[] picked = pickSeats(random, taken, hops, 1 + random.nextInt(4));
+                    if (picked == null) {
+                        continue;
+                    }
+                    if (nextId == ids.length) {
+                        ids = allocateIds("booking", "booking_id", BATCH_SIZE);
+                        nextId = 0;
+                    }
+                    long bookingId = ids[nextId++];
+                    boolean cancelled = random.nextInt(20) == 0;
+                    double fare = (route.distances()[to] - route.distances()[from]) * 2.0 * picked.length;
+                    bookings.add(bookingId, userId, route.trainId(), date,
+                            route.stationIds()[from], route.stationIds()[to], cancelled ? "CANCELLED" : "CONFIRMED",
+                            PREFIX + bookingId, fare);
+                    if (!cancelled) {
+                        // Cancelling deletes the seats, as BookingService does
+                        for (int seat : picked) {
+                            taken[seat] |= hops;
+                            seats.add(bookingId, "S" + (seat / route.seats() + 1), seat % route.seats() + 1,
+                                    from + 1, to + 1);
+                        }
+                    }
+                    count++;
+                }
+            }
+        }
+        seats.flush();
+        return count;
+    }
+
+    /** Seats (coach-major indexes) free on every hop in the mask, starting at a random seat; null if too few. */
+    private static int[] pickSeats(Random random, long[] taken, long hops, int count) {
+        int[] picked = new int[count];
+        int found = 0;
+        int start = random.nextInt(taken.length);
+        for (int i = 0; i < taken.length && found < count; i++) {
+            int seat = (start + i) % taken.length;
+            if ((taken[seat] & hops) == 0) {
+                picked[found++] = seat;
+            }
+        }
+        return found == count ? picked : null;
+    }
+
+    // ------------------------------------------------------------------
+
+    /** Reserves ids from the table's identity sequence, so rows can reference each other before insertion. */
+    private long[] allocateIds(String table, String column, int count) {
+        List<Long> ids = jdbcTemplate.queryForList("select nextval(pg_get_serial_sequence('karbs." + table + "', '"
+                + column + "')) from generate_series(1, ?)", Long.class, count);
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static String code(String prefix, int index, int total) {
+        int width = String.valueOf(Math.max(1, total - 1)).length();
+        return prefix + String.format("%0" + width + "d", index);
+    }
+
+    private static double calculateDistance(double lat1, double lng1, double lat2, double lng2) {
+        return StationDistanceService.haversineKm(lat1, lng1, lat2, lng2);
+    }
+
+    /**
+     * Collects rows for one statement and sends them to the database in
+     * batches, after flushing the batch holding the rows they reference.
+     */
+    private final class Batch {
+        private final String sql;
+        private final Batch parent;
+        private final List<Object[]> rows = new ArrayList<>();
+
+        Batch(String sql) {
+            this(sql, null);
+        }
+
+        Batch(String sql, Batch parent) {
+            this.sql = sql;
+            this.parent = parent;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+            if (rows.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (parent != null) {
+                parent.flush();
+            }
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                rows.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts SQL statements Hibernate prepares on each thread, so a request can
+ * tell how many it caused. Registered through
+ * {@code hibernate.session_factory.statement_inspector}.
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /** Statements prepared on this thread so far; subtract two readings for a delta. */
+    public static long current() {
+        return COUNT.get()[0];
+    }
+}
@@ -26,6 +26,6 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
                 .allowCredentials(true)
-                .exposedHeaders("Authorization");
+                .exposedHeaders("Authorization", "X-Search-Partial", "ETag");
     }
 }
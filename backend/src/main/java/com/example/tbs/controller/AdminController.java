@@ -12,12 +12,25 @@
 
 package com.example.tbs.controller;
 
+import com.example.tbs.dto.TimetableImportResultDTO;
 import com.example.tbs.entity.*;
+import com.example.tbs.exception.TimetableImportException;
 import com.example.tbs.repository.*;
 import com.example.tbs.service.BookingService;
+import com.example.tbs.service.CoachLayout;
+import com.example.tbs.service.SearchMetrics;
+import com.example.tbs.service.StationDistanceService;
+import com.example.tbs.service.SeatInventory;
+import com.example.tbs.service.SeatService;
+import com.example.tbs.service.TimetableImporter;
+import com.example.tbs.service.TimetableIndex;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -34,11 +47,19 @@ public class AdminController {
     private final BookingRepository bookingRepository;
     private final StationRepository stationRepository;
     private final BookingService bookingService;
+    private final TimetableIndex timetableIndex;
+    private final SeatInventory seatInventory;
+    private final SearchMetrics searchMetrics;
+    private final TimetableImporter timetableImporter;
+    private final StationDistanceService stationDistanceService;
+    private final SeatService seatService;
 
     public AdminController(TrainRepository trainRepository, TrainScheduleRepository trainScheduleRepository,
             BookedSeatRepository bookedSeatRepository, UserRepository userRepository,
             BookingRepository bookingRepository, StationRepository stationRepository,
-            BookingService bookingService) {
+            BookingService bookingService, TimetableIndex timetableIndex, SeatInventory seatInventory,
+            SearchMetrics searchMetrics, TimetableImporter timetableImporter,
+            StationDistanceService stationDistanceService, SeatService seatService) {
         this.trainRepository = trainRepository;
         this.trainScheduleRepository = trainScheduleRepository;
         this.bookedSeatRepository = bookedSeatRepository;
@@ -46,6 +67,12 @@ public class AdminController {
         this.bookingRepository = bookingRepository;
         this.stationRepository = stationRepository;
         this.bookingService = bookingService;
+        this.timetableIndex = timetableIndex;
+        this.seatInventory = seatInventory;
+        this.searchMetrics = searchMetrics;
+        this.timetableImporter = timetableImporter;
+        this.stationDistanceService = stationDistanceService;
+        this.seatService = seatService;
     }
 
     // ==========================================
@@ -54,7 +81,9 @@ public class AdminController {
 
     @PostMapping("/stations")
     public ResponseEntity<Station> createStation(@RequestBody Station station) {
-        return ResponseEntity.ok(stationRepository.save(station));
+        Station saved = stationRepository.save(station);
+        timetableIndex.invalidateDetails();
+        return ResponseEntity.ok(saved);
     }
 
     @PutMapping("/stations/{id}")
@@ -68,12 +97,15 @@ public class AdminController {
         station.setLatitude(stationDetails.getLatitude());
         station.setLongitude(stationDetails.getLongitude());
 
-        return ResponseEntity.ok(stationRepository.save(station));
+        Station saved = stationRepository.save(station);
+        timetableIndex.invalidateDetails();
+        return ResponseEntity.ok(saved);
     }
 
     @DeleteMapping("/stations/{id}")
     public ResponseEntity<?> deleteStation(@PathVariable Long id) {
         stationRepository.deleteById(id);
+        timetableIndex.invalidateDetails();
         return ResponseEntity.ok("Station deleted successfully");
     }
 
@@ -88,7 +120,10 @@ public class AdminController {
 
     @PostMapping("/trains")
     public ResponseEntity<Train> createTrain(@RequestBody Train train) {
-        return ResponseEntity.ok(trainRepository.save(train));
+        setComposition(train, train.getCoachComposition());
+        Train saved = trainRepository.save(train);
+        timetableIndex.invalidateDetails();
+        return ResponseEntity.ok(saved);
     }
 
     @PutMapping("/trains/{id}")
@@ -100,16 +135,28 @@ public class AdminController {
         train.setTrainName(trainDetails.getTrainName());
         train.setTotalSeatsPerCoach(trainDetails.getTotalSeatsPerCoach());
         train.setNumberOfCoaches(trainDetails.getNumberOfCoaches());
+        setComposition(train, trainDetails.getCoachComposition());
         if (trainDetails.getPrice() != null) {
             train.setPrice(trainDetails.getPrice());
         }
 
-        return ResponseEntity.ok(trainRepository.save(train));
+        Train saved = trainRepository.save(train);
+        timetableIndex.invalidateDetails();
+        return ResponseEntity.ok(saved);
+    }
+
+    // A composition decides the coach count
+    private static void setComposition(Train train, String composition) {
+        train.setCoachComposition(CoachLayout.composition(composition));
+        if (train.getCoachComposition() != null) {
+            train.setNumberOfCoaches(train.getCoachComposition().length());
+        }
     }
 
     @DeleteMapping("/trains/{id}")
     public ResponseEntity<?> deleteTrain(@PathVariable Long id) {
         trainRepository.deleteById(id);
+        timetableIndex.invalidateRoute(id);
         return ResponseEntity.ok("Train deleted successfully");
     }
 
@@ -137,26 +184,37 @@ public class AdminController {
                         .max(java.util.Comparator.comparingInt(TrainSchedule::getStopSequence))
                         .orElseThrow(); // Should not happen given isEmpty check
 
-                double distFromPrev = calculateHaversineDistance(
-                        lastStop.getStation().getLatitude(), lastStop.getStation().getLongitude(),
-                        currentStation.getLatitude(), currentStation.getLongitude());
+                double distFromPrev = stationDistanceService.distanceKm(lastStop.getStation(), currentStation);
 
                 schedule.setDistanceFromStartKm(lastStop.getDistanceFromStartKm() + (int) Math.round(distFromPrev));
             }
         }
 
-        return ResponseEntity.ok(trainScheduleRepository.save(schedule));
+        TrainSchedule saved = trainScheduleRepository.save(schedule);
+        timetableIndex.invalidateRoute(id);
+        return ResponseEntity.ok(saved);
+    }
+
+    // Free seats for every (from, to) stop pair and per coach per segment, for one train-date
+    @GetMapping("/trains/{id}/availability")
+    public ResponseEntity<?> getAvailabilityMatrix(@PathVariable Long id,
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            return ResponseEntity.ok(seatService.getAvailabilityMatrix(id, date));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
-    private double calculateHaversineDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Earth radius in km
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                        * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
+    // Train does not run that day: cancel all its confirmed and pending bookings at once
+    @PostMapping("/trains/{id}/cancel")
+    public ResponseEntity<?> cancelTrainDate(@PathVariable Long id,
+            @RequestParam @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            return ResponseEntity.ok(bookingService.cancelTrainDate(id, date));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     // Legacy method for retrieving all
@@ -165,6 +223,25 @@ public class AdminController {
         return ResponseEntity.ok(trainScheduleRepository.findAll());
     }
 
+    // Bulk load; see TimetableImporter for the CSV columns. Nothing is written unless every row is valid.
+    @PostMapping(value = "/timetable/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importTimetable(@RequestParam(required = false) MultipartFile stations,
+            @RequestParam(required = false) MultipartFile trains,
+            @RequestParam(required = false) MultipartFile stopTimes) throws IOException {
+        try (InputStream stationsIn = open(stations);
+                InputStream trainsIn = open(trains);
+                InputStream stopTimesIn = open(stopTimes)) {
+            TimetableImportResultDTO result = timetableImporter.importCsv(stationsIn, trainsIn, stopTimesIn);
+            return ResponseEntity.ok(result);
+        } catch (TimetableImportException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage(), "errors", e.getErrors()));
+        }
+    }
+
+    private static InputStream open(MultipartFile file) throws IOException {
+        return file != null && !file.isEmpty() ? file.getInputStream() : null;
+    }
+
     // ==========================================
     // 3. Booking Operations
     // ==========================================
@@ -214,12 +291,17 @@ public class AdminController {
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
 
         // Allow updating date, or status manually
+        LocalDate previousDate = booking.getJourneyDate();
         if (bookingDetails.getJourneyDate() != null)
             booking.setJourneyDate(bookingDetails.getJourneyDate());
         if (bookingDetails.getBookingStatus() != null)
             booking.setBookingStatus(bookingDetails.getBookingStatus());
 
-        return ResponseEntity.ok(bookingRepository.save(booking));
+        Booking saved = bookingRepository.save(booking);
+        // Seats move with the booking (and may now count as blocked/booked)
+        seatInventory.invalidate(booking.getTrain().getTrainId(), previousDate);
+        seatInventory.invalidate(booking.getTrain().getTrainId(), booking.getJourneyDate());
+        return ResponseEntity.ok(saved);
     }
 
     @PutMapping("/bookings/{id}/cancel")
@@ -230,16 +312,9 @@ public class AdminController {
 
     @PutMapping("/bookings/{id}/refund")
     public ResponseEntity<?> refundBooking(@PathVariable Long id) {
-        Booking booking = bookingRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Booking not found"));
-
-        booking.setBookingStatus("REFUNDED");
-        // Should also free seats if not already done?
-        // Ideally reuse cancel logic but set specific status
-        List<BookedSeat> seats = bookedSeatRepository.findByBooking(booking);
-        bookedSeatRepository.deleteAll(seats);
-
-        bookingRepository.save(booking);
+        if (bookingService.cancelBookings(List.of(id), "REFUNDED") == 0) {
+            throw new RuntimeException("Booking not found");
+        }
         return ResponseEntity.ok("Booking Refunded");
     }
 
@@ -248,6 +323,11 @@ public class AdminController {
     // ==========================================
 
     // --- Stats ---
+    @GetMapping("/search/metrics")
+    public ResponseEntity<Map<String, Object>> getSearchMetrics() {
+        return ResponseEntity.ok(searchMetrics.snapshot());
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getStats() {
         long userCount = userRepository.count();
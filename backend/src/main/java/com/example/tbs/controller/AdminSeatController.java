@@ -13,7 +13,9 @@
 package com.example.tbs.controller;
 
 import com.example.tbs.dto.BookingRequestDTO;
-import com.example.tbs.service.BookingService;
+import com.example.tbs.dto.SeatBlockRequestDTO;
+import com.example.tbs.dto.SeatBlockResultDTO;
+import com.example.tbs.service.SeatBlockService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,37 +25,61 @@ import java.util.List;
 @RequestMapping("/api/admin/seats")
 public class AdminSeatController {
 
-    private final BookingService bookingService;
+    private final SeatBlockService seatBlockService;
 
-    public AdminSeatController(BookingService bookingService) {
-        this.bookingService = bookingService;
+    public AdminSeatController(SeatBlockService seatBlockService) {
+        this.seatBlockService = seatBlockService;
     }
 
+    /** Seats of one coach on one day, between the given stations or over the whole route. */
     @PostMapping("/block")
     public ResponseEntity<?> blockSeats(@RequestBody BookingRequestDTO request) {
+        SeatBlockRequestDTO block = new SeatBlockRequestDTO();
+        block.setTrainId(request.getTrainId());
+        block.setFromDate(request.getJourneyDate());
+        block.setCoaches(request.getCoachType() != null ? List.of(request.getCoachType()) : null);
+        block.setSeatNumbers(request.getSelectedSeats());
+        // The seat manager sends 0 for "whole route"
+        block.setFromStationId(positive(request.getSourceStationId()));
+        block.setToStationId(positive(request.getDestStationId()));
+        return blockRange(block);
+    }
+
+    @PostMapping("/unblock")
+    public ResponseEntity<?> unblockSeats(@RequestBody UnblockRequest request) {
+        SeatBlockRequestDTO block = new SeatBlockRequestDTO();
+        block.setTrainId(request.getTrainId());
+        block.setFromDate(request.getJourneyDate());
+        block.setCoaches(request.getCoachType() != null ? List.of(request.getCoachType()) : null);
+        block.setSeatNumbers(request.getSeatNumbers());
+        return unblockRange(block);
+    }
+
+    /** Whole coaches, seat ranges and date ranges in one request; see {@link SeatBlockRequestDTO}. */
+    @PostMapping("/block-range")
+    public ResponseEntity<?> blockRange(@RequestBody SeatBlockRequestDTO request) {
         try {
-            // Reusing BookingService but we need to ensure the booking is marked as BLOCKED
-            // We might need a specific method in BookingService or just pass a flag
-            // Actually, let's add a method in BookingService for blocking
-            Long bookingId = bookingService.createAdminBlock(request);
-            return ResponseEntity.ok(bookingId);
+            SeatBlockResultDTO result = seatBlockService.block(request);
+            return ResponseEntity.ok(result);
         } catch (RuntimeException e) {
-            e.printStackTrace();
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
-    @PostMapping("/unblock")
-    public ResponseEntity<?> unblockSeats(@RequestBody UnblockRequest request) {
+    @PostMapping("/unblock-range")
+    public ResponseEntity<?> unblockRange(@RequestBody SeatBlockRequestDTO request) {
         try {
-            bookingService.unblockSeats(request.getTrainId(), request.getJourneyDate(), request.getSeatNumbers(),
-                    request.getCoachType());
-            return ResponseEntity.ok("Seats unblocked successfully");
+            SeatBlockResultDTO result = seatBlockService.unblock(request);
+            return ResponseEntity.ok(result);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    private static Long positive(Long id) {
+        return id != null && id > 0 ? id : null;
+    }
+
     @lombok.Data
     public static class UnblockRequest {
         private Long trainId;
@@ -13,7 +13,9 @@
 package com.example.tbs.controller;
 
 import com.example.tbs.dto.BookingRequestDTO;
+import com.example.tbs.dto.WaitlistRequestDTO;
 import com.example.tbs.service.BookingService;
+import com.example.tbs.service.WaitlistService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,9 +24,11 @@ import org.springframework.web.bind.annotation.*;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final WaitlistService waitlistService;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, WaitlistService waitlistService) {
         this.bookingService = bookingService;
+        this.waitlistService = waitlistService;
     }
 
     @PostMapping
@@ -61,4 +65,29 @@ public class BookingController {
         bookingService.cancelBooking(bookingId);
         return ResponseEntity.ok("Booking cancelled successfully");
     }
+
+    // Full coach: wait for seats to free up; the booking is made automatically
+    @PostMapping("/waitlist")
+    public ResponseEntity<?> joinWaitlist(@RequestBody WaitlistRequestDTO request) {
+        try {
+            return ResponseEntity.ok(waitlistService.join(request));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/waitlist/user/{userId}")
+    public ResponseEntity<?> getUserWaitlist(@PathVariable Long userId) {
+        return ResponseEntity.ok(waitlistService.getUserEntries(userId));
+    }
+
+    @DeleteMapping("/waitlist/{waitlistId}")
+    public ResponseEntity<?> leaveWaitlist(@PathVariable Long waitlistId) {
+        try {
+            waitlistService.leave(waitlistId);
+            return ResponseEntity.ok("Left the waitlist");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 }
@@ -12,32 +12,79 @@
 
 package com.example.tbs.controller;
 
-import com.example.tbs.dto.SearchResultDTO;
+import com.example.tbs.dto.SearchBatchResultDTO;
+import com.example.tbs.dto.SearchRequestDTO;
+import com.example.tbs.service.SearchDeadline;
+import com.example.tbs.service.SearchTrace;
 import com.example.tbs.service.TrainSearchService;
-import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/search")
 public class SearchController {
 
+    // Optional client budget in milliseconds; can only shorten the configured deadline
+    static final String DEADLINE_HEADER = "X-Search-Deadline-Ms";
+
+    // Sent as "true" when the deadline passed and the body holds only what was found until then
+    static final String PARTIAL_HEADER = "X-Search-Partial";
+
     private final TrainSearchService trainSearchService;
 
     public SearchController(TrainSearchService trainSearchService) {
         this.trainSearchService = trainSearchService;
     }
 
+    // ?from=SBC&to=MYS&date=... or ?fromCity=Bengaluru&toCity=Mysuru&date=...
+    // Adding &flex=N returns a date x itinerary availability matrix instead of a list
+    // Adding &profile=true returns every Pareto-optimal departure/arrival of the day
+    // Adding &explain=true wraps the answer as { results, explain } with per-phase costs
     @GetMapping
-    public List<SearchResultDTO> searchTrains(
-            @RequestParam String from,
-            @RequestParam String to,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        return trainSearchService.searchTrains(from, to, date);
+    public ResponseEntity<?> searchTrains(@ModelAttribute SearchRequestDTO request,
+            @RequestHeader(value = DEADLINE_HEADER, required = false) Long deadlineMs) {
+        SearchDeadline deadline = trainSearchService.deadline(deadlineMs);
+        SearchTrace trace = trainSearchService.trace(request.isExplain());
+        Object results;
+        if (request.isProfile()) {
+            results = trainSearchService.searchProfile(request, deadline, trace);
+        } else if (request.getFlex() > 0) {
+            results = trainSearchService.searchFlexible(request, deadline, trace);
+        } else {
+            results = trainSearchService.searchTrains(request, deadline, trace);
+        }
+        if (request.isExplain()) {
+            Map<String, Object> explained = new LinkedHashMap<>();
+            explained.put("results", results);
+            explained.put("explain", trace.toMap());
+            results = explained;
+        }
+        return ResponseEntity.ok()
+                .header(PARTIAL_HEADER, String.valueOf(deadline.hit()))
+                .body(results);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> searchBatch(@RequestBody List<SearchRequestDTO> queries,
+            @RequestHeader(value = DEADLINE_HEADER, required = false) Long deadlineMs) {
+        try {
+            SearchDeadline deadline = trainSearchService.deadline(deadlineMs);
+            Map<String, SearchBatchResultDTO> results = trainSearchService.searchBatch(queries, deadline);
+            return ResponseEntity.ok()
+                    .header(PARTIAL_HEADER, String.valueOf(deadline.hit()))
+                    .body(results);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 }
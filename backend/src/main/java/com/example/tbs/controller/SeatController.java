@@ -13,13 +13,24 @@
 package com.example.tbs.controller;
 
 import com.example.tbs.entity.BookedSeat;
+import com.example.tbs.service.SeatBroadcaster;
 import com.example.tbs.repository.BookedSeatRepository;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -31,19 +42,126 @@ import java.util.stream.Collectors;
 public class SeatController {
 
     private final com.example.tbs.service.SeatService seatService;
+    private final SeatBroadcaster seatBroadcaster;
 
-    public SeatController(com.example.tbs.service.SeatService seatService) {
+    public SeatController(com.example.tbs.service.SeatService seatService, SeatBroadcaster seatBroadcaster) {
         this.seatService = seatService;
+        this.seatBroadcaster = seatBroadcaster;
     }
 
+    // Compact seat map of one coach, chosen with "Accept: application/vnd.tbs.seatmap+json"
+    public static final String SEAT_BITMAP_JSON = "application/vnd.tbs.seatmap+json";
+
+    // The coach letter picks the layout (S 2+2 seats, C 3+2 chair car, B sleeper); the number must exist on the train.
+    // The ETag is the coach's seat version: If-None-Match gets a 304 while nothing changed, and
+    // sinceVersion=<ETag value> returns only the seats changed since (or all of them, with reset=true)
     @GetMapping
-    public List<SeatRowDTO> getSeatLayout(
+    public ResponseEntity<?> getSeatLayout(
+            @RequestParam Long trainId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "S1") String coach,
+            @RequestParam(defaultValue = "1") int startSeq,
+            @RequestParam(defaultValue = "10") int endSeq,
+            @RequestParam(required = false) Long sinceVersion,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            long version = seatService.getSeatVersion(trainId, date, coach);
+            String etag = "\"" + version + "\"";
+            if (matches(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+            Object body = sinceVersion != null
+                    ? seatService.getSeatChanges(trainId, date, coach, startSeq, endSeq, sinceVersion, version)
+                    : seatService.getSeatLayout(trainId, date, coach, startSeq, endSeq);
+            return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(body);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Same map as bitmaps plus a layout template id; about 1/20 the size of the seat list
+    @GetMapping(produces = SEAT_BITMAP_JSON)
+    public ResponseEntity<?> getSeatBitmaps(
             @RequestParam Long trainId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
             @RequestParam(defaultValue = "S1") String coach,
             @RequestParam(defaultValue = "1") int startSeq,
+            @RequestParam(defaultValue = "10") int endSeq,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            String etag = "\"" + seatService.getSeatVersion(trainId, date, coach) + "-b\"";
+            if (matches(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+            return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT)
+                    .body(seatService.getCoachSeatMap(trainId, date, coach, startSeq, endSeq));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.trim();
+            if (t.startsWith("W/")) {
+                t = t.substring(2);
+            }
+            if (t.equals(etag) || t.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ResponseEntity<?> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+    }
+
+    // Server-sent "seats" events for one coach: every seat first, then the seats changed (bookings,
+    // cancellations, holds, blocks) at most once per push interval. EventSource resends the last
+    // event id as Last-Event-ID on reconnect, which resumes from there when the change log allows
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeats(
+            @RequestParam Long trainId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "S1") String coach,
+            @RequestParam(defaultValue = "1") int startSeq,
+            @RequestParam(defaultValue = "10") int endSeq,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastVersion) {
+        try {
+            return seatBroadcaster.subscribe(trainId, date, coach, startSeq, endSeq, lastVersion);
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // Layout templates are immutable, so clients can cache them for good
+    @GetMapping("/layouts/{layoutId}")
+    public ResponseEntity<?> getLayoutTemplate(@PathVariable String layoutId) {
+        try {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic())
+                    .body(seatService.getLayoutTemplate(layoutId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Every coach of the train in one call, as base64 seat bitmaps per coach
+    @GetMapping("/train")
+    public ResponseEntity<?> getTrainSeatMap(
+            @RequestParam Long trainId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "1") int startSeq,
             @RequestParam(defaultValue = "10") int endSeq) {
-        return seatService.getSeatLayout(trainId, date, coach, startSeq, endSeq);
+        try {
+            return ResponseEntity.ok(seatService.getTrainSeatMap(trainId, date, startSeq, endSeq));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     public static class SeatRowDTO {
@@ -56,15 +174,33 @@ public class SeatController {
         }
     }
 
+    public static class SeatChangesDTO {
+        public long version;
+        public boolean reset; // true when every seat is listed because the change log did not reach back
+        public List<SeatDTO> seats;
+
+        public SeatChangesDTO(long version, boolean reset, List<SeatDTO> seats) {
+            this.version = version;
+            this.reset = reset;
+            this.seats = seats;
+        }
+    }
+
     public static class SeatDTO {
         public int id;
         public String number;
-        public String status; // "available", "booked", "blocked"
+        public String status; // "available", "booked", "blocked", "held"
+        public String berth; // e.g. "W"/"A" for seats, "LB"/"UB" for sleeper berths
 
         public SeatDTO(int id, String number, String status) {
+            this(id, number, status, null);
+        }
+
+        public SeatDTO(int id, String number, String status, String berth) {
             this.id = id;
             this.number = number;
             this.status = status;
+            this.berth = berth;
         }
     }
 }
@@ -12,8 +12,12 @@
 
 package com.example.tbs.controller;
 
+import com.example.tbs.entity.Station;
+import com.example.tbs.service.TimetableIndex;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import java.util.Arrays;
 import java.util.List;
@@ -22,19 +26,58 @@ import java.util.List;
 @RequestMapping("/api/stations")
 public class StationController {
 
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final double MAX_NEARBY_RADIUS_KM = 500;
+    private static final int MAX_NEARBY = 100;
+
     private final com.example.tbs.repository.StationRepository stationRepository;
+    private final TimetableIndex timetableIndex;
 
-    public StationController(com.example.tbs.repository.StationRepository stationRepository) {
+    public StationController(com.example.tbs.repository.StationRepository stationRepository,
+            TimetableIndex timetableIndex) {
         this.stationRepository = stationRepository;
+        this.timetableIndex = timetableIndex;
     }
 
     @GetMapping
     public List<StationDTO> getAllStations() {
         return stationRepository.findAll().stream()
-                .map(s -> new StationDTO(s.getStationId(), s.getStationCode(), s.getStationName(), s.getCity(),
-                        s.getLatitude(),
-                        s.getLongitude()))
+                .map(StationController::toDto)
+                .collect(java.util.stream.Collectors.toList());
+    }
+
+    // Autocomplete: matches code, name or city prefixes from the in-memory timetable, best match first
+    @GetMapping("/suggest")
+    public List<StationDTO> suggestStations(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return timetableIndex.snapshot().suggestStations(q, Math.min(limit, MAX_SUGGESTIONS)).stream()
+                .map(StationController::toDto)
+                .collect(java.util.stream.Collectors.toList());
+    }
+
+    // Stations within radiusKm of a point, nearest first, each with its distance
+    @GetMapping("/nearby")
+    public ResponseEntity<?> nearbyStations(@RequestParam double lat, @RequestParam double lng,
+            @RequestParam(defaultValue = "25") double radiusKm, @RequestParam(defaultValue = "20") int limit) {
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            return ResponseEntity.badRequest().body("lat must be within [-90, 90] and lng within [-180, 180]");
+        }
+        if (!(radiusKm > 0 && radiusKm <= MAX_NEARBY_RADIUS_KM)) {
+            return ResponseEntity.badRequest().body("radiusKm must be above 0 and at most " + MAX_NEARBY_RADIUS_KM);
+        }
+        if (limit < 1) {
+            return ResponseEntity.badRequest().body("limit must be at least 1");
+        }
+        List<NearbyStationDTO> nearby = timetableIndex.snapshot()
+                .stationsNear(lat, lng, radiusKm, Math.min(limit, MAX_NEARBY)).stream()
+                .map(n -> new NearbyStationDTO(toDto(n.station()), Math.round(n.distanceKm() * 10) / 10.0))
                 .collect(java.util.stream.Collectors.toList());
+        return ResponseEntity.ok(nearby);
+    }
+
+    private static StationDTO toDto(Station s) {
+        return new StationDTO(s.getStationId(), s.getStationCode(), s.getStationName(), s.getCity(),
+                s.getLatitude(),
+                s.getLongitude());
     }
 
     // Inner DTO for simplicity
@@ -43,11 +86,12 @@ public class StationController {
         public String stationCode;
         public String stationName;
         public String city;
-        public double latitude;
-        public double longitude;
+        // Null for stations entered without coordinates
+        public Double latitude;
+        public Double longitude;
 
-        public StationDTO(Long stationId, String stationCode, String stationName, String city, double latitude,
-                double longitude) {
+        public StationDTO(Long stationId, String stationCode, String stationName, String city, Double latitude,
+                Double longitude) {
             this.stationId = stationId;
             this.stationCode = stationCode;
             this.stationName = stationName;
@@ -56,4 +100,14 @@ public class StationController {
             this.longitude = longitude;
         }
     }
+
+    public static class NearbyStationDTO extends StationDTO {
+        public double distanceKm;
+
+        public NearbyStationDTO(StationDTO station, double distanceKm) {
+            super(station.stationId, station.stationCode, station.stationName, station.city, station.latitude,
+                    station.longitude);
+            this.distanceKm = distanceKm;
+        }
+    }
 }
@@ -15,7 +15,12 @@ package com.example.tbs.controller;
 import com.example.tbs.dto.SearchResultDTO;
 import com.example.tbs.entity.TrainSchedule;
 import com.example.tbs.repository.TrainScheduleRepository;
+import com.example.tbs.service.TrainCalendarService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -26,11 +31,14 @@ public class TrainController {
 
     private final TrainScheduleRepository trainScheduleRepository;
     private final com.example.tbs.repository.TrainRepository trainRepository;
+    private final TrainCalendarService trainCalendarService;
 
     public TrainController(TrainScheduleRepository trainScheduleRepository,
-            com.example.tbs.repository.TrainRepository trainRepository) {
+            com.example.tbs.repository.TrainRepository trainRepository,
+            TrainCalendarService trainCalendarService) {
         this.trainScheduleRepository = trainScheduleRepository;
         this.trainRepository = trainRepository;
+        this.trainCalendarService = trainCalendarService;
     }
 
     @GetMapping("/{trainId}")
@@ -55,6 +63,20 @@ public class TrainController {
                 ts.getStopSequence())).collect(Collectors.toList());
     }
 
+    // Seats left per day between two stops (whole route by default), up to 180 days from one query
+    @GetMapping("/{trainId}/calendar")
+    public ResponseEntity<?> getCalendar(@PathVariable Long trainId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer fromSeq,
+            @RequestParam(required = false) Integer toSeq) {
+        try {
+            return ResponseEntity.ok(trainCalendarService.getCalendar(trainId, from, to, fromSeq, toSeq));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     public static class RoutePointDTO {
         public String stationName;
         public double lat;
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class AvailabilityMatrixDTO {
+    private Long trainId;
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate date;
+    private int capacity;
+    private List<StopDTO> stops;
+
+    // free[i][j]: seats free all the way from stops[i] to stops[j] (0 unless i < j)
+    private int[][] free;
+
+    private List<CoachAvailabilityDTO> coaches;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StopDTO {
+        private int stopSequence;
+        private String stationCode;
+        private String stationName;
+    }
+
+    // free[k]: seats of the coach free between stops[k] and stops[k + 1]
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CoachAvailabilityDTO {
+        private String coach;
+        private int seats;
+        private int[] free;
+    }
+}
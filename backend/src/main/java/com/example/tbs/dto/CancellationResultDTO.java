@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CancellationResultDTO {
+    private int bookings;
+
+    // Seats freed, counted once per coach and seat
+    private long seats;
+
+    private long millis;
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlexSearchResultDTO {
+    private List<LocalDate> dates;
+
+    // Itineraries as for the requested date
+    private List<SearchResultDTO> itineraries;
+
+    // availability[i][d] = seats left on itinerary i on dates[d] (min over its legs)
+    private int[][] availability;
+
+    // True if the search deadline passed; itineraries are the ones found until then
+    private boolean partial;
+}
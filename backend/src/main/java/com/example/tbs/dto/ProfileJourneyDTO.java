@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProfileJourneyDTO {
+    @JsonFormat(pattern = "HH:mm")
+    private LocalTime departureTime;
+    @JsonFormat(pattern = "HH:mm")
+    private LocalTime arrivalTime;
+
+    // 1 if the journey arrives the day after it leaves, and so on
+    private int arrivalDayOffset;
+
+    private String duration; // e.g., "4h 10m"
+    private int transfers;
+    private List<SearchResultDTO.SegmentDTO> segments;
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchBatchResultDTO {
+    private List<SearchResultDTO> results;
+
+    // Set instead of results when this query failed (e.g. unknown station)
+    private String error;
+
+    // True if the batch deadline passed before this query finished; results are what was found
+    private boolean partial;
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+@Data
+public class SearchRequestDTO {
+    // Either a station code or a city on each side; city wins if both are given
+    private String from;
+    private String to;
+    private String fromCity;
+    private String toCity;
+
+    // Start anywhere within radiusKm (default 25) of this point; replaces from/fromCity
+    private Double nearLat;
+    private Double nearLng;
+    private Double radiusKm;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate date;
+
+    // Also search this many days either side of date (flexible-date matrix)
+    private int flex;
+
+    // Party size; legs with fewer free seats are dropped during the search
+    private int passengers;
+
+    // Every journey of the day not beaten on both departure and arrival time
+    private boolean profile;
+
+    // Return per-phase timings, statement counts and allocations next to the results
+    private boolean explain;
+}
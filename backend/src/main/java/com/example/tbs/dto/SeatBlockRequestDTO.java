@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class SeatBlockRequestDTO {
+    private Long trainId;
+
+    // Every day from fromDate to toDate; toDate defaults to fromDate
+    private LocalDate fromDate;
+    private LocalDate toDate;
+
+    // Coach codes such as S1; every coach of the train when empty
+    private List<String> coaches;
+
+    // The listed seats, else seatFrom..seatTo, else the whole coach
+    private List<Integer> seatNumbers;
+    private Integer seatFrom;
+    private Integer seatTo;
+
+    // Stops blocked between, by sequence or station; the whole route when neither is given.
+    // Unblocking clears the seats from blocks on any stops.
+    private Integer fromSeq;
+    private Integer toSeq;
+    private Long fromStationId;
+    private Long toStationId;
+
+    // Block the seats that are free and leave booked ones alone, instead of failing
+    private boolean skipTaken;
+
+    private String reason;
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatBlockResultDTO {
+    private int days;
+    private List<String> coaches;
+
+    // Seat-days blocked or unblocked by this request
+    private long seatsChanged;
+
+    // Seat-days left as they were: already blocked, or booked when skipTaken is set
+    private long seatsSkipped;
+
+    private long millis;
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.example.tbs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableImportResultDTO {
+    // Rows inserted or updated from each file
+    private int stations;
+    private int trains;
+    private long stops;
+
+    // Trains whose previous stops were replaced by the imported ones
+    private int trainsRescheduled;
+
+    private long millis;
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class TrainCalendarDTO {
+    private Long trainId;
+    private int fromSeq;
+    private int toSeq;
+    private int capacity;
+    private List<DayDTO> days;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DayDTO {
+        @JsonFormat(pattern = "yyyy-MM-dd")
+        private LocalDate date;
+        private int availableSeats;
+    }
+}
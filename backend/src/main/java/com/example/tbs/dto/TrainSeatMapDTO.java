@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class TrainSeatMapDTO {
+    private Long trainId;
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate date;
+    private int startSeq;
+    private int endSeq;
+    private List<CoachSeatMapDTO> coaches;
+
+    /**
+     * One coach as base64 bitmaps, seat n being bit (n - 1) % 8 of byte (n - 1) / 8.
+     * A seat is in at most one of booked, blocked (admin) and held (pending
+     * booking); any other seat is available. Labels and berths come from the
+     * template at /api/seats/layouts/{layout}, which never changes for an id.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CoachSeatMapDTO {
+        private String coach;
+        private String layout; // template id, e.g. "S-40"
+        private String type; // SEATER, CHAIR_CAR or SLEEPER
+        private int seats;
+        private int seatsPerRow;
+        private int available;
+        private String booked;
+        private String blocked;
+        private String held;
+    }
+}
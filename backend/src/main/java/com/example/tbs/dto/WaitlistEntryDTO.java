@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntryDTO {
+    private Long waitlistId;
+    private Long trainId;
+    private LocalDate journeyDate;
+    private String coachType;
+    private Long sourceStationId;
+    private Long destStationId;
+    private int seats;
+    private String status;
+
+    // Requests ahead in the coach's queue while WAITING, otherwise null
+    private Integer position;
+
+    // The confirmed booking once PROMOTED
+    private Long bookingId;
+}
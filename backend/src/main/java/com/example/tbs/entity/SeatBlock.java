@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDate;
+
+/**
+ * Admin block of any number of seats of one coach on one journey date, between
+ * two stops. The seats are a bitmap, seat {@code n} being bit {@code (n - 1) % 8}
+ * of byte {@code (n - 1) / 8} (as {@link java.util.BitSet#toByteArray()} lays out
+ * bit {@code n - 1}), so a whole coach blocked for a day is a single row.
+ */
+@Entity
+@Table(name = "seat_block", schema = "karbs", uniqueConstraints = @UniqueConstraint(columnNames = {
+        "train_id", "journey_date", "coach_type", "from_seq", "to_seq" }))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatBlock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long blockId;
+
+    @ManyToOne
+    @JoinColumn(name = "train_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Train train;
+
+    private LocalDate journeyDate;
+    private String coachType;
+    private int fromSeq;
+    private int toSeq;
+    private byte[] seats;
+    private String reason;
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.example.tbs.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Single row (id 1) bumped on every timetable change, so cached snapshots can tell they are stale
+@Entity
+@Table(name = "timetable_version", schema = "karbs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableVersion {
+    @Id
+    private Long id;
+
+    private long version;
+}
@@ -32,6 +32,9 @@ public class Train {
     private Integer totalSeatsPerCoach;
     private Integer numberOfCoaches;
 
+    // One coach type letter per coach in running order, e.g. "SSSCCB"; null for all seaters
+    private String coachComposition;
+
     @Column(nullable = false, columnDefinition = "bigint default 100")
     private Long price = 100L;
 }
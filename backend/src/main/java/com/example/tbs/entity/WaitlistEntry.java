@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Request for seats in a coach that had none free between two stops. Waits
+ * (status WAITING) in order of id until enough seats free up, then becomes
+ * PROMOTED with the confirmed booking made for it, or CANCELLED.
+ */
+@Entity
+@Table(name = "waitlist_entry", schema = "karbs",
+        indexes = @Index(columnList = "train_id, journey_date, coach_type, status"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long waitlistId;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @ManyToOne
+    @JoinColumn(name = "train_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Train train;
+
+    private LocalDate journeyDate;
+    private String coachType;
+
+    @ManyToOne
+    @JoinColumn(name = "source_station_id")
+    private Station sourceStation;
+
+    @ManyToOne
+    @JoinColumn(name = "dest_station_id")
+    private Station destStation;
+
+    private int fromSeq;
+    private int toSeq;
+    private int seats;
+    private Double totalFare;
+
+    private String status;
+    private LocalDateTime createdAt;
+
+    // Set once promoted
+    private Long bookingId;
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.example.tbs.exception;
+
+import java.util.List;
+
+public class TimetableImportException extends RuntimeException {
+    private final List<String> errors;
+
+    public TimetableImportException(List<String> errors) {
+        super("Timetable import rejected: " + errors.size() + " error(s)");
+        this.errors = errors;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
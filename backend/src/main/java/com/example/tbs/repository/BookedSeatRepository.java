@@ -18,6 +18,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -41,7 +42,7 @@ public interface BookedSeatRepository extends JpaRepository<BookedSeat, Long> {
 
         @Query("SELECT b FROM BookedSeat b WHERE b.booking.train.trainId = :trainId " +
                         "AND b.booking.journeyDate = :journeyDate " +
-                        "AND b.coachType = :coachType " +
+                        "AND upper(b.coachType) = :coachType " +
                         "AND b.seatNumber IN :seatNumbers")
         List<BookedSeat> findAdminBlockedSeats(@Param("trainId") Long trainId,
                         @Param("journeyDate") LocalDate journeyDate,
@@ -59,4 +60,44 @@ public interface BookedSeatRepository extends JpaRepository<BookedSeat, Long> {
                         @Param("endSeq") int endSeq);
 
         List<BookedSeat> findByBooking(com.example.tbs.entity.Booking booking);
+
+        /**
+         * Every booked/blocked seat segment of the given trains over a date window,
+         * loaded in one statement so availability can be counted in memory.
+         */
+        @Query("SELECT b.booking.train.trainId AS trainId, b.booking.journeyDate AS journeyDate, " +
+                        "b.booking.bookingStatus AS bookingStatus, b.coachType AS coachType, " +
+                        "b.seatNumber AS seatNumber, b.fromSeq AS fromSeq, b.toSeq AS toSeq " +
+                        "FROM BookedSeat b WHERE b.booking.train.trainId IN :trainIds " +
+                        "AND b.booking.journeyDate BETWEEN :fromDate AND :toDate")
+        List<SeatSegment> findSeatSegments(@Param("trainIds") java.util.Collection<Long> trainIds,
+                        @Param("fromDate") LocalDate fromDate,
+                        @Param("toDate") LocalDate toDate);
+
+        /** Seat segments of the given bookings, shaped as {@link #findSeatSegments}. */
+        @Query("SELECT b.booking.train.trainId AS trainId, b.booking.journeyDate AS journeyDate, " +
+                        "b.booking.bookingStatus AS bookingStatus, b.coachType AS coachType, " +
+                        "b.seatNumber AS seatNumber, b.fromSeq AS fromSeq, b.toSeq AS toSeq " +
+                        "FROM BookedSeat b WHERE b.booking.bookingId IN :bookingIds")
+        List<SeatSegment> findSeatSegmentsOfBookings(@Param("bookingIds") java.util.Collection<Long> bookingIds);
+
+        @Modifying
+        @Query("DELETE FROM BookedSeat b WHERE b.booking.bookingId IN :bookingIds")
+        int deleteByBookingIds(@Param("bookingIds") java.util.Collection<Long> bookingIds);
+
+        interface SeatSegment {
+                Long getTrainId();
+
+                LocalDate getJourneyDate();
+
+                String getBookingStatus();
+
+                String getCoachType();
+
+                int getSeatNumber();
+
+                int getFromSeq();
+
+                int getToSeq();
+        }
 }
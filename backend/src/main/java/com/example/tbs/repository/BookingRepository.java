@@ -14,9 +14,27 @@ package com.example.tbs.repository;
 
 import com.example.tbs.entity.Booking;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     java.util.List<Booking> findByUserUserId(Long userId);
+
+    @Query("SELECT b.bookingId FROM Booking b WHERE b.train.trainId = :trainId " +
+            "AND b.journeyDate = :journeyDate AND b.bookingStatus IN :statuses")
+    List<Long> findIdsByTrainAndDate(@Param("trainId") Long trainId,
+            @Param("journeyDate") LocalDate journeyDate,
+            @Param("statuses") Collection<String> statuses);
+
+    // Cleared so bookings read later in the transaction show the new status
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.bookingStatus = :status WHERE b.bookingId IN :bookingIds")
+    int updateStatus(@Param("bookingIds") Collection<Long> bookingIds, @Param("status") String status);
 }
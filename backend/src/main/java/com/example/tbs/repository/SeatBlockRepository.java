@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.repository;
+
+import com.example.tbs.entity.SeatBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SeatBlockRepository extends JpaRepository<SeatBlock, Long> {
+
+        @Query("SELECT s FROM SeatBlock s WHERE s.train.trainId = :trainId " +
+                        "AND s.journeyDate BETWEEN :fromDate AND :toDate " +
+                        "AND s.coachType IN :coaches")
+        List<SeatBlock> findBlocks(@Param("trainId") Long trainId,
+                        @Param("fromDate") LocalDate fromDate,
+                        @Param("toDate") LocalDate toDate,
+                        @Param("coaches") Collection<String> coaches);
+
+        /**
+         * Every seat block of the given trains over a date window, loaded in one
+         * statement alongside {@link BookedSeatRepository#findSeatSegments}.
+         */
+        @Query("SELECT s.train.trainId AS trainId, s.journeyDate AS journeyDate, s.coachType AS coachType, " +
+                        "s.fromSeq AS fromSeq, s.toSeq AS toSeq, s.seats AS seats " +
+                        "FROM SeatBlock s WHERE s.train.trainId IN :trainIds " +
+                        "AND s.journeyDate BETWEEN :fromDate AND :toDate")
+        List<BlockSegment> findBlockSegments(@Param("trainIds") Collection<Long> trainIds,
+                        @Param("fromDate") LocalDate fromDate,
+                        @Param("toDate") LocalDate toDate);
+
+        interface BlockSegment {
+                Long getTrainId();
+
+                LocalDate getJourneyDate();
+
+                String getCoachType();
+
+                int getFromSeq();
+
+                int getToSeq();
+
+                byte[] getSeats();
+        }
+}
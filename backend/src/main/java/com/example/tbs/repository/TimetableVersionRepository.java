@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.example.tbs.repository;
+
+import com.example.tbs.entity.TimetableVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface TimetableVersionRepository extends JpaRepository<TimetableVersion, Long> {
+    long ROW_ID = 1L;
+
+    // One statement, so concurrent first bumps cannot both try to insert the row
+    @Modifying
+    @Transactional
+    @Query(value = "insert into karbs.timetable_version (id, version) values (1, 1) "
+            + "on conflict (id) do update set version = karbs.timetable_version.version + 1", nativeQuery = true)
+    void bump();
+
+    default long current() {
+        return findById(ROW_ID).map(TimetableVersion::getVersion).orElse(0L);
+    }
+}
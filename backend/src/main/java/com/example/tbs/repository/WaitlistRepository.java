@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.repository;
+
+import com.example.tbs.entity.WaitlistEntry;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.train.trainId = :trainId AND w.journeyDate = :journeyDate " +
+            "AND w.coachType = :coachType AND w.status = 'WAITING' ORDER BY w.waitlistId")
+    List<WaitlistEntry> findWaiting(@Param("trainId") Long trainId,
+            @Param("journeyDate") LocalDate journeyDate,
+            @Param("coachType") String coachType);
+
+    List<WaitlistEntry> findByUserUserIdOrderByWaitlistIdDesc(Long userId);
+
+    @Query("SELECT COUNT(w) FROM WaitlistEntry w WHERE w.user.userId = :userId AND w.train.trainId = :trainId " +
+            "AND w.journeyDate = :journeyDate AND w.coachType = :coachType AND w.status = 'WAITING'")
+    long countWaiting(@Param("userId") Long userId,
+            @Param("trainId") Long trainId,
+            @Param("journeyDate") LocalDate journeyDate,
+            @Param("coachType") String coachType);
+
+    // Promotion and leaving the list both take this lock, so an entry is never both
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.waitlistId = :id")
+    Optional<WaitlistEntry> findByIdWithLock(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'CANCELLED' WHERE w.train.trainId = :trainId " +
+            "AND w.journeyDate = :journeyDate AND w.status = 'WAITING'")
+    int cancelWaiting(@Param("trainId") Long trainId, @Param("journeyDate") LocalDate journeyDate);
+}
@@ -13,32 +13,50 @@
 package com.example.tbs.service;
 
 import com.example.tbs.dto.BookingRequestDTO;
+import com.example.tbs.dto.CancellationResultDTO;
 import com.example.tbs.entity.*;
 import com.example.tbs.repository.*;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 
 @Service
 public class BookingService {
 
+        // Bookings that still hold seats
+        private static final List<String> ACTIVE_STATUSES = List.of("CONFIRMED", "PENDING");
+        // Keeps IN lists well under the driver's bind parameter limit
+        private static final int CANCEL_CHUNK = 1000;
+
         private final BookingRepository bookingRepository;
         private final BookedSeatRepository bookedSeatRepository;
         private final UserRepository userRepository;
         private final TrainRepository trainRepository;
         private final StationRepository stationRepository;
         private final TrainScheduleRepository trainScheduleRepository;
+        private final SeatInventory seatInventory;
+        private final SeatBlockService seatBlockService;
+        private final WaitlistService waitlistService;
 
         public BookingService(BookingRepository bookingRepository, BookedSeatRepository bookedSeatRepository,
                         UserRepository userRepository, TrainRepository trainRepository,
-                        StationRepository stationRepository, TrainScheduleRepository trainScheduleRepository) {
+                        StationRepository stationRepository, TrainScheduleRepository trainScheduleRepository,
+                        SeatInventory seatInventory, SeatBlockService seatBlockService,
+                        WaitlistService waitlistService) {
                 this.bookingRepository = bookingRepository;
                 this.bookedSeatRepository = bookedSeatRepository;
                 this.userRepository = userRepository;
                 this.trainRepository = trainRepository;
                 this.stationRepository = stationRepository;
                 this.trainScheduleRepository = trainScheduleRepository;
+                this.seatInventory = seatInventory;
+                this.seatBlockService = seatBlockService;
+                this.waitlistService = waitlistService;
         }
 
         @Transactional
@@ -68,6 +86,22 @@ public class BookingService {
                         throw new RuntimeException("Invalid route: Source must be before destination");
                 }
 
+                // Seat maps, blocks and waitlists name coaches like "S3", so store it that way whatever was sent
+                String coachType = request.getCoachType() != null
+                                ? request.getCoachType().trim().toUpperCase(Locale.ROOT) : null;
+                if (coachType != null && !coachType.isEmpty()) {
+                        coachType = SeatService.coachOf(train, coachType);
+                } else if (request.getSelectedSeats() != null && !request.getSelectedSeats().isEmpty()) {
+                        throw new RuntimeException("Coach is required");
+                }
+
+                int blockedSeat = seatBlockService.firstBlocked(train.getTrainId(), request.getJourneyDate(),
+                                coachType, sourceSequence, destSequence, request.getSelectedSeats());
+                if (blockedSeat > 0) {
+                        throw new com.example.tbs.exception.SeatAlreadyBookedException(
+                                        "Seat " + blockedSeat + " conflicts with an admin block.");
+                }
+
                 // 3. Save the Booking entity
                 Booking booking = new Booking();
                 booking.setUser(user);
@@ -92,7 +126,7 @@ public class BookingService {
                 // 4. Save Booked Seats with Critical Sequence Info
                 List<Integer> selectedSeats = request.getSelectedSeats();
                 if (selectedSeats != null) {
-                        String coachType = request.getCoachType();
+                        List<BookedSeat> saved = new java.util.ArrayList<>();
                         for (Integer seatNum : selectedSeats) {
                                 BookedSeat bookedSeat = new BookedSeat();
                                 bookedSeat.setBooking(savedBooking);
@@ -134,180 +168,83 @@ public class BookingService {
                                                         "Seat " + seatNum + " is already booked.");
                                 }
 
-                                bookedSeatRepository.save(bookedSeat);
+                                saved.add(bookedSeatRepository.save(bookedSeat));
 
                                 // 5. Debugging Log
                                 System.out.println("Blocked Seat " + seatNum + " from seq " + sourceSequence + " to "
                                                 + destSequence);
                         }
+                        seatInventory.invalidate(train.getTrainId(), request.getJourneyDate(), saved);
                 }
 
                 return savedBooking.getBookingId();
         }
 
         @Transactional
-        public Long createAdminBlock(BookingRequestDTO request) {
-                // 1. Fetch Entities
-                User user = null;
-                if (request.getUserId() != null && request.getUserId() > 0) {
-                        user = userRepository.findById(request.getUserId()).orElse(null);
-                }
-
-                // If user is null, we proceed (assuming DB allows nullable user_id for blocks)
-                // If DB enforces Not Null, this will fail at save, but that's better than
-                // failing at "User not found" check
-                // for a dummy ID.
-
-                Train train = trainRepository.findByIdWithLock(request.getTrainId())
-                                .orElseThrow(() -> new RuntimeException("Train not found"));
-
-                Station source;
-                Station dest;
-                int sourceSequence;
-                int destSequence;
-
-                // Auto-detect route if ID is 0 or null (simplifies frontend)
-                if (request.getSourceStationId() == null || request.getSourceStationId() <= 0 ||
-                                request.getDestStationId() == null || request.getDestStationId() <= 0) {
-
-                        List<TrainSchedule> schedules = trainScheduleRepository.findByTrain(train);
-                        if (schedules.isEmpty())
-                                throw new RuntimeException("Train has no schedule");
-
-                        // Sort by sequence
-                        schedules.sort(java.util.Comparator.comparingInt(TrainSchedule::getStopSequence));
-
-                        TrainSchedule first = schedules.get(0);
-                        TrainSchedule last = schedules.get(schedules.size() - 1);
-
-                        source = first.getStation();
-                        dest = last.getStation();
-                        sourceSequence = first.getStopSequence();
-                        destSequence = last.getStopSequence();
-                } else {
-                        source = stationRepository.findById(request.getSourceStationId())
-                                        .orElseThrow(() -> new RuntimeException("Source Station not found"));
-                        dest = stationRepository.findById(request.getDestStationId())
-                                        .orElseThrow(() -> new RuntimeException("Destination Station not found"));
-
-                        TrainSchedule sourceSchedule = trainScheduleRepository.findByTrainAndStation(train, source)
-                                        .orElseThrow(() -> new RuntimeException(
-                                                        "Train schedule not found for source station"));
-                        TrainSchedule destSchedule = trainScheduleRepository.findByTrainAndStation(train, dest)
-                                        .orElseThrow(() -> new RuntimeException(
-                                                        "Train schedule not found for destination station"));
-
-                        sourceSequence = sourceSchedule.getStopSequence();
-                        destSequence = destSchedule.getStopSequence();
-                }
-
-                // 2. Save Booking as BLOCKED
-                Booking booking = new Booking();
-                booking.setUser(user);
-                booking.setTrain(train);
-                booking.setJourneyDate(request.getJourneyDate());
-                booking.setSourceStation(source);
-                booking.setDestStation(dest);
-                booking.setBookingStatus("BLOCKED");
-                booking.setPnr("BLK" + System.currentTimeMillis());
-                booking.setTotalFare(0.0);
-
-                Booking savedBooking = bookingRepository.save(booking);
-
-                // 3. Save Booked Seats
-                List<Integer> selectedSeats = request.getSelectedSeats();
-                if (selectedSeats != null) {
-                        for (Integer seatNum : selectedSeats) {
-                                BookedSeat bookedSeat = new BookedSeat();
-                                bookedSeat.setBooking(savedBooking);
-                                bookedSeat.setSeatNumber(seatNum);
-                                bookedSeat.setCoachType(request.getCoachType());
-                                bookedSeat.setFromSeq(sourceSequence);
-                                bookedSeat.setToSeq(destSequence);
-
-                                // Check conflict?
-                                // If Admin wants to force block, maybe we don't check?
-                                // BUT if a user already booked it, we shouldn't overwrite without warning.
-                                // Let's enforce conflict check. Admin should see it's booked and not try to
-                                // block.
-                                // If they really want to block, they should cancel the user's booking first.
-                                long conflictCount = bookedSeatRepository.countOverlappingBookings(
-                                                train.getTrainId(),
-                                                request.getJourneyDate(),
-                                                sourceSequence,
-                                                destSequence);
-
-                                List<BookedSeat> conflicts = bookedSeatRepository.findAdminBlockedSeats(
-                                                train.getTrainId(),
-                                                request.getJourneyDate(),
-                                                request.getCoachType(),
-                                                List.of(seatNum));
-
-                                boolean isTaken = conflicts.stream()
-                                                .anyMatch(existing -> existing.getFromSeq() < destSequence
-                                                                && existing.getToSeq() > sourceSequence);
-
-                                if (isTaken) {
-                                        throw new RuntimeException("Seat " + seatNum
-                                                        + " is already booked/blocked. Cannot block.");
-                                }
-
-                                bookedSeatRepository.save(bookedSeat);
-                        }
+        public List<Long> createCompositeBooking(com.example.tbs.dto.CompositeBookingRequest compositeRequest) {
+                List<Long> bookingIds = new java.util.ArrayList<>();
+                for (BookingRequestDTO request : compositeRequest.getBookings()) {
+                        bookingIds.add(createBooking(request));
                 }
-                return savedBooking.getBookingId();
+                return bookingIds;
         }
 
         @Transactional
-        public void unblockSeats(Long trainId, java.time.LocalDate journeyDate, List<Integer> seatNumbers,
-                        String coachType) {
-                // Find seats that are BLOCKED and match the criteria
-                List<BookedSeat> seats = bookedSeatRepository.findAdminBlockedSeats(trainId, journeyDate, coachType,
-                                seatNumbers);
-
-                // Filter only those that belong to a BLOCKED booking
-                List<BookedSeat> seatsToRemove = seats.stream()
-                                .filter(s -> "BLOCKED".equalsIgnoreCase(s.getBooking().getBookingStatus()))
-                                .collect(java.util.stream.Collectors.toList());
-
-                if (seatsToRemove.isEmpty()) {
-                        // Determine if failure or silent success.
-                        // Maybe some seats were not blocked?
-                        // Let's just return.
-                        return;
+        public void cancelBooking(Long bookingId) {
+                if (cancelBookings(List.of(bookingId), "CANCELLED") == 0) {
+                        throw new RuntimeException("Booking not found");
                 }
+        }
 
-                bookedSeatRepository.deleteAll(seatsToRemove);
-
-                // Optional: Cleanup empty bookings
-                // We can leave them for now or delete if no seats left.
+        /**
+         * Frees the seats of the bookings and sets their status. Three statements
+         * per {@value #CANCEL_CHUNK} bookings however many seats they hold, and
+         * every train-date touched is invalidated together after the commit,
+         * when the freed coaches' waitlists are matched. Returns how many of the
+         * bookings exist.
+         */
+        @Transactional
+        public int cancelBookings(Collection<Long> bookingIds, String status) {
+                SeatInventory.Changes changes = new SeatInventory.Changes();
+                int updated = cancel(List.copyOf(new LinkedHashSet<>(bookingIds)), status, changes);
+                seatInventory.invalidate(changes);
+                waitlistService.seatsFreed(changes);
+                return updated;
         }
 
+        /** Cancels every confirmed or pending booking of a train-date, e.g. when the train does not run. */
         @Transactional
-        public List<Long> createCompositeBooking(com.example.tbs.dto.CompositeBookingRequest compositeRequest) {
-                List<Long> bookingIds = new java.util.ArrayList<>();
-                for (BookingRequestDTO request : compositeRequest.getBookings()) {
-                        bookingIds.add(createBooking(request));
+        public CancellationResultDTO cancelTrainDate(Long trainId, LocalDate journeyDate) {
+                long started = System.nanoTime();
+                if (journeyDate == null) {
+                        throw new RuntimeException("Date is required");
                 }
-                return bookingIds;
+                // Bookings being made wait, then see the train-date as it is after the cancellation
+                trainRepository.findByIdWithLock(trainId)
+                                .orElseThrow(() -> new RuntimeException("Train not found"));
+                List<Long> bookingIds = bookingRepository.findIdsByTrainAndDate(trainId, journeyDate,
+                                ACTIVE_STATUSES);
+                SeatInventory.Changes changes = new SeatInventory.Changes();
+                int cancelled = cancel(bookingIds, "CANCELLED", changes);
+                seatInventory.invalidate(changes);
+                // No seats to offer on a train that does not run
+                waitlistService.cancelTrainDate(trainId, journeyDate);
+                return new CancellationResultDTO(cancelled, changes.count(), (System.nanoTime() - started) / 1_000_000);
         }
 
-        @Transactional
-        public void cancelBooking(Long bookingId) {
-                Booking booking = bookingRepository.findById(bookingId)
-                                .orElseThrow(() -> new RuntimeException("Booking not found"));
-
-                // 1. Free up the seats (Delete them so others can book)
-                // Note: We need a method in Repository or use a custom query.
-                // Since we don't have direct deleteByBooking in interface yet, let's fetch and
-                // delete.
-                // Ideally, add deleteByBooking to Repository for efficiency.
-                List<BookedSeat> seats = bookedSeatRepository.findByBooking(booking);
-                bookedSeatRepository.deleteAll(seats);
-
-                // 2. Update Status to CANCELLED
-                booking.setBookingStatus("CANCELLED");
-                bookingRepository.save(booking);
+        private int cancel(List<Long> bookingIds, String status, SeatInventory.Changes changes) {
+                int updated = 0;
+                for (int from = 0; from < bookingIds.size(); from += CANCEL_CHUNK) {
+                        List<Long> chunk = bookingIds.subList(from, Math.min(bookingIds.size(), from + CANCEL_CHUNK));
+                        for (BookedSeatRepository.SeatSegment seat : bookedSeatRepository
+                                        .findSeatSegmentsOfBookings(chunk)) {
+                                changes.add(seat.getTrainId(), seat.getJourneyDate(), seat.getCoachType(),
+                                                seat.getSeatNumber());
+                        }
+                        bookedSeatRepository.deleteByBookingIds(chunk);
+                        updated += bookingRepository.updateStatus(chunk, status);
+                }
+                return updated;
         }
 
         public java.util.List<BookingHistoryDTO> getUserBookings(Long userId) {
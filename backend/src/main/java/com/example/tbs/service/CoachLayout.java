@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.example.tbs.service;
+
+import com.example.tbs.controller.SeatController.SeatDTO;
+import com.example.tbs.controller.SeatController.SeatRowDTO;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable seat map of one coach type and size: which seats share a row and
+ * each seat's label and berth. Templates are built once per (type, seats)
+ * and shared; a seat map request only overlays occupancy bitmaps on one.
+ */
+public final class CoachLayout {
+
+        /** Layout per coach, picked by the letter of the coach code (S1, C2, B3, ...). */
+        public enum CoachType {
+                // 2+2 seating, as in the original fixed layout
+                SEATER('S', "W", "A", "A", "W"),
+                // 3+2 chair car
+                CHAIR_CAR('C', "W", "M", "A", "A", "W"),
+                // Three-tier sleeper: six berths across the bay and two along the side
+                SLEEPER('B', "LB", "MB", "UB", "LB", "MB", "UB", "SL", "SU");
+
+                private final char prefix;
+                private final String[] berths;
+
+                CoachType(char prefix, String... berths) {
+                        this.prefix = prefix;
+                        this.berths = berths;
+                }
+
+                public char prefix() {
+                        return prefix;
+                }
+
+                public int seatsPerRow() {
+                        return berths.length;
+                }
+
+                static CoachType ofCoach(String coach) {
+                        char letter = Character.toUpperCase(coach.charAt(0));
+                        for (CoachType type : values()) {
+                                if (type.prefix == letter) {
+                                        return type;
+                                }
+                        }
+                        throw new RuntimeException("Unknown coach type: " + coach);
+                }
+        }
+
+        private static final String AVAILABLE = "available";
+        private static final String BOOKED = "booked";
+        private static final String BLOCKED = "blocked";
+        private static final String HELD = "held";
+
+        // Bounds the templates byId can create from request input
+        private static final int MAX_SEATS = 512;
+
+        private static final ConcurrentMap<String, CoachLayout> TEMPLATES = new ConcurrentHashMap<>();
+
+        private final CoachType type;
+        private final int seats;
+        private final String[] numbers;
+
+        private CoachLayout(CoachType type, int seats) {
+                this.type = type;
+                this.seats = seats;
+                this.numbers = new String[seats + 1];
+                for (int seat = 1; seat <= seats; seat++) {
+                        numbers[seat] = String.valueOf(seat);
+                }
+        }
+
+        public static CoachLayout of(CoachType type, int seats) {
+                return TEMPLATES.computeIfAbsent(type.name() + "/" + seats, k -> new CoachLayout(type, seats));
+        }
+
+        /** Template named by {@link #id()}, e.g. "S-40". */
+        public static CoachLayout byId(String id) {
+                int dash = id.indexOf('-');
+                int seats;
+                try {
+                        seats = Integer.parseInt(id.substring(dash + 1));
+                } catch (NumberFormatException e) {
+                        throw new RuntimeException("Invalid layout: " + id);
+                }
+                if (dash != 1 || seats < 1 || seats > MAX_SEATS) {
+                        throw new RuntimeException("Invalid layout: " + id);
+                }
+                return of(CoachType.ofCoach(id), seats);
+        }
+
+        /**
+         * Coach codes of a train in running order, numbered within each type:
+         * composition "SSCB" gives S1, S2, C1, B1. Without a composition the
+         * train is {@code coaches} seaters.
+         */
+        static List<String> coachCodes(String composition, int coaches) {
+                List<String> codes = new ArrayList<>();
+                if (composition == null || composition.isBlank()) {
+                        for (int number = 1; number <= coaches; number++) {
+                                codes.add(CoachType.SEATER.prefix() + String.valueOf(number));
+                        }
+                        return codes;
+                }
+                Map<Character, Integer> counts = new HashMap<>();
+                for (int i = 0; i < composition.length(); i++) {
+                        char letter = Character.toUpperCase(composition.charAt(i));
+                        codes.add(letter + String.valueOf(counts.merge(letter, 1, Integer::sum)));
+                }
+                return codes;
+        }
+
+        /**
+         * Composition as stored: upper case without blanks, null when empty.
+         * Every letter must name a coach type.
+         */
+        public static String composition(String composition) {
+                if (composition == null || composition.isBlank()) {
+                        return null;
+                }
+                String letters = composition.replaceAll("\\s", "").toUpperCase(Locale.ROOT);
+                for (int i = 0; i < letters.length(); i++) {
+                        CoachType.ofCoach(letters.substring(i, i + 1));
+                }
+                return letters;
+        }
+
+        public CoachType type() {
+                return type;
+        }
+
+        public int seats() {
+                return seats;
+        }
+
+        /** Stable name of the template, the coach type letter and seat count, e.g. "S-40". */
+        public String id() {
+                return type.prefix + "-" + seats;
+        }
+
+        /** Bitmap words needed for seats 1..seats, bit n standing for seat n. */
+        public int bitmapWords() {
+                return (seats >>> 6) + 1;
+        }
+
+        /** Rows of the coach with each seat's status from the bitmaps (blocked wins over held, held over booked). */
+        public List<SeatRowDTO> render(long[] taken, long[] blocked, long[] held) {
+                int perRow = type.seatsPerRow();
+                List<SeatRowDTO> rows = new ArrayList<>((seats + perRow - 1) / perRow);
+                for (int first = 1; first <= seats; first += perRow) {
+                        int last = Math.min(seats, first + perRow - 1);
+                        List<SeatDTO> row = new ArrayList<>(last - first + 1);
+                        for (int seat = first; seat <= last; seat++) {
+                                row.add(seat(seat, taken, blocked, held));
+                        }
+                        rows.add(new SeatRowDTO(rows.size() + 1, row));
+                }
+                return rows;
+        }
+
+        /** The given seats of the coach, in seat order, with statuses as in {@link #render}. */
+        public List<SeatDTO> seats(BitSet which, long[] taken, long[] blocked, long[] held) {
+                List<SeatDTO> list = new ArrayList<>(which.cardinality());
+                for (int seat = which.nextSetBit(1); seat >= 0 && seat <= seats; seat = which.nextSetBit(seat + 1)) {
+                        list.add(seat(seat, taken, blocked, held));
+                }
+                return list;
+        }
+
+        private SeatDTO seat(int seat, long[] taken, long[] blocked, long[] held) {
+                String status = isSet(blocked, seat) ? BLOCKED
+                                : isSet(held, seat) ? HELD
+                                : isSet(taken, seat) ? BOOKED : AVAILABLE;
+                return new SeatDTO(seat, numbers[seat], status, type.berths[(seat - 1) % type.seatsPerRow()]);
+        }
+
+        /** Seats of this coach set in the bitmap. */
+        public int count(long[] bitmap) {
+                int count = 0;
+                for (int seat = 1; seat <= seats; seat++) {
+                        if (isSet(bitmap, seat)) {
+                                count++;
+                        }
+                }
+                return count;
+        }
+
+        /**
+         * Base64 of the bitmap for seats 1..seats packed into bytes, seat
+         * {@code n} being bit {@code (n - 1) % 8} of byte {@code (n - 1) / 8}.
+         * A 40-seat coach takes 8 characters.
+         */
+        public String encode(long[] bitmap) {
+                byte[] bytes = new byte[(seats + 7) / 8];
+                for (int seat = 1; seat <= seats; seat++) {
+                        if (isSet(bitmap, seat)) {
+                                bytes[(seat - 1) >>> 3] |= (byte) (1 << ((seat - 1) & 7));
+                        }
+                }
+                return Base64.getEncoder().encodeToString(bytes);
+        }
+
+        private static boolean isSet(long[] bitmap, int seat) {
+                return (bitmap[seat >>> 6] & (1L << seat)) != 0;
+        }
+}
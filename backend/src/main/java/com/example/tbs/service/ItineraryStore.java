@@ -0,0 +1,453 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.entity.Station;
+import com.example.tbs.entity.TrainSchedule;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Precomputed itinerary skeletons (trains and stop sequences) for every station
+ * pair, kept in a memory-mapped file so search only has to attach fares and
+ * seats. Per pair only itineraries not beaten by another on departure,
+ * arrival and number of trains are kept, as in {@link ProfileSearch}, so a
+ * search answered from the store lists fewer alternatives than one expanding
+ * the timetable. The file is rebuilt in the background whenever
+ * {@link TimetableIndex} changes; when only some trains were rerouted, only
+ * origins whose itineraries used those trains or that can now board them are
+ * recomputed and every other origin's block is copied over.
+ * <p>
+ * Building walks every itinerary of up to three trains from every station, so
+ * it is off unless {@code itinerary-store.enabled} is set; each build logs how
+ * long it took.
+ * <p>
+ * {@link #lookup} answers null while the file is behind the timetable, and
+ * search then falls back to expanding the timetable itself.
+ * <p>
+ * File layout, big-endian:
+ * <pre>
+ * header   int magic, int format, long timetable version, int origin count
+ * origins  (long stationId, long blockOffset, int blockLength) sorted by stationId
+ * block    int pair count, (long destStationId, int offset, int count) sorted by destStationId,
+ *          then per itinerary: byte legs, (long trainId, int boardSeq, int alightSeq) per leg
+ * </pre>
+ * Offsets inside a block are relative to the block, so unchanged blocks are copied verbatim.
+ */
+@Service
+public class ItineraryStore {
+
+        private static final int MAGIC = 0x54425349; // "TBSI"
+        private static final int FORMAT = 1;
+        private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+        private static final int ORIGIN_BYTES = 8 + 8 + 4;
+        private static final int PAIR_BYTES = 8 + 4 + 4;
+        private static final int LEG_BYTES = 8 + 4 + 4;
+
+        private final TimetableIndex timetableIndex;
+        private final boolean enabled;
+        private final Path path;
+        private final ExecutorService builder = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "itinerary-store");
+                thread.setDaemon(true);
+                return thread;
+        });
+
+        private volatile Mapped store;
+
+        // Pending work for the builder thread, guarded by this
+        private boolean scheduled;
+        private boolean rebuildAll = true;
+        private final Set<Long> reroutedTrains = new HashSet<>();
+        // Changed events taken since the last rebuild, and the newest version among them
+        private int pendingEvents;
+        private long latestVersion;
+
+        public ItineraryStore(TimetableIndex timetableIndex,
+                        @Value("${itinerary-store.enabled:false}") boolean enabled,
+                        @Value("${itinerary-store.path:${java.io.tmpdir}/tbs-itineraries.bin}") String path) {
+                this.timetableIndex = timetableIndex;
+                this.enabled = enabled;
+                this.path = Path.of(path);
+        }
+
+        /** One train ride of a stored itinerary. */
+        public record Hop(Long trainId, int boardSeq, int alightSeq) {
+        }
+
+        /**
+         * Stored itineraries from any of the origins to any of the destinations,
+         * per station pair, or null if the store was not built from this timetable.
+         */
+        public List<List<Hop>> lookup(TimetableIndex.Snapshot timetable, Set<Long> sourceIds, Set<Long> destIds) {
+                Mapped current = store;
+                if (current == null || current.timetable().version() != timetable.version()) {
+                        return null;
+                }
+                List<List<Hop>> itineraries = new ArrayList<>();
+                for (Long sourceId : sourceIds) {
+                        ByteBuffer block = current.block(sourceId);
+                        if (block == null) {
+                                continue;
+                        }
+                        for (Long destId : destIds) {
+                                readPair(block, destId, itineraries);
+                        }
+                }
+                return itineraries;
+        }
+
+        @EventListener(ApplicationReadyEvent.class)
+        public void onStartup() {
+                schedule(null, 0);
+        }
+
+        @EventListener
+        public void onTimetableChanged(TimetableIndex.Changed event) {
+                schedule(event.reroutedTrainIds(), event.version());
+        }
+
+        private synchronized void schedule(Set<Long> trainIds, long version) {
+                if (!enabled) {
+                        return;
+                }
+                if (trainIds == null) {
+                        rebuildAll = true;
+                } else {
+                        reroutedTrains.addAll(trainIds);
+                }
+                if (version > 0) {
+                        pendingEvents++;
+                        latestVersion = Math.max(latestVersion, version);
+                }
+                if (!scheduled) {
+                        scheduled = true;
+                        builder.submit(this::rebuild);
+                }
+        }
+
+        private void rebuild() {
+                boolean all;
+                Set<Long> trains;
+                int events;
+                long upTo;
+                synchronized (this) {
+                        all = rebuildAll;
+                        trains = new HashSet<>(reroutedTrains);
+                        events = pendingEvents;
+                        upTo = latestVersion;
+                        rebuildAll = false;
+                        reroutedTrains.clear();
+                        pendingEvents = 0;
+                        scheduled = false;
+                }
+                Mapped previous = store;
+                try {
+                        long started = System.nanoTime();
+                        TimetableIndex.Snapshot timetable = timetableIndex.snapshot();
+                        // The diff only covers the trains taken above: it is safe when the snapshot holds
+                        // exactly the edits those events announced, every one of them since the previous store
+                        boolean diffable = !all && previous != null && timetable.version() == upTo
+                                        && upTo - previous.timetable().version() == events;
+                        Set<Long> stale = diffable ? affectedOrigins(previous, timetable, trains) : null;
+                        store = write(timetable, previous, stale);
+                        System.out.println("Itinerary store built: " + timetable.stations().size() + " origins, "
+                                        + (stale == null ? "all" : String.valueOf(stale.size())) + " recomputed in "
+                                        + (System.nanoTime() - started) / 1_000_000 + " ms");
+                } catch (IOException | RuntimeException e) {
+                        System.err.println("Itinerary store rebuild failed: " + e.getMessage());
+                        synchronized (this) {
+                                rebuildAll = true;
+                        }
+                }
+        }
+
+        @PreDestroy
+        public void shutdown() {
+                builder.shutdownNow();
+        }
+
+        /**
+         * Origins whose kept itineraries may differ after the edit: those whose
+         * stored itineraries ride one of the trains (they may lose them, and
+         * itineraries those beat may come back), and those that can board one
+         * of the trains within two trains now (they may gain some).
+         */
+        private Set<Long> affectedOrigins(Mapped before, TimetableIndex.Snapshot after, Set<Long> trainIds) {
+                Set<Long> origins = new HashSet<>();
+                if (trainIds.isEmpty()) {
+                        return origins;
+                }
+                Set<Long> boarding = new HashSet<>();
+                for (Long trainId : trainIds) {
+                        List<TrainSchedule> stops = after.stopsOfTrain(trainId);
+                        // Nobody boards at the last stop
+                        stops.subList(0, Math.max(0, stops.size() - 1))
+                                        .forEach(ts -> boarding.add(ts.getStation().getStationId()));
+                }
+                for (Station station : after.stations()) {
+                        Long id = station.getStationId();
+                        ByteBuffer block = before.block(id);
+                        if (boarding.contains(id) || after.canReachAny(id, boarding, TimetableIndex.MAX_LEGS - 1)
+                                        || block != null && ridesAny(block, trainIds)) {
+                                origins.add(id);
+                        }
+                }
+                return origins;
+        }
+
+        /** Writes a new file next to the current one, swaps it in and maps it. */
+        private Mapped write(TimetableIndex.Snapshot timetable, Mapped previous, Set<Long> stale) throws IOException {
+                List<Long> origins = timetable.stations().stream().map(Station::getStationId).sorted().toList();
+                Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+                if (path.getParent() != null) {
+                        Files.createDirectories(path.getParent());
+                }
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                StandardOpenOption.TRUNCATE_EXISTING)) {
+                        ByteBuffer directory = ByteBuffer.allocate(HEADER_BYTES + origins.size() * ORIGIN_BYTES);
+                        directory.putInt(MAGIC).putInt(FORMAT).putLong(timetable.version()).putInt(origins.size());
+                        long offset = directory.capacity();
+                        out.position(offset);
+                        for (Long origin : origins) {
+                                ByteBuffer block = stale == null || stale.contains(origin) ? null
+                                                : previous.block(origin);
+                                if (block == null) {
+                                        block = encode(enumerate(timetable, origin));
+                                }
+                                directory.putLong(origin).putLong(offset).putInt(block.remaining());
+                                offset += block.remaining();
+                                while (block.hasRemaining()) {
+                                        out.write(block);
+                                }
+                        }
+                        directory.flip();
+                        while (directory.hasRemaining()) {
+                                out.write(directory, directory.position());
+                        }
+                }
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                        return new Mapped(timetable, in.map(FileChannel.MapMode.READ_ONLY, 0, in.size()));
+                }
+        }
+
+        /**
+         * Itineraries of up to {@link TimetableIndex#MAX_LEGS} trains leaving the
+         * origin, grouped by destination, keeping only those no other itinerary
+         * to the same destination beats. A transfer never happens at the origin
+         * or at the itinerary's own destination, matching what a search for that
+         * pair would return.
+         */
+        private Map<Long, List<Itinerary>> enumerate(TimetableIndex.Snapshot timetable, Long origin) {
+                Map<Long, List<Itinerary>> byDest = new TreeMap<>();
+                for (TrainSchedule board1 : timetable.callsAtStation(origin)) {
+                        for (TrainSchedule alight1 : timetable.stopsAfter(board1)) {
+                                Ride leg1 = new Ride(board1, alight1);
+                                Long stop1 = alight1.getStation().getStationId();
+                                keep(byDest, List.of(leg1));
+                                if (stop1.equals(origin)) {
+                                        continue;
+                                }
+                                for (TrainSchedule board2 : timetable.callsAtStation(stop1)) {
+                                        if (sameTrain(board1, board2) || !TrainSearchService.isLayoverValid(
+                                                        alight1.getArrivalTime(), board2.getDepartureTime())) {
+                                                continue;
+                                        }
+                                        for (TrainSchedule alight2 : timetable.stopsAfter(board2)) {
+                                                Ride leg2 = new Ride(board2, alight2);
+                                                Long stop2 = alight2.getStation().getStationId();
+                                                if (!stop2.equals(stop1)) {
+                                                        keep(byDest, List.of(leg1, leg2));
+                                                }
+                                                if (stop2.equals(origin)) {
+                                                        continue;
+                                                }
+                                                for (TrainSchedule board3 : timetable.callsAtStation(stop2)) {
+                                                        if (sameTrain(board2, board3) || !TrainSearchService
+                                                                        .isLayoverValid(alight2.getArrivalTime(),
+                                                                                        board3.getDepartureTime())) {
+                                                                continue;
+                                                        }
+                                                        for (TrainSchedule alight3 : timetable.stopsAfter(board3)) {
+                                                                Long stop3 = alight3.getStation().getStationId();
+                                                                if (!stop3.equals(stop1) && !stop3.equals(stop2)) {
+                                                                        keep(byDest, List.of(leg1, leg2,
+                                                                                        new Ride(board3, alight3)));
+                                                                }
+                                                        }
+                                                }
+                                        }
+                                }
+                        }
+                }
+                return byDest;
+        }
+
+        /** Adds the itinerary unless one already kept beats it, dropping those it beats. */
+        private void keep(Map<Long, List<Itinerary>> byDest, List<Ride> legs) {
+                Long dest = legs.get(legs.size() - 1).alight().getStation().getStationId();
+                int departure = legs.get(0).board().getDepartureTime().toSecondOfDay() / 60;
+                Itinerary candidate = new Itinerary(legs, departure, departure + (int) travelMinutes(legs));
+                List<Itinerary> kept = byDest.computeIfAbsent(dest, k -> new ArrayList<>());
+                for (Itinerary current : kept) {
+                        if (current.beats(candidate)) {
+                                return;
+                        }
+                }
+                kept.removeIf(candidate::beats);
+                kept.add(candidate);
+        }
+
+        private static long travelMinutes(List<Ride> legs) {
+                Duration duration = Duration.between(legs.get(0).board().getDepartureTime(),
+                                legs.get(legs.size() - 1).alight().getArrivalTime());
+                return duration.isNegative() ? duration.plusHours(24).toMinutes() : duration.toMinutes();
+        }
+
+        private static boolean sameTrain(TrainSchedule a, TrainSchedule b) {
+                return a.getTrain().getTrainId().equals(b.getTrain().getTrainId());
+        }
+
+        private static ByteBuffer encode(Map<Long, List<Itinerary>> byDest) {
+                int size = 4 + byDest.size() * PAIR_BYTES;
+                for (List<Itinerary> itineraries : byDest.values()) {
+                        for (Itinerary itinerary : itineraries) {
+                                size += 1 + itinerary.legs().size() * LEG_BYTES;
+                        }
+                }
+                ByteBuffer block = ByteBuffer.allocate(size);
+                block.putInt(byDest.size());
+                int offset = 4 + byDest.size() * PAIR_BYTES;
+                for (Map.Entry<Long, List<Itinerary>> pair : byDest.entrySet()) {
+                        block.putLong(pair.getKey()).putInt(offset).putInt(pair.getValue().size());
+                        for (Itinerary itinerary : pair.getValue()) {
+                                offset += 1 + itinerary.legs().size() * LEG_BYTES;
+                        }
+                }
+                for (List<Itinerary> itineraries : byDest.values()) {
+                        for (Itinerary itinerary : itineraries) {
+                                List<Ride> legs = itinerary.legs();
+                                block.put((byte) legs.size());
+                                for (Ride leg : legs) {
+                                        block.putLong(leg.board().getTrain().getTrainId())
+                                                        .putInt(leg.board().getStopSequence())
+                                                        .putInt(leg.alight().getStopSequence());
+                                }
+                        }
+                }
+                return block.flip();
+        }
+
+        private static void readPair(ByteBuffer block, Long destId, List<List<Hop>> into) {
+                int lo = 0;
+                int hi = block.getInt(0) - 1;
+                while (lo <= hi) {
+                        int mid = (lo + hi) >>> 1;
+                        int entry = 4 + mid * PAIR_BYTES;
+                        long id = block.getLong(entry);
+                        if (id < destId) {
+                                lo = mid + 1;
+                        } else if (id > destId) {
+                                hi = mid - 1;
+                        } else {
+                                int pos = block.getInt(entry + 8);
+                                int count = block.getInt(entry + 12);
+                                for (int i = 0; i < count; i++) {
+                                        int legs = block.get(pos++);
+                                        List<Hop> hops = new ArrayList<>(legs);
+                                        for (int l = 0; l < legs; l++) {
+                                                hops.add(new Hop(block.getLong(pos), block.getInt(pos + 8),
+                                                                block.getInt(pos + 12)));
+                                                pos += LEG_BYTES;
+                                        }
+                                        into.add(hops);
+                                }
+                                return;
+                        }
+                }
+        }
+
+        /** True if any itinerary in the block rides one of the trains. */
+        private static boolean ridesAny(ByteBuffer block, Set<Long> trainIds) {
+                int pairs = block.getInt(0);
+                int pos = 4 + pairs * PAIR_BYTES;
+                while (pos < block.limit()) {
+                        int legs = block.get(pos++);
+                        for (int l = 0; l < legs; l++) {
+                                if (trainIds.contains(block.getLong(pos))) {
+                                        return true;
+                                }
+                                pos += LEG_BYTES;
+                        }
+                }
+                return false;
+        }
+
+        private record Ride(TrainSchedule board, TrainSchedule alight) {
+        }
+
+        /** Departure and arrival in minutes from midnight of the departure day. */
+        private record Itinerary(List<Ride> legs, int departure, int arrival) {
+
+                /** Leaves no earlier, arrives no later, on no more trains; ties keep the first. */
+                boolean beats(Itinerary other) {
+                        return departure >= other.departure && arrival <= other.arrival
+                                        && legs.size() <= other.legs.size();
+                }
+        }
+
+        /** A mapped file and the timetable it was built from. */
+        private record Mapped(TimetableIndex.Snapshot timetable, MappedByteBuffer buffer) {
+
+                /** The origin's block as its own buffer, or null if it has none. */
+                ByteBuffer block(Long stationId) {
+                        int lo = 0;
+                        int hi = buffer.getInt(16) - 1;
+                        while (lo <= hi) {
+                                int mid = (lo + hi) >>> 1;
+                                int entry = HEADER_BYTES + mid * ORIGIN_BYTES;
+                                long id = buffer.getLong(entry);
+                                if (id < stationId) {
+                                        lo = mid + 1;
+                                } else if (id > stationId) {
+                                        hi = mid - 1;
+                                } else {
+                                        return buffer.slice((int) buffer.getLong(entry + 8), buffer.getInt(entry + 16));
+                                }
+                        }
+                        return null;
+                }
+        }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.service.TimetableIndex.Connection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Profile query: every journey between two sets of stations that leaves
+ * during the service day and is not beaten by another journey leaving no
+ * earlier and arriving no later.
+ * <p>
+ * One backward sweep over the connection array, latest departure first. Each
+ * station keeps its Pareto profile of (departure, arrival at target), and each
+ * train the earliest arrival reachable by staying on board, so every
+ * connection is looked at once, as in a single earliest-arrival scan.
+ * Connections cover one service day (overnight runs included), so a change
+ * onto a train that starts the next day is not considered.
+ */
+final class ProfileSearch {
+
+        private static final int NEVER = Integer.MAX_VALUE;
+        private static final int DAY_MINUTES = 24 * 60;
+
+        private ProfileSearch() {
+        }
+
+        /** A Pareto-optimal journey; minutes are as in {@link Connection}. */
+        record Journey(int departure, int arrival, List<TrainSearchService.Leg> legs) {
+        }
+
+        /** Boarding {@code enter} here gets to a target by {@code arrival}, leaving the train after {@code exit}. */
+        private record Entry(int departure, int arrival, int enter, int exit) {
+        }
+
+        static List<Journey> run(TimetableIndex.Snapshot timetable, Set<Long> sourceIds, Set<Long> targetIds,
+                        int transferMinutes, SearchDeadline deadline, SearchTrace trace) {
+                List<Connection> connections = timetable.connections();
+                boolean[] target = new boolean[timetable.stations().size()];
+                targetIds.forEach(id -> {
+                        int i = timetable.stationIndexOf(id);
+                        if (i >= 0) {
+                                target[i] = true;
+                        }
+                });
+
+                int[] tripArrival = new int[timetable.tripCount()];
+                int[] tripExit = new int[timetable.tripCount()];
+                Arrays.fill(tripArrival, NEVER);
+
+                // Per station, entries by decreasing departure and so by decreasing arrival
+                @SuppressWarnings("unchecked")
+                List<Entry>[] profiles = new List[target.length];
+
+                int scanned = 0;
+                for (int i = connections.size() - 1; i >= 0; i--, scanned++) {
+                        // Stopping early keeps every journey leaving after the last connection scanned
+                        if ((i & 255) == 0 && deadline.expired()) {
+                                break;
+                        }
+                        Connection c = connections.get(i);
+                        int alightAtTarget = target[c.toStation()] ? c.arrival() : NEVER;
+                        int stayOn = tripArrival[c.trip()];
+                        int change = NEVER;
+                        if (!target[c.toStation()]) {
+                                Entry next = earliest(profiles[c.toStation()], c.arrival() + transferMinutes);
+                                change = next != null ? next.arrival() : NEVER;
+                        }
+
+                        // On ties prefer getting off at the target, then staying on board
+                        if (alightAtTarget <= stayOn && alightAtTarget <= change) {
+                                offerTrip(tripArrival, tripExit, c.trip(), alightAtTarget, i);
+                        } else if (change < stayOn) {
+                                offerTrip(tripArrival, tripExit, c.trip(), change, i);
+                        }
+                        if (tripArrival[c.trip()] == NEVER) {
+                                continue;
+                        }
+
+                        if (profiles[c.fromStation()] == null) {
+                                profiles[c.fromStation()] = new ArrayList<>();
+                        }
+                        add(profiles[c.fromStation()],
+                                        new Entry(c.departure(), tripArrival[c.trip()], i, tripExit[c.trip()]));
+                }
+
+                trace.count("connectionsScanned", scanned);
+
+                List<Entry> found = new ArrayList<>();
+                for (Long sourceId : sourceIds) {
+                        int s = timetable.stationIndexOf(sourceId);
+                        if (s >= 0 && profiles[s] != null && !target[s]) {
+                                profiles[s].stream().filter(e -> e.departure() < DAY_MINUTES).forEach(found::add);
+                        }
+                }
+                // Merge the sources' profiles, latest departure first, dropping dominated entries
+                found.sort(Comparator.comparingInt(Entry::departure).reversed()
+                                .thenComparingInt(Entry::arrival));
+                List<Journey> journeys = new ArrayList<>();
+                int bestArrival = NEVER;
+                for (Entry e : found) {
+                        if (e.arrival() < bestArrival) {
+                                bestArrival = e.arrival();
+                                journeys.add(new Journey(e.departure(), e.arrival(),
+                                                legs(connections, profiles, target, e, transferMinutes)));
+                        }
+                }
+                journeys.sort(Comparator.comparingInt(Journey::departure));
+                return journeys;
+        }
+
+        private static void offerTrip(int[] tripArrival, int[] tripExit, int trip, int arrival, int exit) {
+                if (arrival < tripArrival[trip]) {
+                        tripArrival[trip] = arrival;
+                        tripExit[trip] = exit;
+                }
+        }
+
+        private static void add(List<Entry> profile, Entry entry) {
+                if (!profile.isEmpty()) {
+                        Entry last = profile.get(profile.size() - 1);
+                        if (last.arrival() <= entry.arrival()) {
+                                return;
+                        }
+                        if (last.departure() == entry.departure()) {
+                                profile.set(profile.size() - 1, entry);
+                                return;
+                        }
+                }
+                profile.add(entry);
+        }
+
+        /** Earliest-arriving entry that departs at or after {@code minute}. */
+        private static Entry earliest(List<Entry> profile, int minute) {
+                if (profile == null) {
+                        return null;
+                }
+                int lo = 0;
+                int hi = profile.size() - 1;
+                Entry found = null;
+                while (lo <= hi) {
+                        int mid = (lo + hi) >>> 1;
+                        if (profile.get(mid).departure() >= minute) {
+                                found = profile.get(mid);
+                                lo = mid + 1;
+                        } else {
+                                hi = mid - 1;
+                        }
+                }
+                return found;
+        }
+
+        /**
+         * Follows the entry's train to its exit, then the profile of the station
+         * there. Entries added later in the sweep all leave before that
+         * connection could be made, so this picks the one the sweep used.
+         */
+        private static List<TrainSearchService.Leg> legs(List<Connection> connections, List<Entry>[] profiles,
+                        boolean[] target, Entry entry, int transferMinutes) {
+                List<TrainSearchService.Leg> legs = new ArrayList<>();
+                Entry e = entry;
+                while (e != null) {
+                        Connection enter = connections.get(e.enter());
+                        Connection exit = connections.get(e.exit());
+                        legs.add(new TrainSearchService.Leg(enter.from(), exit.to()));
+                        if (target[exit.toStation()]) {
+                                break;
+                        }
+                        e = earliest(profiles[exit.toStation()], exit.arrival() + transferMinutes);
+                }
+                return legs;
+        }
+}
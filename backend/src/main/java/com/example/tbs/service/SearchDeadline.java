@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import java.time.Duration;
+
+/**
+ * Point in time after which a search stops expanding and returns what it has
+ * found so far. The search polls {@link #expired()} between steps; the caller
+ * reads {@link #hit()} afterwards to tell whether the results are partial.
+ */
+public final class SearchDeadline {
+
+        private final long deadlineNanos;
+        private final SearchDeadline parent;
+        private volatile boolean hit;
+
+        private SearchDeadline(long deadlineNanos, SearchDeadline parent) {
+                this.deadlineNanos = deadlineNanos;
+                this.parent = parent;
+        }
+
+        public static SearchDeadline after(Duration budget) {
+                return new SearchDeadline(System.nanoTime() + budget.toNanos(), null);
+        }
+
+        /** Same instant, but hit separately, e.g. per query of a batch; hitting it also hits this one. */
+        public SearchDeadline fork() {
+                return new SearchDeadline(deadlineNanos, this);
+        }
+
+        public boolean expired() {
+                if (!hit && System.nanoTime() - deadlineNanos >= 0) {
+                        hit = true;
+                        if (parent != null) {
+                                parent.hit = true;
+                        }
+                }
+                return hit;
+        }
+
+        /** True if the search gave up on this deadline. */
+        public boolean hit() {
+                return hit;
+        }
+}
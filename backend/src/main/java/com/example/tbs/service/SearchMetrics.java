@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the search endpoints since startup, served to admins from
+ * {@code /api/admin/search/metrics}. One search in {@code search.metrics.sample-every}
+ * is traced, and its phase costs are added to running totals.
+ */
+@Service
+public class SearchMetrics {
+
+        private final AtomicLong searches = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+        private final AtomicLong traceTicket = new AtomicLong();
+        private final int sampleEvery;
+
+        // Guarded by this
+        private long sampled;
+        private final Map<String, SearchTrace.Phase> phaseTotals = new LinkedHashMap<>();
+        private final Map<String, Long> phaseSamples = new LinkedHashMap<>();
+        private final Map<String, Long> counterTotals = new LinkedHashMap<>();
+
+        public SearchMetrics(@Value("${search.metrics.sample-every:100}") int sampleEvery) {
+                this.sampleEvery = Math.max(sampleEvery, 0);
+        }
+
+        /** A trace for an explain request, or for every n-th search; {@link SearchTrace#off()} otherwise. */
+        public SearchTrace trace(boolean explain) {
+                if (explain || (sampleEvery > 0 && traceTicket.incrementAndGet() % sampleEvery == 0)) {
+                        return SearchTrace.on();
+                }
+                return SearchTrace.off();
+        }
+
+        /** One finished query; a hit deadline counts as a timeout. */
+        public void recordSearch(SearchDeadline deadline, SearchTrace trace) {
+                searches.incrementAndGet();
+                if (deadline.hit()) {
+                        timeouts.incrementAndGet();
+                }
+                if (trace.enabled()) {
+                        trace.finish();
+                        synchronized (this) {
+                                sampled++;
+                                trace.phases().forEach((name, phase) -> {
+                                        phaseTotals.merge(name, phase, SearchTrace.Phase::plus);
+                                        phaseSamples.merge(name, 1L, Long::sum);
+                                });
+                                trace.counters().forEach((name, n) -> counterTotals.merge(name, n, Long::sum));
+                        }
+                }
+        }
+
+        public synchronized Map<String, Object> snapshot() {
+                Map<String, Object> metrics = new LinkedHashMap<>();
+                metrics.put("searches", searches.get());
+                metrics.put("timeouts", timeouts.get());
+                metrics.put("sampled", sampled);
+
+                // Averages over the sampled searches that ran the phase
+                Map<String, Object> phases = new LinkedHashMap<>();
+                phaseTotals.forEach((name, total) -> {
+                        long n = phaseSamples.get(name);
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        row.put("samples", n);
+                        row.put("avgMillis", total.nanos() / 1_000_000.0 / n);
+                        row.put("avgStatements", (double) total.statements() / n);
+                        row.put("avgAllocatedBytes", total.allocatedBytes() / n);
+                        phases.put(name, row);
+                });
+                metrics.put("phases", phases);
+                Map<String, Object> counters = new LinkedHashMap<>();
+                counterTotals.forEach((name, total) -> counters.put(name, (double) total / sampled));
+                metrics.put("avgCountersPerSample", counters);
+                return metrics;
+        }
+}
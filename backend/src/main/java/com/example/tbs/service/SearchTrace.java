@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.config.StatementCounter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Where one search spends its time: wall time, SQL statements and bytes
+ * allocated per phase, plus named counters such as candidates per round.
+ * Statements and bytes are measured on the calling thread only. The
+ * {@link #off()} instance ignores everything, so untraced searches pay nothing.
+ */
+public final class SearchTrace {
+
+        private static final SearchTrace OFF = new SearchTrace(false);
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+        private final boolean enabled;
+        private final Map<String, Phase> phases = new LinkedHashMap<>();
+        private final Map<String, Long> counters = new LinkedHashMap<>();
+
+        private String current;
+        private long startNanos;
+        private long startStatements;
+        private long startBytes;
+
+        private SearchTrace(boolean enabled) {
+                this.enabled = enabled;
+        }
+
+        public static SearchTrace on() {
+                return new SearchTrace(true);
+        }
+
+        public static SearchTrace off() {
+                return OFF;
+        }
+
+        public boolean enabled() {
+                return enabled;
+        }
+
+        /** Ends the running phase, if any, and starts the named one. */
+        public void phase(String name) {
+                if (!enabled) {
+                        return;
+                }
+                finish();
+                current = name;
+                startStatements = StatementCounter.current();
+                startBytes = allocatedBytes();
+                startNanos = System.nanoTime();
+        }
+
+        public void finish() {
+                if (!enabled || current == null) {
+                        return;
+                }
+                Phase spent = new Phase(System.nanoTime() - startNanos, StatementCounter.current() - startStatements,
+                                allocatedBytes() - startBytes);
+                phases.merge(current, spent, Phase::plus);
+                current = null;
+        }
+
+        public synchronized void count(String name, long n) {
+                if (enabled && n != 0) {
+                        counters.merge(name, n, Long::sum);
+                }
+        }
+
+        public Map<String, Phase> phases() {
+                return phases;
+        }
+
+        public synchronized Map<String, Long> counters() {
+                return new LinkedHashMap<>(counters);
+        }
+
+        /** Explain output: phases in the order they ran, then the counters. */
+        public Map<String, Object> toMap() {
+                Map<String, Object> out = new LinkedHashMap<>();
+                Map<String, Object> byPhase = new LinkedHashMap<>();
+                long nanos = 0;
+                long statements = 0;
+                long bytes = 0;
+                for (Map.Entry<String, Phase> e : phases.entrySet()) {
+                        Phase p = e.getValue();
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        row.put("millis", p.nanos() / 1_000_000.0);
+                        row.put("statements", p.statements());
+                        row.put("allocatedBytes", p.allocatedBytes());
+                        byPhase.put(e.getKey(), row);
+                        nanos += p.nanos();
+                        statements += p.statements();
+                        bytes += p.allocatedBytes();
+                }
+                out.put("totalMillis", nanos / 1_000_000.0);
+                out.put("statements", statements);
+                out.put("allocatedBytes", bytes);
+                out.put("phases", byPhase);
+                out.put("counters", counters());
+                return out;
+        }
+
+        private static long allocatedBytes() {
+                if (THREADS instanceof com.sun.management.ThreadMXBean hotspot
+                                && hotspot.isThreadAllocatedMemoryEnabled()) {
+                        return hotspot.getCurrentThreadAllocatedBytes();
+                }
+                return 0;
+        }
+
+        public record Phase(long nanos, long statements, long allocatedBytes) {
+                Phase plus(Phase other) {
+                        return new Phase(nanos + other.nanos, statements + other.statements,
+                                        allocatedBytes + other.allocatedBytes);
+                }
+        }
+}
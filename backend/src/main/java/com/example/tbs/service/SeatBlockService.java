@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.dto.SeatBlockRequestDTO;
+import com.example.tbs.dto.SeatBlockResultDTO;
+import com.example.tbs.entity.SeatBlock;
+import com.example.tbs.entity.Train;
+import com.example.tbs.entity.TrainSchedule;
+import com.example.tbs.repository.SeatBlockRepository;
+import com.example.tbs.repository.TrainRepository;
+import com.example.tbs.repository.TrainScheduleRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Admin seat blocks over whole coaches, seat ranges and date ranges. A block
+ * is one {@link SeatBlock} row per day and coach holding a seat bitmap, so
+ * closing every coach of a train for a month is a few hundred rows written in
+ * one JDBC batch, not a row and a conflict query per seat.
+ * <p>
+ * Both directions lock the train as bookings do, read the window once,
+ * combine bitmaps in memory and write with batched, set-based statements.
+ * Unblocking also removes seat-by-seat blocks that older versions stored as
+ * BLOCKED bookings, cancelling those bookings once no seat is left on them.
+ */
+@Service
+public class SeatBlockService {
+
+        public static final int MAX_DAYS = 366;
+
+        // Rows are merged in memory under the train lock, so the new bitmap replaces the old one
+        private static final String UPSERT_BLOCK = "insert into karbs.seat_block "
+                        + "(train_id, journey_date, coach_type, from_seq, to_seq, seats, reason) "
+                        + "values (?, ?, ?, ?, ?, ?, ?) "
+                        + "on conflict (train_id, journey_date, coach_type, from_seq, to_seq) "
+                        + "do update set seats = excluded.seats, reason = excluded.reason";
+        private static final String UPDATE_SEATS = "update karbs.seat_block set seats = ? where block_id = ?";
+        private static final String DELETE_BLOCKS = "delete from karbs.seat_block where block_id = any(?)";
+        private static final String DELETE_BLOCKED_SEATS = "delete from karbs.booked_seat bs "
+                        + "using karbs.booking b where bs.booking_id = b.booking_id "
+                        + "and b.booking_status = 'BLOCKED' and b.train_id = ? and b.journey_date between ? and ? "
+                        + "and upper(bs.coach_type) = any(?) and bs.seat_number = any(?) "
+                        + "returning b.journey_date, upper(bs.coach_type), bs.seat_number";
+        // A statement sees the rows as they were before it, so this runs after the delete above
+        private static final String CANCEL_EMPTIED_BLOCKED = "update karbs.booking b set booking_status = 'CANCELLED' "
+                        + "where b.booking_status = 'BLOCKED' and b.train_id = ? and b.journey_date between ? and ? "
+                        + "and not exists (select 1 from karbs.booked_seat bs where bs.booking_id = b.booking_id)";
+
+        private final SeatBlockRepository seatBlockRepository;
+        private final TrainRepository trainRepository;
+        private final TrainScheduleRepository trainScheduleRepository;
+        private final JdbcTemplate jdbcTemplate;
+        private final SeatInventory seatInventory;
+        private final WaitlistService waitlistService;
+
+        public SeatBlockService(SeatBlockRepository seatBlockRepository, TrainRepository trainRepository,
+                        TrainScheduleRepository trainScheduleRepository, JdbcTemplate jdbcTemplate,
+                        SeatInventory seatInventory, WaitlistService waitlistService) {
+                this.seatBlockRepository = seatBlockRepository;
+                this.trainRepository = trainRepository;
+                this.trainScheduleRepository = trainScheduleRepository;
+                this.jdbcTemplate = jdbcTemplate;
+                this.seatInventory = seatInventory;
+                this.waitlistService = waitlistService;
+        }
+
+        /**
+         * Blocks the selected seats on every selected day. Fails if any of them is
+         * booked or held between the stops, unless {@code skipTaken} is set; seats
+         * already blocked there are left as they are.
+         */
+        @Transactional
+        public SeatBlockResultDTO block(SeatBlockRequestDTO request) {
+                long started = System.nanoTime();
+                Selection selection = select(request);
+                Long trainId = selection.train().getTrainId();
+                int[] route = route(selection.train(), request);
+                int fromSeq = route[0];
+                int toSeq = route[1];
+
+                Map<LocalDate, SeatOccupancy> occupancy = seatInventory.loadUncached(trainId, selection.fromDate(),
+                                selection.toDate());
+                Map<DayCoach, SeatBlock> existing = new HashMap<>();
+                for (SeatBlock block : seatBlockRepository.findBlocks(trainId, selection.fromDate(),
+                                selection.toDate(), selection.coaches())) {
+                        if (block.getFromSeq() == fromSeq && block.getToSeq() == toSeq) {
+                                existing.put(new DayCoach(block.getJourneyDate(), block.getCoachType()), block);
+                        }
+                }
+
+                int words = (selection.seatsPerCoach() >>> 6) + 1;
+                List<Object[]> upserts = new ArrayList<>();
+                SeatInventory.Changes changes = new SeatInventory.Changes();
+                long skipped = 0;
+                long taken = 0;
+                String example = null;
+                for (LocalDate date = selection.fromDate(); !date.isAfter(selection.toDate()); date = date.plusDays(1)) {
+                        SeatOccupancy day = occupancy.get(date);
+                        for (String coach : selection.coaches()) {
+                                long[] occupied = new long[words];
+                                long[] blocked = new long[words];
+                                day.seatsTaken(coach, fromSeq, toSeq, occupied, blocked);
+                                BitSet add = new BitSet();
+                                BitSet seats = selection.seats();
+                                for (int i = seats.nextSetBit(0); i >= 0; i = seats.nextSetBit(i + 1)) {
+                                        int seat = i + 1;
+                                        if (!isSet(occupied, seat)) {
+                                                add.set(i);
+                                                continue;
+                                        }
+                                        skipped++;
+                                        if (!isSet(blocked, seat)) {
+                                                taken++;
+                                                if (example == null) {
+                                                        example = coach + " seat " + seat + " on " + date;
+                                                }
+                                        }
+                                }
+                                if (add.isEmpty()) {
+                                        continue;
+                                }
+                                SeatBlock prior = existing.get(new DayCoach(date, coach));
+                                BitSet merged = prior != null ? BitSet.valueOf(prior.getSeats()) : new BitSet();
+                                merged.or(add);
+                                upserts.add(new Object[] { trainId, Date.valueOf(date), coach, fromSeq, toSeq,
+                                                merged.toByteArray(), request.getReason() });
+                                for (int i = add.nextSetBit(0); i >= 0; i = add.nextSetBit(i + 1)) {
+                                        changes.add(trainId, date, coach, i + 1);
+                                }
+                        }
+                }
+                if (taken > 0 && !request.isSkipTaken()) {
+                        throw new RuntimeException(taken + " of the seats are already booked, e.g. " + example
+                                        + ". Cancel those bookings or set skipTaken to block the rest.");
+                }
+
+                if (!upserts.isEmpty()) {
+                        jdbcTemplate.batchUpdate(UPSERT_BLOCK, upserts);
+                }
+                seatInventory.invalidate(changes);
+                return result(selection, changes.count(), skipped, started);
+        }
+
+        /**
+         * Unblocks the selected seats on every selected day, whatever stops they
+         * were blocked between; waitlists of the coaches are matched after commit.
+         */
+        @Transactional
+        public SeatBlockResultDTO unblock(SeatBlockRequestDTO request) {
+                long started = System.nanoTime();
+                Selection selection = select(request);
+                Long trainId = selection.train().getTrainId();
+                SeatInventory.Changes changes = new SeatInventory.Changes();
+
+                List<Object[]> updates = new ArrayList<>();
+                List<Long> emptied = new ArrayList<>();
+                for (SeatBlock block : seatBlockRepository.findBlocks(trainId, selection.fromDate(),
+                                selection.toDate(), selection.coaches())) {
+                        BitSet seats = BitSet.valueOf(block.getSeats());
+                        BitSet removed = (BitSet) seats.clone();
+                        removed.and(selection.seats());
+                        if (removed.isEmpty()) {
+                                continue;
+                        }
+                        seats.andNot(removed);
+                        if (seats.isEmpty()) {
+                                emptied.add(block.getBlockId());
+                        } else {
+                                updates.add(new Object[] { seats.toByteArray(), block.getBlockId() });
+                        }
+                        for (int i = removed.nextSetBit(0); i >= 0; i = removed.nextSetBit(i + 1)) {
+                                changes.add(trainId, block.getJourneyDate(), block.getCoachType(), i + 1);
+                        }
+                }
+                if (!updates.isEmpty()) {
+                        jdbcTemplate.batchUpdate(UPDATE_SEATS, updates);
+                }
+                if (!emptied.isEmpty()) {
+                        jdbcTemplate.update(DELETE_BLOCKS, ps -> ps.setArray(1,
+                                        ps.getConnection().createArrayOf("bigint", emptied.toArray())));
+                }
+
+                Object[] seatNumbers = selection.seats().stream().map(i -> i + 1).boxed().toArray();
+                jdbcTemplate.query(DELETE_BLOCKED_SEATS, ps -> {
+                        ps.setLong(1, trainId);
+                        ps.setDate(2, Date.valueOf(selection.fromDate()));
+                        ps.setDate(3, Date.valueOf(selection.toDate()));
+                        ps.setArray(4, ps.getConnection().createArrayOf("varchar", selection.coaches().toArray()));
+                        ps.setArray(5, ps.getConnection().createArrayOf("integer", seatNumbers));
+                }, rs -> {
+                        changes.add(trainId, rs.getDate(1).toLocalDate(), rs.getString(2), rs.getInt(3));
+                });
+                if (changes.count() > 0) {
+                        jdbcTemplate.update(CANCEL_EMPTIED_BLOCKED, trainId, Date.valueOf(selection.fromDate()),
+                                        Date.valueOf(selection.toDate()));
+                }
+
+                seatInventory.invalidate(changes);
+                waitlistService.seatsFreed(changes);
+                long selected = (long) selection.days() * selection.coaches().size() * selection.seats().cardinality();
+                return result(selection, changes.count(), selected - changes.count(), started);
+        }
+
+        /**
+         * First of the seats that a seat block of the coach holds anywhere between
+         * the two stops, or -1 when none is blocked.
+         */
+        public int firstBlocked(Long trainId, LocalDate date, String coach, int fromSeq, int toSeq,
+                        Collection<Integer> seats) {
+                if (coach == null || seats == null || seats.isEmpty()) {
+                        return -1;
+                }
+                BitSet blocked = new BitSet();
+                for (SeatBlock block : seatBlockRepository.findBlocks(trainId, date, date,
+                                List.of(coach.toUpperCase(Locale.ROOT)))) {
+                        if (block.getFromSeq() < toSeq && block.getToSeq() > fromSeq) {
+                                blocked.or(BitSet.valueOf(block.getSeats()));
+                        }
+                }
+                for (Integer seat : seats) {
+                        if (seat != null && seat >= 1 && blocked.get(seat - 1)) {
+                                return seat;
+                        }
+                }
+                return -1;
+        }
+
+        private Selection select(SeatBlockRequestDTO request) {
+                if (request.getTrainId() == null) {
+                        throw new RuntimeException("Train is required");
+                }
+                if (request.getFromDate() == null) {
+                        throw new RuntimeException("From date is required");
+                }
+                LocalDate fromDate = request.getFromDate();
+                LocalDate toDate = request.getToDate() != null ? request.getToDate() : fromDate;
+                if (toDate.isBefore(fromDate)) {
+                        throw new RuntimeException("To date must not be before from date");
+                }
+                long days = ChronoUnit.DAYS.between(fromDate, toDate) + 1;
+                if (days > MAX_DAYS) {
+                        throw new RuntimeException("At most " + MAX_DAYS + " days can be blocked at a time");
+                }
+
+                // Serializes with bookings, which lock the same row
+                Train train = trainRepository.findByIdWithLock(request.getTrainId())
+                                .orElseThrow(() -> new RuntimeException("Train not found"));
+                int seatsPerCoach = SeatService.seatsPerCoach(train);
+
+                Set<String> coaches = new LinkedHashSet<>();
+                if (request.getCoaches() == null || request.getCoaches().isEmpty()) {
+                        coaches.addAll(SeatService.coachCodesOf(train));
+                } else {
+                        for (String coach : request.getCoaches()) {
+                                if (coach == null || coach.isBlank()) {
+                                        throw new RuntimeException("Invalid coach: " + coach);
+                                }
+                                coaches.add(SeatService.coachOf(train, coach));
+                        }
+                }
+
+                // Bit n - 1 for seat n, as stored
+                BitSet seats = new BitSet(seatsPerCoach);
+                if (request.getSeatNumbers() != null && !request.getSeatNumbers().isEmpty()) {
+                        for (Integer seat : request.getSeatNumbers()) {
+                                if (seat == null || seat < 1 || seat > seatsPerCoach) {
+                                        throw new RuntimeException("Seat " + seat + " not found; coaches have "
+                                                        + seatsPerCoach + " seats");
+                                }
+                                seats.set(seat - 1);
+                        }
+                } else {
+                        int first = request.getSeatFrom() != null ? request.getSeatFrom() : 1;
+                        int last = request.getSeatTo() != null ? request.getSeatTo() : seatsPerCoach;
+                        if (first < 1 || last > seatsPerCoach || first > last) {
+                                throw new RuntimeException("Invalid seat range " + first + "-" + last
+                                                + "; coaches have " + seatsPerCoach + " seats");
+                        }
+                        seats.set(first - 1, last);
+                }
+                return new Selection(train, fromDate, toDate, (int) days, List.copyOf(coaches), seats, seatsPerCoach);
+        }
+
+        // Stop sequences to block between: given directly, by station, or the whole route
+        private int[] route(Train train, SeatBlockRequestDTO request) {
+                List<TrainSchedule> stops = new ArrayList<>(trainScheduleRepository.findByTrain(train));
+                if (stops.isEmpty()) {
+                        throw new RuntimeException("Train has no schedule");
+                }
+                stops.sort(Comparator.comparingInt(TrainSchedule::getStopSequence));
+                int first = stops.get(0).getStopSequence();
+                int last = stops.get(stops.size() - 1).getStopSequence();
+
+                int fromSeq = request.getFromSeq() != null ? request.getFromSeq()
+                                : request.getFromStationId() != null ? sequenceOf(stops, request.getFromStationId(), "source")
+                                : first;
+                int toSeq = request.getToSeq() != null ? request.getToSeq()
+                                : request.getToStationId() != null ? sequenceOf(stops, request.getToStationId(), "destination")
+                                : last;
+                if (fromSeq >= toSeq) {
+                        throw new RuntimeException("Invalid route: Source must be before destination");
+                }
+                if (fromSeq < first || toSeq > last) {
+                        throw new RuntimeException("Stops must be between " + first + " and " + last);
+                }
+                return new int[] { fromSeq, toSeq };
+        }
+
+        private static int sequenceOf(List<TrainSchedule> stops, Long stationId, String which) {
+                return stops.stream()
+                                .filter(s -> s.getStation().getStationId().equals(stationId))
+                                .findFirst()
+                                .map(TrainSchedule::getStopSequence)
+                                .orElseThrow(() -> new RuntimeException(
+                                                "Train schedule not found for " + which + " station"));
+        }
+
+        private static SeatBlockResultDTO result(Selection selection, long changed, long skipped, long started) {
+                return new SeatBlockResultDTO(selection.days(), selection.coaches(), changed, skipped,
+                                (System.nanoTime() - started) / 1_000_000);
+        }
+
+        private static boolean isSet(long[] bitmap, int seat) {
+                return (bitmap[seat >>> 6] & (1L << seat)) != 0;
+        }
+
+        private record Selection(Train train, LocalDate fromDate, LocalDate toDate, int days, List<String> coaches,
+                        BitSet seats, int seatsPerCoach) {
+        }
+
+        private record DayCoach(LocalDate date, String coach) {
+        }
+}
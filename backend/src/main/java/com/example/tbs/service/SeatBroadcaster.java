@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.controller.SeatController.SeatChangesDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes seat-status changes of a coach to server-sent event subscribers.
+ * <p>
+ * Every {@code seats.push.interval-ms} one thread compares each watched
+ * coach's {@link SeatChangeLog} version with the version each subscriber last
+ * got, and sends it the seats changed since as one "seats" event (a
+ * {@link SeatChangesDTO} with the version as event id), so a burst of writes
+ * reaches a client as one message.
+ * <p>
+ * The tick never writes to a client itself: it queues the event on the
+ * subscriber, whose queue one sender task at a time drains. A subscriber is
+ * dropped when its queue is full ({@code seats.push.queue-size}) or a write
+ * has been stuck for {@code seats.push.slow-after-ms}. The emitter only offers
+ * blocking writes, so a stuck one keeps its thread until the container times
+ * it out; the pool grows past {@code seats.push.sender-threads} up to
+ * {@code seats.push.max-sender-threads} rather than letting such writes hold
+ * up everyone else. A subscriber with events to send while every sender is
+ * taken is dropped.
+ */
+@Service
+public class SeatBroadcaster {
+
+        private static final String EVENT = "seats";
+
+        private final SeatService seatService;
+        private final long timeoutMs;
+        private final long slowAfterMs;
+        private final long heartbeatMs;
+        private final int maxSubscribers;
+        private final int queueSize;
+
+        private final Map<Topic, List<Subscriber>> topics = new ConcurrentHashMap<>();
+        private final AtomicInteger subscribers = new AtomicInteger();
+        private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(
+                        daemon("seat-push"));
+        private final ExecutorService senders;
+
+        public SeatBroadcaster(SeatService seatService,
+                        @Value("${seats.push.interval-ms:500}") long intervalMs,
+                        @Value("${seats.push.timeout-ms:1800000}") long timeoutMs,
+                        @Value("${seats.push.slow-after-ms:5000}") long slowAfterMs,
+                        @Value("${seats.push.heartbeat-ms:15000}") long heartbeatMs,
+                        @Value("${seats.push.max-subscribers:10000}") int maxSubscribers,
+                        @Value("${seats.push.sender-threads:4}") int senderThreads,
+                        @Value("${seats.push.max-sender-threads:32}") int maxSenderThreads,
+                        @Value("${seats.push.queue-size:16}") int queueSize) {
+                this.seatService = seatService;
+                this.timeoutMs = timeoutMs;
+                this.slowAfterMs = slowAfterMs;
+                this.heartbeatMs = heartbeatMs;
+                this.maxSubscribers = maxSubscribers;
+                this.queueSize = queueSize;
+                // Each subscriber holds at most one thread, so threads past the core ones only cover stuck writes;
+                // with no thread free, execute throws rather than queueing behind them
+                this.senders = new ThreadPoolExecutor(senderThreads, Math.max(senderThreads, maxSenderThreads), 60,
+                                TimeUnit.SECONDS, new SynchronousQueue<>(), daemon("seat-push-send"));
+                ticker.scheduleWithFixedDelay(this::tick, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Opens a stream for one coach and stop range. The first event holds
+         * every seat (reset=true), or only the seats changed since
+         * {@code lastVersion} when a reconnecting client passes the last event id
+         * it saw and the change log still reaches back that far.
+         */
+        public SseEmitter subscribe(Long trainId, LocalDate date, String coach, int startSeq, int endSeq,
+                        Long lastVersion) {
+                Topic topic = new Topic(trainId, date, coach.toUpperCase(Locale.ROOT), startSeq, endSeq);
+                long version = seatService.getSeatVersion(trainId, date, topic.coach());
+                SeatChangesDTO first = seatService.getSeatChanges(trainId, date, topic.coach(), startSeq, endSeq,
+                                lastVersion != null ? lastVersion : -1, version);
+
+                if (subscribers.incrementAndGet() > maxSubscribers) {
+                        subscribers.decrementAndGet();
+                        throw new RuntimeException("Too many seat subscriptions, try again later");
+                }
+                SseEmitter emitter = new SseEmitter(timeoutMs);
+                Subscriber subscriber = new Subscriber(emitter, version, queueSize);
+                try {
+                        // Held by the emitter until the response is ready
+                        emitter.send(event(first));
+                } catch (IOException e) {
+                        subscribers.decrementAndGet();
+                        throw new RuntimeException("Could not open seat stream");
+                }
+                topics.compute(topic, (t, list) -> {
+                        List<Subscriber> l = list != null ? list : new CopyOnWriteArrayList<>();
+                        l.add(subscriber);
+                        return l;
+                });
+                Runnable remove = () -> remove(topic, subscriber);
+                emitter.onCompletion(remove);
+                emitter.onTimeout(remove);
+                emitter.onError(e -> remove.run());
+                return emitter;
+        }
+
+        void tick() {
+                long now = System.currentTimeMillis();
+                for (Map.Entry<Topic, List<Subscriber>> entry : topics.entrySet()) {
+                        Topic topic = entry.getKey();
+                        try {
+                                push(topic, entry.getValue(), now);
+                        } catch (RuntimeException e) {
+                                // The train or coach went away; its subscribers have nothing left to watch
+                                System.err.println("Seat push for " + topic + " failed: " + e.getMessage());
+                                entry.getValue().forEach(s -> drop(topic, s));
+                        }
+                }
+        }
+
+        private void push(Topic topic, List<Subscriber> list, long now) {
+                long version = seatService.getSeatVersion(topic.trainId(), topic.date(), topic.coach());
+                // Subscribers that got the same version share one delta
+                Map<Long, SeatChangesDTO> deltas = new HashMap<>();
+                for (Subscriber s : list) {
+                        long busySince = s.sendingSince;
+                        if (busySince != 0 && now - busySince > slowAfterMs) {
+                                drop(topic, s);
+                                continue;
+                        }
+                        if (s.version != version) {
+                                SeatChangesDTO delta = deltas.computeIfAbsent(s.version,
+                                                since -> seatService.getSeatChanges(topic.trainId(), topic.date(),
+                                                                topic.coach(), topic.startSeq(), topic.endSeq(), since,
+                                                                version));
+                                s.version = version;
+                                enqueue(topic, s, event(delta), now);
+                        } else if (now - s.lastSentAt > heartbeatMs && s.queue.isEmpty()) {
+                                // Lets proxies keep the connection and surfaces clients that went away
+                                enqueue(topic, s, SseEmitter.event().comment("ping"), now);
+                        }
+                }
+        }
+
+        private void enqueue(Topic topic, Subscriber s, SseEmitter.SseEventBuilder event, long now) {
+                if (!s.queue.offer(event)) {
+                        // Too far behind to catch up
+                        drop(topic, s);
+                        return;
+                }
+                s.lastSentAt = now;
+                startDraining(topic, s);
+        }
+
+        private void startDraining(Topic topic, Subscriber s) {
+                if (s.draining.compareAndSet(false, true)) {
+                        try {
+                                senders.execute(() -> drain(topic, s));
+                        } catch (RejectedExecutionException e) {
+                                // Every sender is stuck on a slow client (or shut down): shed this one too.
+                                // Nothing is writing to it, since draining was clear
+                                remove(topic, s);
+                                s.closed = true;
+                                s.queue.clear();
+                                s.emitter.complete();
+                        }
+                }
+        }
+
+        private void drain(Topic topic, Subscriber s) {
+                while (true) {
+                        SseEmitter.SseEventBuilder event;
+                        while (!s.closed && (event = s.queue.poll()) != null) {
+                                write(topic, s, event);
+                        }
+                        if (s.closed) {
+                                // Completing waits for a write in progress, so only the draining task does it;
+                                // draining stays set and nothing is sent after this
+                                s.queue.clear();
+                                s.emitter.complete();
+                                return;
+                        }
+                        s.draining.set(false);
+                        // An event queued or a drop made after the loop above saw draining still set
+                        if (s.queue.isEmpty() && !s.closed || !s.draining.compareAndSet(false, true)) {
+                                return;
+                        }
+                }
+        }
+
+        private void write(Topic topic, Subscriber s, SseEmitter.SseEventBuilder event) {
+                s.sendingSince = System.currentTimeMillis();
+                try {
+                        s.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                        s.closed = true;
+                        remove(topic, s);
+                } finally {
+                        s.sendingSince = 0;
+                }
+        }
+
+        private void drop(Topic topic, Subscriber s) {
+                if (remove(topic, s)) {
+                        s.closed = true;
+                        startDraining(topic, s);
+                }
+        }
+
+        // Adding and removing under the map's per-key lock keeps a subscriber off a list just unmapped
+        private boolean remove(Topic topic, Subscriber s) {
+                boolean[] removed = new boolean[1];
+                topics.computeIfPresent(topic, (t, l) -> {
+                        removed[0] = l.remove(s);
+                        return l.isEmpty() ? null : l;
+                });
+                if (removed[0]) {
+                        subscribers.decrementAndGet();
+                }
+                return removed[0];
+        }
+
+        private static SseEmitter.SseEventBuilder event(SeatChangesDTO changes) {
+                return SseEmitter.event().id(String.valueOf(changes.version)).name(EVENT)
+                                .data(changes, MediaType.APPLICATION_JSON);
+        }
+
+        private static ThreadFactory daemon(String name) {
+                return r -> {
+                        Thread thread = new Thread(r, name);
+                        thread.setDaemon(true);
+                        return thread;
+                };
+        }
+
+        @PreDestroy
+        public void shutdown() {
+                ticker.shutdownNow();
+                senders.shutdownNow();
+                List<Subscriber> all = new ArrayList<>();
+                topics.values().forEach(all::addAll);
+                topics.clear();
+                all.forEach(s -> {
+                        s.closed = true;
+                        // One stuck in a write is left to the container
+                        if (s.draining.compareAndSet(false, true)) {
+                                s.emitter.complete();
+                        }
+                });
+        }
+
+        private record Topic(Long trainId, LocalDate date, String coach, int startSeq, int endSeq) {
+        }
+
+        private static final class Subscriber {
+                final SseEmitter emitter;
+                final Queue<SseEmitter.SseEventBuilder> queue;
+                // Set while a sender task owns the emitter
+                final AtomicBoolean draining = new AtomicBoolean();
+                // Version of the last event handed to this subscriber; only the tick thread writes it
+                long version;
+                volatile long sendingSince;
+                volatile long lastSentAt = System.currentTimeMillis();
+                volatile boolean closed;
+
+                Subscriber(SseEmitter emitter, long version, int queueSize) {
+                        this.emitter = emitter;
+                        this.version = version;
+                        this.queue = new ArrayBlockingQueue<>(queueSize);
+                }
+        }
+}
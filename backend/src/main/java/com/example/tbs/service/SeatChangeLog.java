@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Version of each coach's seat map per train and journey date, and the last
+ * few seats changed in it, so clients can revalidate a seat map or fetch only
+ * what changed since the version they hold.
+ * <p>
+ * Versions come from one counter seeded from the clock at startup, so they
+ * only grow per coach and a version issued before a restart is never reissued
+ * after it. Coaches with no recorded change share their train-day's version.
+ * Changes are kept in a ring of {@code seats.change-log.entries-per-coach}
+ * per coach; asking for changes from before the ring (or before a whole
+ * train-day or the whole inventory was invalidated) gets no answer, and the
+ * client must reload the full map.
+ */
+@Service
+public class SeatChangeLog {
+
+        private final int entriesPerCoach;
+        private final Map<Key, TrainDay> days;
+
+        private long lastVersion = System.currentTimeMillis() * 1000;
+        // Version of every train-day not in days, raised when one is evicted
+        private long baseVersion = lastVersion;
+
+        public SeatChangeLog(@Value("${seats.change-log.entries-per-coach:256}") int entriesPerCoach,
+                        @Value("${seats.change-log.max-train-days:10000}") int maxTrainDays) {
+                this.entriesPerCoach = entriesPerCoach;
+                this.days = new LinkedHashMap<>(256, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<Key, TrainDay> eldest) {
+                                if (size() <= maxTrainDays) {
+                                        return false;
+                                }
+                                baseVersion = Math.max(baseVersion, eldest.getValue().latest());
+                                return true;
+                        }
+                };
+        }
+
+        public synchronized long version(Long trainId, LocalDate date, String coach) {
+                TrainDay day = days.get(new Key(trainId, date));
+                if (day == null) {
+                        return baseVersion;
+                }
+                CoachLog log = day.coaches.get(normalize(coach));
+                return log != null ? log.version : day.version;
+        }
+
+        /** Seats changed in one coach; returns the coach's new version. */
+        public synchronized long record(Long trainId, LocalDate date, String coach, Iterable<Integer> seats) {
+                TrainDay day = day(trainId, date);
+                CoachLog log = day.coaches.computeIfAbsent(normalize(coach), c -> new CoachLog(day.version));
+                long version = ++lastVersion;
+                for (Integer seat : seats) {
+                        if (seat != null && seat >= 0) {
+                                log.add(version, seat);
+                        }
+                }
+                log.version = version;
+                return version;
+        }
+
+        /** Every coach of the train-day changed in a way not recorded seat by seat. */
+        public synchronized void resetTrainDay(Long trainId, LocalDate date) {
+                TrainDay day = day(trainId, date);
+                day.coaches.clear();
+                day.version = ++lastVersion;
+        }
+
+        public synchronized void resetAll() {
+                days.clear();
+                baseVersion = ++lastVersion;
+        }
+
+        /**
+         * Seats of the coach changed after {@code sinceVersion}, or null when the
+         * log no longer reaches back that far (or the version was never issued
+         * for this coach).
+         */
+        public synchronized BitSet changedSince(Long trainId, LocalDate date, String coach, long sinceVersion) {
+                TrainDay day = days.get(new Key(trainId, date));
+                long floor = day != null ? day.version : baseVersion;
+                CoachLog log = day != null ? day.coaches.get(normalize(coach)) : null;
+                if (log == null) {
+                        return sinceVersion == floor ? new BitSet() : null;
+                }
+                if (sinceVersion > log.version || sinceVersion < log.floor) {
+                        return null;
+                }
+                return log.since(sinceVersion);
+        }
+
+        private TrainDay day(Long trainId, LocalDate date) {
+                return days.computeIfAbsent(new Key(trainId, date), k -> new TrainDay(baseVersion));
+        }
+
+        private static String normalize(String coach) {
+                return coach == null ? "" : coach.toUpperCase(Locale.ROOT);
+        }
+
+        private record Key(Long trainId, LocalDate date) {
+        }
+
+        private static final class TrainDay {
+                long version;
+                final Map<String, CoachLog> coaches = new HashMap<>();
+
+                TrainDay(long version) {
+                        this.version = version;
+                }
+
+                long latest() {
+                        long latest = version;
+                        for (CoachLog log : coaches.values()) {
+                                latest = Math.max(latest, log.version);
+                        }
+                        return latest;
+                }
+        }
+
+        /** Ring of (version, seat) entries, oldest overwritten first. */
+        private final class CoachLog {
+                final long[] versions = new long[entriesPerCoach];
+                final int[] seats = new int[entriesPerCoach];
+                int next;
+                int size;
+                long version;
+                // Changes after this version are all still in the ring
+                long floor;
+
+                CoachLog(long version) {
+                        this.version = version;
+                        this.floor = version;
+                }
+
+                void add(long version, int seat) {
+                        if (size == versions.length) {
+                                floor = versions[next];
+                        } else {
+                                size++;
+                        }
+                        versions[next] = version;
+                        seats[next] = seat;
+                        next = (next + 1) % versions.length;
+                }
+
+                BitSet since(long sinceVersion) {
+                        BitSet changed = new BitSet();
+                        for (int i = 0; i < size; i++) {
+                                int at = (next - 1 - i + versions.length) % versions.length;
+                                if (versions[at] <= sinceVersion) {
+                                        break;
+                                }
+                                changed.set(seats[at]);
+                        }
+                        return changed;
+                }
+        }
+}
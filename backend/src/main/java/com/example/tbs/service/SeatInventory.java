@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.entity.BookedSeat;
+import com.example.tbs.entity.Train;
+import com.example.tbs.repository.BookedSeatRepository;
+import com.example.tbs.repository.SeatBlockRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of {@link SeatOccupancy} per train and journey date, so availability
+ * checks during search never go to the database once a train-date is warm.
+ * Every write to booked seats or seat blocks must call {@link #invalidate(Long, LocalDate)},
+ * or better {@link #invalidate(Long, LocalDate, Collection)} with the seats it
+ * touched; the entry is dropped and the {@link SeatChangeLog} updated when the
+ * surrounding transaction commits.
+ */
+@Service
+public class SeatInventory {
+
+        private final BookedSeatRepository bookedSeatRepository;
+        private final SeatBlockRepository seatBlockRepository;
+        private final SeatChangeLog seatChangeLog;
+        private final Map<Key, SeatOccupancy> cache;
+
+        // Bumped on every invalidation so a load that raced a write is not cached
+        private final AtomicLong generation = new AtomicLong();
+
+        public SeatInventory(BookedSeatRepository bookedSeatRepository, SeatBlockRepository seatBlockRepository,
+                        SeatChangeLog seatChangeLog, @Value("${inventory.max-train-days:10000}") int maxTrainDays) {
+                this.bookedSeatRepository = bookedSeatRepository;
+                this.seatBlockRepository = seatBlockRepository;
+                this.seatChangeLog = seatChangeLog;
+                this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<Key, SeatOccupancy> eldest) {
+                                return size() > maxTrainDays;
+                        }
+                };
+        }
+
+        public SeatOccupancy occupancy(Long trainId, LocalDate date) {
+                Key key = new Key(trainId, date);
+                synchronized (cache) {
+                        SeatOccupancy cached = cache.get(key);
+                        if (cached != null) {
+                                return cached;
+                        }
+                }
+                preload(Set.of(trainId), date, date);
+                synchronized (cache) {
+                        SeatOccupancy loaded = cache.get(key);
+                        return loaded != null ? loaded : load(trainId, date);
+                }
+        }
+
+        /** Warms every train-date in the window that is not cached yet with one query. */
+        public void preload(Collection<Long> trainIds, LocalDate fromDate, LocalDate toDate) {
+                if (trainIds.isEmpty()) {
+                        return;
+                }
+                long startedAt = generation.get();
+                Map<Key, SeatOccupancy> loaded = new HashMap<>();
+                for (Long trainId : trainIds) {
+                        for (LocalDate d = fromDate; !d.isAfter(toDate); d = d.plusDays(1)) {
+                                loaded.put(new Key(trainId, d), new SeatOccupancy());
+                        }
+                }
+                synchronized (cache) {
+                        loaded.keySet().removeIf(cache::containsKey);
+                }
+                if (loaded.isEmpty()) {
+                        return;
+                }
+                List<Long> missingTrains = loaded.keySet().stream().map(Key::trainId).distinct().toList();
+                fill(loaded, missingTrains, fromDate, toDate);
+                synchronized (cache) {
+                        if (generation.get() == startedAt) {
+                                loaded.forEach(cache::putIfAbsent);
+                        }
+                }
+        }
+
+        private SeatOccupancy load(Long trainId, LocalDate date) {
+                return loadUncached(trainId, date, date).get(date);
+        }
+
+        /**
+         * Occupancy of each day in the window read straight from the database,
+         * for writes that hold the train's lock and must not trust a cache entry
+         * another transaction is about to drop.
+         */
+        public Map<LocalDate, SeatOccupancy> loadUncached(Long trainId, LocalDate fromDate, LocalDate toDate) {
+                Map<Key, SeatOccupancy> loaded = new HashMap<>();
+                for (LocalDate d = fromDate; !d.isAfter(toDate); d = d.plusDays(1)) {
+                        loaded.put(new Key(trainId, d), new SeatOccupancy());
+                }
+                fill(loaded, List.of(trainId), fromDate, toDate);
+                Map<LocalDate, SeatOccupancy> byDate = new HashMap<>();
+                loaded.forEach((key, day) -> byDate.put(key.date(), day));
+                return byDate;
+        }
+
+        // Booked seats and seat blocks of the window, two statements whatever its size
+        private void fill(Map<Key, SeatOccupancy> days, List<Long> trainIds, LocalDate fromDate, LocalDate toDate) {
+                for (BookedSeatRepository.SeatSegment seg : bookedSeatRepository.findSeatSegments(trainIds,
+                                fromDate, toDate)) {
+                        SeatOccupancy day = days.get(new Key(seg.getTrainId(), seg.getJourneyDate()));
+                        if (day != null) {
+                                day.add(seg.getCoachType(), seg.getSeatNumber(), seg.getFromSeq(), seg.getToSeq(),
+                                                statusOf(seg));
+                        }
+                }
+                for (SeatBlockRepository.BlockSegment block : seatBlockRepository.findBlockSegments(trainIds,
+                                fromDate, toDate)) {
+                        SeatOccupancy day = days.get(new Key(block.getTrainId(), block.getJourneyDate()));
+                        if (day != null) {
+                                day.addBlock(block.getCoachType(), block.getSeats(), block.getFromSeq(),
+                                                block.getToSeq());
+                        }
+                }
+        }
+
+        private static SeatOccupancy.Status statusOf(BookedSeatRepository.SeatSegment seg) {
+                if ("BLOCKED".equalsIgnoreCase(seg.getBookingStatus())) {
+                        return SeatOccupancy.Status.BLOCKED;
+                }
+                if ("PENDING".equalsIgnoreCase(seg.getBookingStatus())) {
+                        return SeatOccupancy.Status.HELD;
+                }
+                return SeatOccupancy.Status.BOOKED;
+        }
+
+        /** Seats of the train free on every segment between the two stops. */
+        public int seatsLeft(Train train, LocalDate date, int startSeq, int endSeq) {
+                int occupied = occupancy(train.getTrainId(), date).occupiedSeats(startSeq, endSeq);
+                return Math.max(0, capacity(train) - occupied);
+        }
+
+        public static int capacity(Train train) {
+                return SeatService.seatsPerCoach(train) * SeatService.coachesOf(train);
+        }
+
+        /** Call after changing booked seats of a train-date; applied once the transaction commits. */
+        public void invalidate(Long trainId, LocalDate date) {
+                afterCommit(() -> {
+                        drop(new Key(trainId, date));
+                        seatChangeLog.resetTrainDay(trainId, date);
+                });
+        }
+
+        /** As above, for writes that know the seats they added or removed. */
+        public void invalidate(Long trainId, LocalDate date, Collection<BookedSeat> seats) {
+                Map<String, List<Integer>> byCoach = new HashMap<>();
+                for (BookedSeat seat : seats) {
+                        byCoach.computeIfAbsent(seat.getCoachType(), c -> new ArrayList<>()).add(seat.getSeatNumber());
+                }
+                invalidate(trainId, date, byCoach);
+        }
+
+        /** As above, with the seat numbers touched per coach. */
+        public void invalidate(Long trainId, LocalDate date, Map<String, ? extends Collection<Integer>> byCoach) {
+                afterCommit(() -> {
+                        drop(new Key(trainId, date));
+                        byCoach.forEach((coach, numbers) -> seatChangeLog.record(trainId, date, coach, numbers));
+                });
+        }
+
+        /** As above, for a write spanning many train-dates: every entry is dropped under one lock. */
+        public void invalidate(Changes changes) {
+                if (changes.byDay.isEmpty()) {
+                        return;
+                }
+                afterCommit(() -> {
+                        synchronized (cache) {
+                                generation.incrementAndGet();
+                                changes.byDay.keySet().forEach(cache::remove);
+                        }
+                        changes.byDay.forEach((key, byCoach) -> byCoach.forEach(
+                                        (coach, seats) -> seatChangeLog.record(key.trainId(), key.date(), coach, seats)));
+                });
+        }
+
+        // Dropped before the change is logged, so a client that sees the new version reads the new seats
+        private void drop(Key key) {
+                synchronized (cache) {
+                        generation.incrementAndGet();
+                        cache.remove(key);
+                }
+        }
+
+        public void invalidateAll() {
+                afterCommit(() -> {
+                        synchronized (cache) {
+                                generation.incrementAndGet();
+                                cache.clear();
+                        }
+                        seatChangeLog.resetAll();
+                });
+        }
+
+        /** Runs the action once the surrounding transaction commits, or now when there is none. */
+        static void afterCommit(Runnable action) {
+                if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                                @Override
+                                public void afterCommit() {
+                                        action.run();
+                                }
+                        });
+                } else {
+                        action.run();
+                }
+        }
+
+        /** Seats added or removed by one write, per train-date and coach. */
+        public static final class Changes {
+                private final Map<Key, Map<String, Set<Integer>>> byDay = new HashMap<>();
+
+                public void add(Long trainId, LocalDate date, String coach, int seatNumber) {
+                        byDay.computeIfAbsent(new Key(trainId, date), k -> new HashMap<>())
+                                        .computeIfAbsent(coach, c -> new TreeSet<>())
+                                        .add(seatNumber);
+                }
+
+                /** Each coach of each train-date with a changed seat. */
+                public List<CoachDay> coachDays() {
+                        List<CoachDay> coachDays = new ArrayList<>();
+                        byDay.forEach((key, byCoach) -> byCoach.keySet().forEach(
+                                        coach -> coachDays.add(new CoachDay(key.trainId(), key.date(), coach))));
+                        return coachDays;
+                }
+
+                /** Distinct seats changed, counted once per train-date. */
+                public long count() {
+                        return byDay.values().stream()
+                                        .flatMap(byCoach -> byCoach.values().stream())
+                                        .mapToLong(Set::size)
+                                        .sum();
+                }
+        }
+
+        public record CoachDay(Long trainId, LocalDate date, String coach) {
+        }
+
+        private record Key(Long trainId, LocalDate date) {
+        }
+}
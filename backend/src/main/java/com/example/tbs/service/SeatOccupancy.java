@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Seat occupancy of one train on one journey date. Each seat keeps a bitmask of
+ * the segments it is taken on (bit {@code s} = travel from stop {@code s} to
+ * {@code s + 1}), so "is this seat free from stop a to b" is a single AND.
+ * Stop sequences above 63 share the last bit, which can only over-report a seat
+ * as taken. Segments held by admin blocks or by pending bookings are also kept
+ * apart, for seat maps.
+ */
+public class SeatOccupancy {
+
+        /** Why a seat segment is taken. */
+        public enum Status {
+                BOOKED, BLOCKED, HELD
+        }
+
+        private final Map<String, long[]> masksByCoach = new HashMap<>();
+        private final Map<String, long[]> blockedByCoach = new HashMap<>();
+        private final Map<String, long[]> heldByCoach = new HashMap<>();
+
+        public void add(String coachType, int seatNumber, int fromSeq, int toSeq) {
+                add(coachType, seatNumber, fromSeq, toSeq, Status.BOOKED);
+        }
+
+        public void add(String coachType, int seatNumber, int fromSeq, int toSeq, Status status) {
+                if (seatNumber < 0) {
+                        return;
+                }
+                long segments = segmentMask(fromSeq, toSeq);
+                mark(masksByCoach, coachType, seatNumber, segments);
+                if (status == Status.BLOCKED) {
+                        mark(blockedByCoach, coachType, seatNumber, segments);
+                } else if (status == Status.HELD) {
+                        mark(heldByCoach, coachType, seatNumber, segments);
+                }
+        }
+
+        /** Blocks every seat of a {@link com.example.tbs.entity.SeatBlock} bitmap between the two stops. */
+        public void addBlock(String coachType, byte[] seats, int fromSeq, int toSeq) {
+                BitSet bits = BitSet.valueOf(seats);
+                for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                        add(coachType, i + 1, fromSeq, toSeq, Status.BLOCKED);
+                }
+        }
+
+        private static void mark(Map<String, long[]> byCoach, String coachType, int seatNumber, long segments) {
+                long[] masks = byCoach.getOrDefault(coachType, new long[0]);
+                if (seatNumber >= masks.length) {
+                        masks = Arrays.copyOf(masks, Math.max(seatNumber + 1, masks.length * 2));
+                }
+                masks[seatNumber] |= segments;
+                byCoach.put(coachType, masks);
+        }
+
+        /**
+         * Sets bit {@code n} of {@code taken} for every seat {@code n} of the coach
+         * taken anywhere between the two stops, and of {@code blocked} when an
+         * admin block is among them. Seats beyond the arrays are ignored.
+         */
+        public void seatsTaken(String coachType, int startSeq, int endSeq, long[] taken, long[] blocked) {
+                seatsTaken(coachType, startSeq, endSeq, taken, blocked, null);
+        }
+
+        /** As above, also setting {@code held} for seats a pending booking holds, when given. */
+        public void seatsTaken(String coachType, int startSeq, int endSeq, long[] taken, long[] blocked,
+                        long[] held) {
+                long range = segmentMask(startSeq, endSeq);
+                toBitmap(masksByCoach.get(coachType), range, taken);
+                toBitmap(blockedByCoach.get(coachType), range, blocked);
+                toBitmap(heldByCoach.get(coachType), range, held);
+        }
+
+        private static void toBitmap(long[] masks, long range, long[] bitmap) {
+                if (masks == null || bitmap == null) {
+                        return;
+                }
+                int seats = Math.min(masks.length, bitmap.length * 64);
+                for (int seat = 0; seat < seats; seat++) {
+                        if ((masks[seat] & range) != 0) {
+                                bitmap[seat >>> 6] |= 1L << seat;
+                        }
+                }
+        }
+
+        /** Coach codes with at least one seat taken on some segment. */
+        public Set<String> coaches() {
+                return Set.copyOf(masksByCoach.keySet());
+        }
+
+        /** Distinct coach/seat pairs taken anywhere between the two stops. */
+        public int occupiedSeats(int startSeq, int endSeq) {
+                long range = segmentMask(startSeq, endSeq);
+                int occupied = 0;
+                for (long[] masks : masksByCoach.values()) {
+                        for (long mask : masks) {
+                                if ((mask & range) != 0) {
+                                        occupied++;
+                                }
+                        }
+                }
+                return occupied;
+        }
+
+        /**
+         * {@code occupied[i][j]} for {@code i < j}: coach/seat pairs taken anywhere
+         * between stops {@code seqs[i]} and {@code seqs[j]}, counted as in
+         * {@link #occupiedSeats}. One pass over the seats; a seat taken from
+         * stop i onward on some segment stays taken for every later j.
+         */
+        public int[][] occupiedMatrix(int[] seqs) {
+                int n = seqs.length;
+                int[][] occupied = new int[n][n];
+                for (long[] masks : masksByCoach.values()) {
+                        for (long mask : masks) {
+                                if (mask == 0) {
+                                        continue;
+                                }
+                                for (int i = 0; i < n - 1; i++) {
+                                        for (int j = i + 1; j < n; j++) {
+                                                if ((mask & segmentMask(seqs[i], seqs[j])) != 0) {
+                                                        occupied[i][j]++;
+                                                        break;
+                                                }
+                                        }
+                                }
+                        }
+                }
+                // Each row holds where seats first become taken; running sums give the counts
+                for (int i = 0; i < n; i++) {
+                        for (int j = i + 2; j < n; j++) {
+                                occupied[i][j] += occupied[i][j - 1];
+                        }
+                }
+                return occupied;
+        }
+
+        /** Seats of the coach taken on each segment between consecutive stops of {@code seqs}. */
+        public int[] occupiedBySegment(String coachType, int[] seqs) {
+                int[] occupied = new int[Math.max(seqs.length - 1, 0)];
+                long[] masks = masksByCoach.get(coachType);
+                if (masks == null) {
+                        return occupied;
+                }
+                for (int k = 0; k < occupied.length; k++) {
+                        long segment = segmentMask(seqs[k], seqs[k + 1]);
+                        for (long mask : masks) {
+                                if ((mask & segment) != 0) {
+                                        occupied[k]++;
+                                }
+                        }
+                }
+                return occupied;
+        }
+
+        static long segmentMask(int fromSeq, int toSeq) {
+                if (toSeq <= fromSeq) {
+                        return 0L;
+                }
+                int lo = Math.min(Math.max(fromSeq, 0), 63);
+                int hi = Math.min(Math.max(toSeq, lo + 1), 64);
+                long upper = hi == 64 ? -1L : (1L << hi) - 1;
+                return upper & (-1L << lo);
+        }
+}
@@ -12,62 +12,228 @@
 
 package com.example.tbs.service;
 
-import com.example.tbs.controller.SeatController.SeatDTO;
+import com.example.tbs.controller.SeatController.SeatChangesDTO;
 import com.example.tbs.controller.SeatController.SeatRowDTO;
-import com.example.tbs.entity.BookedSeat;
-import com.example.tbs.repository.BookedSeatRepository;
+import com.example.tbs.dto.AvailabilityMatrixDTO;
+import com.example.tbs.dto.TrainSeatMapDTO;
+import com.example.tbs.dto.TrainSeatMapDTO.CoachSeatMapDTO;
+import com.example.tbs.entity.Train;
+import com.example.tbs.entity.TrainSchedule;
+import com.example.tbs.repository.TrainRepository;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Locale;
 
 @Service
 public class SeatService {
 
-        private final BookedSeatRepository bookedSeatRepository;
+        private final SeatInventory seatInventory;
+        private final TimetableIndex timetableIndex;
+        private final TrainRepository trainRepository;
+        private final SeatChangeLog seatChangeLog;
 
-        public SeatService(BookedSeatRepository bookedSeatRepository) {
-                this.bookedSeatRepository = bookedSeatRepository;
+        public SeatService(SeatInventory seatInventory, TimetableIndex timetableIndex,
+                        TrainRepository trainRepository, SeatChangeLog seatChangeLog) {
+                this.seatInventory = seatInventory;
+                this.timetableIndex = timetableIndex;
+                this.trainRepository = trainRepository;
+                this.seatChangeLog = seatChangeLog;
         }
 
+        /**
+         * Current version of a coach's seat map. Read it before the map itself: a
+         * change landing in between then shows up again on the next revalidation
+         * instead of being missed.
+         */
+        public long getSeatVersion(Long trainId, LocalDate date, String coach) {
+                return seatChangeLog.version(trainId, date, coach);
+        }
+
+        /**
+         * Seats of the coach whose status may have changed since {@code sinceVersion},
+         * with their current status; every seat, flagged as a reset, when the
+         * change log no longer goes back that far.
+         */
+        public SeatChangesDTO getSeatChanges(Long trainId, LocalDate date, String coach, int startSeq, int endSeq,
+                        long sinceVersion, long version) {
+                Train train = train(trainId);
+                coach = coachOf(train, coach);
+                CoachLayout layout = layoutOf(train, coach);
+
+                BitSet changed = seatChangeLog.changedSince(trainId, date, coach, sinceVersion);
+                boolean reset = changed == null;
+                if (reset) {
+                        changed = new BitSet();
+                        changed.set(1, layout.seats() + 1);
+                }
+                long[] taken = new long[layout.bitmapWords()];
+                long[] blocked = new long[layout.bitmapWords()];
+                long[] held = new long[layout.bitmapWords()];
+                seatInventory.occupancy(trainId, date).seatsTaken(coach, startSeq, endSeq, taken, blocked, held);
+                return new SeatChangesDTO(version, reset, layout.seats(changed, taken, blocked, held));
+        }
+
+        /**
+         * Seat map of one coach for travel between two stops: the coach's layout
+         * template with the train-date's cached occupancy laid over it.
+         */
         public List<SeatRowDTO> getSeatLayout(Long trainId, LocalDate date, String coach, int startSeq, int endSeq) {
-                // Fetch overlapping bookings
-                List<BookedSeat> bookedSeats = bookedSeatRepository.findBookedSeats(
-                                trainId, date, coach, startSeq, endSeq);
-
-                // Create a map of SeatNumber -> Status
-                // If multiple bookings overlap (shouldn't happen conceptually due to locks, but
-                // physically possible), priority: BLOCKED > BOOKED
-                java.util.Map<Integer, String> seatStatusMap = new java.util.HashMap<>();
-
-                for (BookedSeat bs : bookedSeats) {
-                        String status = "booked";
-                        if (bs.getBooking() != null && "BLOCKED".equalsIgnoreCase(bs.getBooking().getBookingStatus())) {
-                                status = "blocked";
+                Train train = train(trainId);
+                coach = coachOf(train, coach);
+                CoachLayout layout = layoutOf(train, coach);
+
+                long[] taken = new long[layout.bitmapWords()];
+                long[] blocked = new long[layout.bitmapWords()];
+                long[] held = new long[layout.bitmapWords()];
+                seatInventory.occupancy(trainId, date).seatsTaken(coach, startSeq, endSeq, taken, blocked, held);
+                return layout.render(taken, blocked, held);
+        }
+
+        /** The same seat map as {@link #getSeatLayout}, as bitmaps over a layout template id. */
+        public CoachSeatMapDTO getCoachSeatMap(Long trainId, LocalDate date, String coach, int startSeq, int endSeq) {
+                Train train = train(trainId);
+                String code = coachOf(train, coach);
+                return coachMap(layoutOf(train, code), seatInventory.occupancy(trainId, date), code, startSeq, endSeq);
+        }
+
+        /** Rows, labels and berths of a layout template, every seat available. */
+        public List<SeatRowDTO> getLayoutTemplate(String layoutId) {
+                CoachLayout layout = CoachLayout.byId(layoutId);
+                long[] none = new long[layout.bitmapWords()];
+                return layout.render(none, none, none);
+        }
+
+        /**
+         * Occupancy of every coach of the train in one response, read from the
+         * same cached train-date occupancy as the single-coach map, coaches in
+         * the train's running order.
+         */
+        public TrainSeatMapDTO getTrainSeatMap(Long trainId, LocalDate date, int startSeq, int endSeq) {
+                Train train = train(trainId);
+                SeatOccupancy occupancy = seatInventory.occupancy(trainId, date);
+                List<String> codes = coachCodesOf(train);
+
+                List<CoachSeatMapDTO> maps = new ArrayList<>(codes.size());
+                for (String code : codes) {
+                        maps.add(coachMap(layoutOf(train, code), occupancy, code, startSeq, endSeq));
+                }
+
+                TrainSeatMapDTO map = new TrainSeatMapDTO();
+                map.setTrainId(trainId);
+                map.setDate(date);
+                map.setStartSeq(startSeq);
+                map.setEndSeq(endSeq);
+                map.setCoaches(maps);
+                return map;
+        }
+
+        /**
+         * Free seats of a train-date for every pair of its stops, and per coach for
+         * every segment between consecutive stops, from one pass over the cached
+         * occupancy. Totals use the same capacity as search availability.
+         */
+        public AvailabilityMatrixDTO getAvailabilityMatrix(Long trainId, LocalDate date) {
+                List<TrainSchedule> stops = timetableIndex.snapshot().stopsOfTrain(trainId);
+                if (stops.isEmpty()) {
+                        throw new RuntimeException("Train not found or has no schedule");
+                }
+                Train train = stops.get(0).getTrain();
+                int[] seqs = stops.stream().mapToInt(TrainSchedule::getStopSequence).toArray();
+                SeatOccupancy occupancy = seatInventory.occupancy(trainId, date);
+
+                int capacity = SeatInventory.capacity(train);
+                int[][] free = occupancy.occupiedMatrix(seqs);
+                for (int i = 0; i < seqs.length; i++) {
+                        for (int j = 0; j < seqs.length; j++) {
+                                free[i][j] = i < j ? Math.max(0, capacity - free[i][j]) : 0;
                         }
+                }
 
-                        // If already blocked, don't overwrite with booked
-                        if (!"blocked".equals(seatStatusMap.get(bs.getSeatNumber()))) {
-                                seatStatusMap.put(bs.getSeatNumber(), status);
+                int seats = seatsPerCoach(train);
+                List<AvailabilityMatrixDTO.CoachAvailabilityDTO> coaches = new ArrayList<>();
+                for (String code : coachCodesOf(train)) {
+                        int[] coachFree = occupancy.occupiedBySegment(code, seqs);
+                        for (int k = 0; k < coachFree.length; k++) {
+                                coachFree[k] = Math.max(0, seats - coachFree[k]);
                         }
+                        coaches.add(new AvailabilityMatrixDTO.CoachAvailabilityDTO(code, seats, coachFree));
                 }
 
-                List<SeatRowDTO> rows = new ArrayList<>();
-                int seatsPerRow = 4;
-                int totalRows = 10;
+                AvailabilityMatrixDTO matrix = new AvailabilityMatrixDTO();
+                matrix.setTrainId(trainId);
+                matrix.setDate(date);
+                matrix.setCapacity(capacity);
+                matrix.setStops(stops.stream()
+                                .map(ts -> new AvailabilityMatrixDTO.StopDTO(ts.getStopSequence(),
+                                                ts.getStation().getStationCode(), ts.getStation().getStationName()))
+                                .toList());
+                matrix.setFree(free);
+                matrix.setCoaches(coaches);
+                return matrix;
+        }
+
+        // Booked, blocked and held are disjoint, with the same precedence as the rendered map
+        private static CoachSeatMapDTO coachMap(CoachLayout layout, SeatOccupancy occupancy, String coach,
+                        int startSeq, int endSeq) {
+                long[] taken = new long[layout.bitmapWords()];
+                long[] blocked = new long[layout.bitmapWords()];
+                long[] held = new long[layout.bitmapWords()];
+                occupancy.seatsTaken(coach, startSeq, endSeq, taken, blocked, held);
+                long[] booked = new long[taken.length];
+                for (int i = 0; i < taken.length; i++) {
+                        held[i] &= ~blocked[i];
+                        booked[i] = taken[i] & ~blocked[i] & ~held[i];
+                }
+                return new CoachSeatMapDTO(coach, layout.id(), layout.type().name(),
+                                layout.seats(), layout.type().seatsPerRow(), layout.seats() - layout.count(taken),
+                                layout.encode(booked), layout.encode(blocked), layout.encode(held));
+        }
 
-                for (int i = 1; i <= totalRows; i++) {
-                        List<SeatDTO> seats = new ArrayList<>();
-                        int baseSeatNum = (i - 1) * seatsPerRow;
+        // For a code already checked by coachOf
+        private static CoachLayout layoutOf(Train train, String code) {
+                return CoachLayout.of(CoachLayout.CoachType.ofCoach(code), seatsPerCoach(train));
+        }
 
-                        for (int j = 1; j <= 4; j++) {
-                                int seatNum = baseSeatNum + j;
-                                String status = seatStatusMap.getOrDefault(seatNum, "available");
-                                seats.add(new SeatDTO(seatNum, String.valueOf(seatNum), status));
-                        }
-                        rows.add(new SeatRowDTO(i, seats));
+        private Train train(Long trainId) {
+                List<TrainSchedule> stops = timetableIndex.snapshot().stopsOfTrain(trainId);
+                if (!stops.isEmpty()) {
+                        return stops.get(0).getTrain();
                 }
-                return rows;
+                return trainRepository.findById(trainId).orElseThrow(() -> new RuntimeException("Train not found"));
+        }
+
+        /** Coach codes of the train in running order, from its composition. */
+        static List<String> coachCodesOf(Train train) {
+                return CoachLayout.coachCodes(train.getCoachComposition(), coachesOf(train));
+        }
+
+        /** The coach code upper-cased, or an error when the train has no such coach. */
+        static String coachOf(Train train, String coach) {
+                if (coach == null || coach.isBlank()) {
+                        throw new RuntimeException("Coach is required");
+                }
+                String code = coach.trim().toUpperCase(Locale.ROOT);
+                List<String> codes = coachCodesOf(train);
+                if (!codes.contains(code)) {
+                        throw new RuntimeException("Coach " + code + " not found; train has coaches "
+                                        + String.join(", ", codes));
+                }
+                return code;
+        }
+
+        static int coachesOf(Train train) {
+                String composition = train.getCoachComposition();
+                if (composition != null && !composition.isBlank()) {
+                        return composition.length();
+                }
+                return train.getNumberOfCoaches() != null ? train.getNumberOfCoaches() : 3;
+        }
+
+        static int seatsPerCoach(Train train) {
+                return train.getTotalSeatsPerCoach() != null ? train.getTotalSeatsPerCoach() : 40;
         }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.example.tbs.service;
+
+import com.example.tbs.entity.Station;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Great-circle distances between stations, cached per timetable snapshot.
+ * <p>
+ * Up to {@code distance.dense-max-stations} stations the cache is a
+ * triangular float matrix indexed by snapshot position, filled as pairs are
+ * asked for; above that it is an LRU of {@code distance.cache-size} pairs.
+ * Coordinates only change through station edits, which invalidate the
+ * timetable, so a new snapshot version starts a new cache. Stations the
+ * current snapshot does not know yet (e.g. while seeding) are computed
+ * without caching.
+ */
+@Service
+public class StationDistanceService {
+
+        private static final double EARTH_RADIUS_KM = 6371;
+
+        private final TimetableIndex timetableIndex;
+        private final int denseMaxStations;
+        private final int cacheSize;
+
+        private volatile Cache cache;
+
+        public StationDistanceService(TimetableIndex timetableIndex,
+                        @Value("${distance.dense-max-stations:2000}") int denseMaxStations,
+                        @Value("${distance.cache-size:100000}") int cacheSize) {
+                this.timetableIndex = timetableIndex;
+                this.denseMaxStations = denseMaxStations;
+                this.cacheSize = cacheSize;
+        }
+
+        /** Kilometres as the crow flies; 0 when either station has no coordinates. */
+        public double distanceKm(Station from, Station to) {
+                if (!located(from) || !located(to)) {
+                        return 0;
+                }
+                TimetableIndex.Snapshot snapshot = timetableIndex.current();
+                int i = snapshot != null ? snapshot.stationIndexOf(from.getStationId()) : -1;
+                int j = snapshot != null ? snapshot.stationIndexOf(to.getStationId()) : -1;
+                if (i < 0 || j < 0) {
+                        return haversineKm(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+                }
+                if (i == j) {
+                        return 0;
+                }
+                return cacheFor(snapshot).get(Math.min(i, j), Math.max(i, j), from, to);
+        }
+
+        /** Great-circle distance between two points. */
+        public static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+                double latDistance = Math.toRadians(lat2 - lat1);
+                double lngDistance = Math.toRadians(lng2 - lng1);
+                double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                                                * Math.sin(lngDistance / 2) * Math.sin(lngDistance / 2);
+                return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        }
+
+        private static boolean located(Station station) {
+                return station != null && station.getLatitude() != null && station.getLongitude() != null;
+        }
+
+        private Cache cacheFor(TimetableIndex.Snapshot snapshot) {
+                Cache current = cache;
+                if (current == null || current.version != snapshot.version()) {
+                        synchronized (this) {
+                                current = cache;
+                                if (current == null || current.version != snapshot.version()) {
+                                        int n = snapshot.stations().size();
+                                        current = n <= denseMaxStations ? new DenseCache(snapshot.version(), n)
+                                                        : new LruCache(snapshot.version(), n, cacheSize);
+                                        cache = current;
+                                }
+                        }
+                }
+                return current;
+        }
+
+        private abstract static class Cache {
+                final long version;
+
+                Cache(long version) {
+                        this.version = version;
+                }
+
+                /** Distance between snapshot positions {@code i < j}. */
+                abstract double get(int i, int j, Station from, Station to);
+        }
+
+        /** Row-major upper triangle; NaN marks a pair not computed yet. Racing writers store the same value. */
+        private static final class DenseCache extends Cache {
+                private final int n;
+                private final float[] km;
+
+                DenseCache(long version, int n) {
+                        super(version);
+                        this.n = n;
+                        this.km = new float[(int) ((long) n * (n - 1) / 2)];
+                        Arrays.fill(km, Float.NaN);
+                }
+
+                @Override
+                double get(int i, int j, Station from, Station to) {
+                        int cell = i * (2 * n - i - 1) / 2 + (j - i - 1);
+                        float value = km[cell];
+                        if (Float.isNaN(value)) {
+                                value = (float) haversineKm(from.getLatitude(), from.getLongitude(), to.getLatitude(),
+                                                to.getLongitude());
+                                km[cell] = value;
+                        }
+                        return value;
+                }
+        }
+
+        private static final class LruCache extends Cache {
+                private final long n;
+                private final Map<Long, Float> km;
+
+                LruCache(long version, int n, int capacity) {
+                        super(version);
+                        this.n = n;
+                        this.km = new LinkedHashMap<>(16, 0.75f, true) {
+                                @Override
+                                protected boolean removeEldestEntry(Map.Entry<Long, Float> eldest) {
+                                        return size() > capacity;
+                                }
+                        };
+                }
+
+                @Override
+                double get(int i, int j, Station from, Station to) {
+                        long key = i * n + j;
+                        synchronized (km) {
+                                Float value = km.get(key);
+                                if (value != null) {
+                                        return value;
+                                }
+                        }
+                        float value = (float) haversineKm(from.getLatitude(), from.getLongitude(), to.getLatitude(),
+                                        to.getLongitude());
+                        synchronized (km) {
+                                km.put(key, value);
+                        }
+                        return value;
+                }
+        }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.example.tbs.service;
+
+import com.example.tbs.entity.Station;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stations bucketed into a grid of {@link #CELL_DEGREES} cells, for radius
+ * queries. A query visits only the cells overlapping the bounding box of the
+ * circle and keeps the stations whose great-circle distance is within the
+ * radius. Stations without coordinates are left out.
+ */
+final class StationGeoIndex {
+
+        private static final double CELL_DEGREES = 0.25;
+        // Kilometres per degree of latitude
+        private static final double KM_PER_DEGREE = Math.PI * 6371 / 180;
+
+        private final Map<Long, List<Station>> cells = new HashMap<>();
+        private final List<Station> located = new ArrayList<>();
+
+        private StationGeoIndex() {
+        }
+
+        static StationGeoIndex build(List<Station> stations) {
+                StationGeoIndex index = new StationGeoIndex();
+                for (Station station : stations) {
+                        if (station.getLatitude() != null && station.getLongitude() != null) {
+                                index.located.add(station);
+                                index.cells.computeIfAbsent(cellKey(row(station.getLatitude()), col(station.getLongitude())),
+                                                k -> new ArrayList<>()).add(station);
+                        }
+                }
+                return index;
+        }
+
+        /** Stations within {@code radiusKm}, nearest first, at most {@code limit}. */
+        List<TimetableIndex.NearbyStation> near(double lat, double lng, double radiusKm, int limit) {
+                double latSpan = radiusKm / KM_PER_DEGREE;
+                double cos = Math.cos(Math.toRadians(lat));
+                // Near the poles the box spans every longitude
+                double lngSpan = cos < 1e-6 ? 180 : Math.min(180, radiusKm / (KM_PER_DEGREE * cos));
+                int firstRow = row(lat - latSpan);
+                int lastRow = row(lat + latSpan);
+                int firstCol = col(lng - lngSpan);
+                int lastCol = col(lng + lngSpan);
+
+                List<TimetableIndex.NearbyStation> found = new ArrayList<>();
+                if ((long) (lastRow - firstRow + 1) * (lastCol - firstCol + 1) > located.size()) {
+                        // Fewer stations than cells to visit: checking each is cheaper
+                        for (Station station : located) {
+                                offer(found, station, lat, lng, radiusKm);
+                        }
+                } else {
+                        for (int r = firstRow; r <= lastRow; r++) {
+                                for (int c = firstCol; c <= lastCol; c++) {
+                                        for (Station station : cells.getOrDefault(cellKey(r, c), List.of())) {
+                                                offer(found, station, lat, lng, radiusKm);
+                                        }
+                                }
+                        }
+                }
+                found.sort(Comparator.comparingDouble(TimetableIndex.NearbyStation::distanceKm));
+                return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+        }
+
+        private static void offer(List<TimetableIndex.NearbyStation> found, Station station, double lat, double lng,
+                        double radiusKm) {
+                double km = StationDistanceService.haversineKm(lat, lng, station.getLatitude(), station.getLongitude());
+                if (km <= radiusKm) {
+                        found.add(new TimetableIndex.NearbyStation(station, km));
+                }
+        }
+
+        private static int row(double lat) {
+                return (int) Math.floor(lat / CELL_DEGREES);
+        }
+
+        private static int col(double lng) {
+                return (int) Math.floor(lng / CELL_DEGREES);
+        }
+
+        private static long cellKey(int row, int col) {
+                return ((long) row << 32) ^ (col & 0xffffffffL);
+        }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.example.tbs.service;
+
+import com.example.tbs.entity.Station;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Prefix lookup over station codes, names and cities for autocomplete.
+ * <p>
+ * One sorted array of normalized terms per kind of match, strongest kind
+ * first: code, full name, a later word of the name, city, a later word of
+ * the city. A query walks the kinds in that order and, within each, the
+ * contiguous run of terms starting with the query (an exact term sorts first),
+ * so it touches about as many entries as it returns.
+ */
+final class StationSuggestIndex {
+
+        private static final int KINDS = 5;
+        private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+        private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+        private final List<Station> stations;
+        private final String[][] terms = new String[KINDS][];
+        private final int[][] owners = new int[KINDS][];
+
+        private StationSuggestIndex(List<Station> stations) {
+                this.stations = stations;
+        }
+
+        static StationSuggestIndex build(List<Station> stations) {
+                StationSuggestIndex index = new StationSuggestIndex(stations);
+                List<List<Term>> byKind = new ArrayList<>();
+                for (int k = 0; k < KINDS; k++) {
+                        byKind.add(new ArrayList<>());
+                }
+                for (int i = 0; i < stations.size(); i++) {
+                        Station station = stations.get(i);
+                        add(byKind.get(0), station.getStationCode(), i);
+                        addWithWords(byKind.get(1), byKind.get(2), station.getStationName(), i);
+                        addWithWords(byKind.get(3), byKind.get(4), station.getCity(), i);
+                }
+                for (int k = 0; k < KINDS; k++) {
+                        List<Term> list = byKind.get(k);
+                        list.sort(Comparator.comparing(Term::text).thenComparingInt(Term::station));
+                        index.terms[k] = list.stream().map(Term::text).toArray(String[]::new);
+                        index.owners[k] = list.stream().mapToInt(Term::station).toArray();
+                }
+                return index;
+        }
+
+        private record Term(String text, int station) {
+        }
+
+        private static void add(List<Term> list, String text, int station) {
+                String normalized = normalize(text);
+                if (!normalized.isEmpty()) {
+                        list.add(new Term(normalized, station));
+                }
+        }
+
+        private static void addWithWords(List<Term> whole, List<Term> words, String text, int station) {
+                String normalized = normalize(text);
+                if (normalized.isEmpty()) {
+                        return;
+                }
+                whole.add(new Term(normalized, station));
+                // Every later word start, so "bengaluru" finds "KSR Bengaluru"
+                for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+                        words.add(new Term(normalized.substring(i + 1), station));
+                }
+        }
+
+        /** Up to {@code limit} stations matching the query, best first. */
+        List<Station> suggest(String query, int limit) {
+                String prefix = normalize(query);
+                List<Station> found = new ArrayList<>();
+                if (prefix.isEmpty() || limit <= 0) {
+                        return found;
+                }
+                BitSet taken = new BitSet(stations.size());
+                for (int k = 0; k < KINDS && found.size() < limit; k++) {
+                        String[] sorted = terms[k];
+                        int i = Arrays.binarySearch(sorted, prefix);
+                        if (i < 0) {
+                                i = -i - 1;
+                        }
+                        // binarySearch may land on any equal term; step back to the first
+                        while (i > 0 && sorted[i - 1].equals(prefix)) {
+                                i--;
+                        }
+                        for (; i < sorted.length && found.size() < limit && sorted[i].startsWith(prefix); i++) {
+                                int station = owners[k][i];
+                                if (!taken.get(station)) {
+                                        taken.set(station);
+                                        found.add(stations.get(station));
+                                }
+                        }
+                }
+                return found;
+        }
+
+        /** Lower case, accents dropped, anything but letters and digits collapsed to single spaces. */
+        static String normalize(String text) {
+                if (text == null) {
+                        return "";
+                }
+                String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+                return SEPARATORS.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        }
+}
@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.example.tbs.service;
+
+import com.example.tbs.dto.TimetableImportResultDTO;
+import com.example.tbs.exception.TimetableImportException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk load of stations, trains and stop times from CSV, for networks far too
+ * large to enter one stop at a time through the admin API.
+ * <p>
+ * Each file is read once, validating and writing as it goes with JDBC batches,
+ * all in one transaction: any invalid row rolls the whole import back.
+ * Stations are matched on their code and trains on their number, so existing
+ * ones are updated. Every train that appears in the stop times gets exactly
+ * the imported stops. Those rows must come grouped by train in increasing
+ * stop sequence, so only the previous row needs to be remembered. The
+ * timetable index is invalidated once, after the commit.
+ * <p>
+ * Files (header row required, columns in any order):
+ * <ul>
+ * <li>stations: station_code, station_name, city, latitude, longitude</li>
+ * <li>trains: train_number, train_name, seats_per_coach, coaches, price and
+ * optionally coach_composition, one coach type letter per coach such as
+ * SSSCCB, which sets the coach count.</li>
+ * <li>stop_times: train_number, stop_sequence, station_code, arrival_time,
+ * departure_time and optionally distance_km (from coordinates when blank).
+ * Times are HH:mm or HH:mm:ss; hours past 23 wrap to the next day as in GTFS.</li>
+ * </ul>
+ */
+@Service
+public class TimetableImporter {
+
+        static final int BATCH_SIZE = 1000;
+        private static final int MAX_ERRORS = 100;
+
+        private static final String UPSERT_STATION = "insert into karbs.station "
+                        + "(station_code, station_name, city, latitude, longitude) values (?, ?, ?, ?, ?) "
+                        + "on conflict (station_code) do update set station_name = excluded.station_name, "
+                        + "city = excluded.city, latitude = excluded.latitude, longitude = excluded.longitude";
+        private static final String INSERT_TRAIN = "insert into karbs.train "
+                        + "(train_name, total_seats_per_coach, number_of_coaches, coach_composition, price, "
+                        + "train_number) values (?, ?, ?, ?, ?, ?)";
+        private static final String UPDATE_TRAIN = "update karbs.train set train_name = ?, "
+                        + "total_seats_per_coach = ?, number_of_coaches = ?, coach_composition = ?, price = ? "
+                        + "where train_number = ?";
+        private static final String DELETE_STOPS = "delete from karbs.train_schedule where train_id = ?";
+        private static final String INSERT_STOP = "insert into karbs.train_schedule "
+                        + "(train_id, station_id, arrival_time, departure_time, stop_sequence, distance_from_start_km) "
+                        + "values (?, ?, ?, ?, ?, ?)";
+
+        private final JdbcTemplate jdbcTemplate;
+        private final TransactionTemplate transactionTemplate;
+        private final TimetableIndex timetableIndex;
+        private final SeatInventory seatInventory;
+
+        public TimetableImporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                        TimetableIndex timetableIndex, SeatInventory seatInventory) {
+                this.jdbcTemplate = jdbcTemplate;
+                this.transactionTemplate = new TransactionTemplate(transactionManager);
+                this.timetableIndex = timetableIndex;
+                this.seatInventory = seatInventory;
+        }
+
+        /** Any of the streams may be null; throws {@link TimetableImportException} listing bad rows. */
+        public TimetableImportResultDTO importCsv(InputStream stations, InputStream trains, InputStream stopTimes) {
+                long started = System.nanoTime();
+                TimetableImportResultDTO result = transactionTemplate.execute(status -> {
+                        Import run = new Import();
+                        try {
+                                if (stations != null) {
+                                        run.stations(stations);
+                                }
+                                if (trains != null) {
+                                        run.trains(trains);
+                                }
+                                if (stopTimes != null) {
+                                        run.stopTimes(stopTimes);
+                                }
+                        } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                        }
+                        if (!run.errors.isEmpty()) {
+                                throw new TimetableImportException(run.errors);
+                        }
+                        return run.result;
+                });
+
+                timetableIndex.invalidate();
+                seatInventory.invalidateAll();
+                result.setMillis((System.nanoTime() - started) / 1_000_000);
+                return result;
+        }
+
+        /** State of one import; rows stop being written once an error is found but are still validated. */
+        private final class Import {
+                private final TimetableImportResultDTO result = new TimetableImportResultDTO();
+                private final List<String> errors = new ArrayList<>();
+
+                private void stations(InputStream in) throws IOException {
+                        CsvReader csv = new CsvReader(in, "stations");
+                        Set<String> seen = new HashSet<>();
+                        List<Object[]> batch = new ArrayList<>();
+                        while (csv.next()) {
+                                String code = csv.required("station_code");
+                                String name = csv.required("station_name");
+                                String city = csv.optional("city");
+                                Double lat = csv.decimal("latitude");
+                                Double lng = csv.decimal("longitude");
+                                if (code != null && !seen.add(code)) {
+                                        csv.error("duplicate station " + code);
+                                }
+                                if (csv.rowValid()) {
+                                        batch.add(new Object[] { code, name, city, lat, lng });
+                                        result.setStations(result.getStations() + 1);
+                                        flushIfFull(UPSERT_STATION, batch);
+                                }
+                        }
+                        flush(UPSERT_STATION, batch);
+                }
+
+                private void trains(InputStream in) throws IOException {
+                        CsvReader csv = new CsvReader(in, "trains");
+                        Set<String> existing = new HashSet<>(
+                                        jdbcTemplate.queryForList("select train_number from karbs.train", String.class));
+                        Set<String> seen = new HashSet<>();
+                        List<Object[]> inserts = new ArrayList<>();
+                        List<Object[]> updates = new ArrayList<>();
+                        while (csv.next()) {
+                                String number = csv.required("train_number");
+                                String name = csv.required("train_name");
+                                Integer seats = csv.integer("seats_per_coach");
+                                Integer coaches = csv.integer("coaches");
+                                Integer price = csv.integer("price");
+                                String composition = null;
+                                try {
+                                        composition = CoachLayout.composition(csv.optional("coach_composition"));
+                                } catch (RuntimeException e) {
+                                        csv.error("coach_composition " + e.getMessage());
+                                }
+                                if (composition != null) {
+                                        if (coaches != null && coaches != composition.length()) {
+                                                csv.error("coaches is " + coaches + " but coach_composition has "
+                                                                + composition.length());
+                                        }
+                                        coaches = composition.length();
+                                }
+                                if (number != null && !seen.add(number)) {
+                                        csv.error("duplicate train " + number);
+                                }
+                                if (csv.rowValid()) {
+                                        Object[] row = { name, seats, coaches, composition,
+                                                        price != null ? price.longValue() : 100L, number };
+                                        if (existing.contains(number)) {
+                                                updates.add(row);
+                                                flushIfFull(UPDATE_TRAIN, updates);
+                                        } else {
+                                                inserts.add(row);
+                                                flushIfFull(INSERT_TRAIN, inserts);
+                                        }
+                                        result.setTrains(result.getTrains() + 1);
+                                }
+                        }
+                        flush(UPDATE_TRAIN, updates);
+                        flush(INSERT_TRAIN, inserts);
+                }
+
+                private void stopTimes(InputStream in) throws IOException {
+                        CsvReader csv = new CsvReader(in, "stop_times");
+                        Map<String, Long> trainIds = new HashMap<>();
+                        jdbcTemplate.query("select train_id, train_number from karbs.train",
+                                        rs -> { trainIds.put(rs.getString(2), rs.getLong(1)); });
+                        Map<String, Long> stationIds = new HashMap<>();
+                        Map<Long, double[]> coordinates = new HashMap<>();
+                        jdbcTemplate.query("select station_id, station_code, latitude, longitude from karbs.station", rs -> {
+                                stationIds.put(rs.getString(2), rs.getLong(1));
+                                double lat = rs.getDouble(3);
+                                double lng = rs.getDouble(4);
+                                if (!rs.wasNull()) {
+                                        coordinates.put(rs.getLong(1), new double[] { lat, lng });
+                                }
+                        });
+
+                        Set<String> finishedTrains = new HashSet<>();
+                        List<Object[]> deletes = new ArrayList<>();
+                        List<Object[]> inserts = new ArrayList<>();
+                        String train = null;
+                        int lastSequence = 0;
+                        Long lastStation = null;
+                        int lastDistance = 0;
+                        while (csv.next()) {
+                                String number = csv.required("train_number");
+                                Integer sequence = csv.integer("stop_sequence");
+                                String code = csv.required("station_code");
+                                LocalTime arrival = csv.time("arrival_time");
+                                LocalTime departure = csv.time("departure_time");
+                                Integer distance = csv.integer("distance_km");
+                                if (sequence == null && csv.optional("stop_sequence") == null) {
+                                        csv.error("stop_sequence is required");
+                                }
+                                if (arrival == null && departure == null && csv.rowValid()) {
+                                        csv.error("arrival_time or departure_time is required");
+                                }
+                                Long trainId = number != null ? trainIds.get(number) : null;
+                                if (number != null && trainId == null) {
+                                        csv.error("unknown train " + number);
+                                }
+                                Long stationId = code != null ? stationIds.get(code) : null;
+                                if (code != null && stationId == null) {
+                                        csv.error("unknown station " + code);
+                                }
+                                if (number == null || sequence == null) {
+                                        continue;
+                                }
+
+                                if (!number.equals(train)) {
+                                        if (train != null) {
+                                                finishedTrains.add(train);
+                                        }
+                                        if (finishedTrains.contains(number)) {
+                                                csv.error("stops of train " + number + " are not contiguous");
+                                        }
+                                        train = number;
+                                        lastSequence = Integer.MIN_VALUE;
+                                        lastStation = null;
+                                        lastDistance = 0;
+                                        if (trainId != null) {
+                                                deletes.add(new Object[] { trainId });
+                                                result.setTrainsRescheduled(result.getTrainsRescheduled() + 1);
+                                        }
+                                } else if (sequence <= lastSequence) {
+                                        csv.error("stop_sequence " + sequence + " does not increase for train " + number);
+                                }
+                                lastSequence = sequence;
+
+                                if (distance == null && stationId != null) {
+                                        distance = lastStation == null ? 0
+                                                        : lastDistance + (int) Math.round(distanceKm(coordinates.get(lastStation),
+                                                                        coordinates.get(stationId)));
+                                }
+                                lastStation = stationId;
+                                lastDistance = distance != null ? distance : lastDistance;
+
+                                if (csv.rowValid()) {
+                                        inserts.add(new Object[] { trainId, stationId, arrival, departure, sequence, distance });
+                                        result.setStops(result.getStops() + 1);
+                                        if (inserts.size() >= BATCH_SIZE) {
+                                                flushStops(deletes, inserts);
+                                        }
+                                }
+                        }
+                        flushStops(deletes, inserts);
+                }
+
+                // A train's delete is queued before its first insert, so running deletes first keeps the order
+                private void flushStops(List<Object[]> deletes, List<Object[]> inserts) {
+                        flush(DELETE_STOPS, deletes);
+                        flush(INSERT_STOP, inserts);
+                }
+
+                private void flushIfFull(String sql, List<Object[]> batch) {
+                        if (batch.size() >= BATCH_SIZE) {
+                                flush(sql, batch);
+                        }
+                }
+
+                private void flush(String sql, List<Object[]> batch) {
+                        if (errors.isEmpty() && !batch.isEmpty()) {
+                                jdbcTemplate.batchUpdate(sql, batch);
+                        }
+                        batch.clear();
+                }
+
+                /** CSV reader bound to this import's error list. */
+                private final class CsvReader {
+                        private final BufferedReader reader;
+                        private final String file;
+                        private final Map<String, Integer> columns = new HashMap<>();
+                        private List<String> row;
+                        private long line = 1;
+                        private int errorsBefore;
+
+                        CsvReader(InputStream in, String file) throws IOException {
+                                this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+                                this.file = file;
+                                String header = reader.readLine();
+                                if (header == null) {
+                                        throw new TimetableImportException(List.of(file + ": empty file"));
+                                }
+                                if (header.startsWith("\uFEFF")) {
+                                        header = header.substring(1);
+                                }
+                                List<String> names = split(header);
+                                for (int i = 0; i < names.size(); i++) {
+                                        columns.put(names.get(i).trim().toLowerCase(), i);
+                                }
+                        }
+
+                        boolean next() throws IOException {
+                                String text;
+                                do {
+                                        text = reader.readLine();
+                                        line++;
+                                } while (text != null && text.isBlank());
+                                if (text == null || errors.size() >= MAX_ERRORS) {
+                                        return false;
+                                }
+                                row = split(text);
+                                errorsBefore = errors.size();
+                                return true;
+                        }
+
+                        boolean rowValid() {
+                                return errors.size() == errorsBefore;
+                        }
+
+                        void error(String message) {
+                                if (errors.size() < MAX_ERRORS) {
+                                        errors.add(file + " line " + line + ": " + message);
+                                }
+                        }
+
+                        String optional(String column) {
+                                Integer i = columns.get(column);
+                                if (i == null || i >= row.size()) {
+                                        return null;
+                                }
+                                String value = row.get(i).trim();
+                                return value.isEmpty() ? null : value;
+                        }
+
+                        String required(String column) {
+                                String value = optional(column);
+                                if (value == null) {
+                                        error(column + " is required");
+                                }
+                                return value;
+                        }
+
+                        Integer integer(String column) {
+                                String value = optional(column);
+                                try {
+                                        return value != null ? Integer.valueOf(value) : null;
+                                } catch (NumberFormatException e) {
+                                        error(column + " is not a whole number: " + value);
+                                        return null;
+                                }
+                        }
+
+                        Double decimal(String column) {
+                                String value = optional(column);
+                                try {
+                                        return value != null ? Double.valueOf(value) : null;
+                                } catch (NumberFormatException e) {
+                                        error(column + " is not a number: " + value);
+                                        return null;
+                                }
+                        }
+
+                        LocalTime time(String column) {
+                                String value = optional(column);
+                                if (value == null) {
+                                        return null;
+                                }
+                                String[] parts = value.split(":");
+                                try {
+                                        if (parts.length < 2 || parts.length > 3) {
+                                                throw new NumberFormatException();
+                                        }
+                                        int hour = Integer.parseInt(parts[0]);
+                                        int minute = Integer.parseInt(parts[1]);
+                                        int second = parts.length == 3 ? Integer.parseInt(parts[2]) : 0;
+                                        if (hour < 0 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+                                                throw new NumberFormatException();
+                                        }
+                                        return LocalTime.of(hour % 24, minute, second);
+                                } catch (NumberFormatException e) {
+                                        error(column + " is not a time: " + value);
+                                        return null;
+                                }
+                        }
+
+                        /** Comma-separated fields; double quotes may wrap a field and "" escapes a quote. */
+                        private List<String> split(String text) {
+                                List<String> fields = new ArrayList<>();
+                                StringBuilder field = new StringBuilder();
+                                boolean quoted = false;
+                                for (int i = 0; i < text.length(); i++) {
+                                        char c = text.charAt(i);
+                                        if (quoted) {
+                                                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                                                        field.append('"');
+                                                        i++;
+                                                } else if (c == '"') {
+                                                        quoted = false;
+                                                } else {
+                                                        field.append(c);
+                                                }
+                                        } else if (c == '"') {
+                                                quoted = true;
+                                        } else if (c == ',') {
+                                                fields.add(field.toString());
+                                                field.setLength(0);
+                                        } else {
+                                                field.append(c);
+                                        }
+                                }
+                                fields.add(field.toString());
+                                return fields;
+                        }
+                }
+        }
+
+        private static double distanceKm(double[] from, double[] to) {
+                return from == null || to == null ? 0
+                                : StationDistanceService.haversineKm(from[0], from[1], to[0], to[1]);
+        }
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.entity.Station;
+import com.example.tbs.entity.TrainSchedule;
+import com.example.tbs.repository.StationRepository;
+import com.example.tbs.repository.TimetableVersionRepository;
+import com.example.tbs.repository.TrainScheduleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory view of the timetable that is derived once and shared by every
+ * search. It is rebuilt lazily on the first read after one of the invalidate
+ * methods, which admin edits and the seeder call whenever stations, trains or
+ * schedules change. Each invalidation bumps the version and publishes a
+ * {@link Changed} event so derived stores can catch up.
+ * <p>
+ * Invalidations also bump the timetable version row in the database, and
+ * every build from the database leaves a {@link TimetableSnapshotFile} tagged
+ * with the version it read. A build first checks that file, so a restart (or
+ * another node sharing the file) reuses it while nothing has changed since.
+ */
+@Service
+public class TimetableIndex {
+
+        /** Direct, single layover and double layover: the deepest search we run. */
+        public static final int MAX_LEGS = 3;
+
+        public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+        private final TrainScheduleRepository trainScheduleRepository;
+        private final StationRepository stationRepository;
+        private final TimetableVersionRepository timetableVersionRepository;
+        private final Path snapshotPath;
+
+        private final ApplicationEventPublisher events;
+        private final AtomicLong version = new AtomicLong();
+
+        private volatile Snapshot snapshot;
+
+        public TimetableIndex(TrainScheduleRepository trainScheduleRepository, StationRepository stationRepository,
+                        TimetableVersionRepository timetableVersionRepository,
+                        @Value("${timetable.snapshot-path:${java.io.tmpdir}/tbs-timetable.bin}") String snapshotPath,
+                        ApplicationEventPublisher events) {
+                this.trainScheduleRepository = trainScheduleRepository;
+                this.stationRepository = stationRepository;
+                this.timetableVersionRepository = timetableVersionRepository;
+                this.snapshotPath = Path.of(snapshotPath);
+                this.events = events;
+        }
+
+        /** The snapshot if one is built and up to date, without building one; null otherwise. */
+        public Snapshot current() {
+                Snapshot current = snapshot;
+                return current != null && current.version == version.get() ? current : null;
+        }
+
+        /** Builds the first snapshot before traffic arrives rather than on the first search. */
+        @EventListener(ApplicationReadyEvent.class)
+        public void warmUp() {
+                long started = System.nanoTime();
+                Snapshot ready = snapshot();
+                System.out.println("Timetable index ready: " + ready.stations().size() + " stations, "
+                                + ready.connections().size() + " connections in "
+                                + (System.nanoTime() - started) / 1_000_000 + " ms");
+        }
+
+        public Snapshot snapshot() {
+                Snapshot current = snapshot;
+                if (current == null || current.version != version.get()) {
+                        synchronized (this) {
+                                current = snapshot;
+                                long latest = version.get();
+                                if (current == null || current.version != latest) {
+                                        // An edit during the build bumps the version again, so the next read rebuilds
+                                        current = load(latest);
+                                        snapshot = current;
+                                }
+                        }
+                }
+                return current;
+        }
+
+        private Snapshot load(long latest) {
+                long dbVersion = timetableVersionRepository.current();
+                try {
+                        TimetableSnapshotFile.Contents file = TimetableSnapshotFile.read(snapshotPath);
+                        if (file != null && file.dbVersion() == dbVersion) {
+                                return build(latest, file.stations(), file.schedules());
+                        }
+                } catch (IOException | RuntimeException e) {
+                        System.err.println("Ignoring timetable snapshot " + snapshotPath + ": " + e.getMessage());
+                }
+
+                // Read after the version, so rows changed meanwhile leave a file that is already stale
+                List<Station> stations = stationRepository.findAll();
+                List<TrainSchedule> schedules = trainScheduleRepository.findAll();
+                try {
+                        TimetableSnapshotFile.write(snapshotPath, dbVersion, stations, schedules);
+                } catch (IOException | RuntimeException e) {
+                        System.err.println("Could not write timetable snapshot " + snapshotPath + ": " + e.getMessage());
+                }
+                return build(latest, stations, schedules);
+        }
+
+        /** Anything may have changed, e.g. after reseeding. */
+        public void invalidate() {
+                changed(null);
+        }
+
+        /** Stops of this train were added, moved or removed. */
+        public void invalidateRoute(Long trainId) {
+                changed(Set.of(trainId));
+        }
+
+        /** Names, prices, capacities or coordinates changed; every train still calls at the same stops. */
+        public void invalidateDetails() {
+                changed(Set.of());
+        }
+
+        private void changed(Set<Long> reroutedTrainIds) {
+                timetableVersionRepository.bump();
+                events.publishEvent(new Changed(version.incrementAndGet(), reroutedTrainIds));
+        }
+
+        /**
+         * Published after every invalidation. {@code reroutedTrainIds} is null when
+         * any route may have changed.
+         */
+        public record Changed(long version, Set<Long> reroutedTrainIds) {
+        }
+
+        /** A station and its great-circle distance from the queried point. */
+        public record NearbyStation(Station station, double distanceKm) {
+        }
+
+        static Snapshot build(long version, List<Station> stations, List<TrainSchedule> schedules) {
+                Map<Long, Integer> stationIndex = new HashMap<>();
+                Map<String, Station> stationsByCode = new HashMap<>();
+                Map<String, List<Station>> stationsByCity = new HashMap<>();
+                for (Station station : stations) {
+                        stationIndex.put(station.getStationId(), stationIndex.size());
+                        if (station.getStationCode() != null) {
+                                stationsByCode.put(key(station.getStationCode()), station);
+                        }
+                        if (station.getCity() != null) {
+                                stationsByCity.computeIfAbsent(key(station.getCity()), k -> new ArrayList<>())
+                                                .add(station);
+                        }
+                }
+
+                Map<Long, List<TrainSchedule>> schedulesByTrain = new HashMap<>();
+                Map<Long, List<TrainSchedule>> schedulesByStation = new HashMap<>();
+                for (TrainSchedule ts : schedules) {
+                        schedulesByTrain.computeIfAbsent(ts.getTrain().getTrainId(), k -> new ArrayList<>()).add(ts);
+                        schedulesByStation.computeIfAbsent(ts.getStation().getStationId(), k -> new ArrayList<>())
+                                        .add(ts);
+                }
+                schedulesByTrain.values().forEach(list -> list.sort(Comparator.comparingInt(TrainSchedule::getStopSequence)));
+
+                // Elementary connections (one train between consecutive stops) for profile queries
+                List<Connection> connections = new ArrayList<>();
+                int trip = 0;
+                for (List<TrainSchedule> stops : schedulesByTrain.values()) {
+                        // Minutes from midnight of the first day; times that go backwards roll over a day
+                        int dayOffset = 0;
+                        int lastMinute = -1;
+                        int previousDeparture = -1;
+                        TrainSchedule previous = null;
+                        for (TrainSchedule ts : stops) {
+                                LocalTime arrival = ts.getArrivalTime() != null ? ts.getArrivalTime()
+                                                : ts.getDepartureTime();
+                                LocalTime departure = ts.getDepartureTime() != null ? ts.getDepartureTime() : arrival;
+                                if (arrival == null) {
+                                        previous = null;
+                                        continue;
+                                }
+                                int arrivalMinute = arrival.toSecondOfDay() / 60 + dayOffset;
+                                if (arrivalMinute < lastMinute) {
+                                        dayOffset += 24 * 60;
+                                        arrivalMinute += 24 * 60;
+                                }
+                                int departureMinute = departure.toSecondOfDay() / 60 + dayOffset;
+                                if (departureMinute < arrivalMinute) {
+                                        dayOffset += 24 * 60;
+                                        departureMinute += 24 * 60;
+                                }
+                                lastMinute = departureMinute;
+
+                                Integer from = previous == null ? null
+                                                : stationIndex.get(previous.getStation().getStationId());
+                                Integer to = stationIndex.get(ts.getStation().getStationId());
+                                if (from != null && to != null) {
+                                        connections.add(new Connection(previous, ts, previousDeparture, arrivalMinute,
+                                                        from, to, trip));
+                                }
+                                previous = ts;
+                                previousDeparture = departureMinute;
+                        }
+                        trip++;
+                }
+                connections.sort(Comparator.comparingInt(Connection::departure));
+
+                int n = stations.size();
+
+                // reach[0][u]: stations reachable from u on one train without changing.
+                BitSet[][] reach = new BitSet[MAX_LEGS][n];
+                for (int u = 0; u < n; u++) {
+                        reach[0][u] = new BitSet(n);
+                }
+                for (List<TrainSchedule> stops : schedulesByTrain.values()) {
+                        BitSet downstream = new BitSet(n);
+                        for (int i = stops.size() - 1; i >= 0; i--) {
+                                Integer u = stationIndex.get(stops.get(i).getStation().getStationId());
+                                if (u == null) {
+                                        continue;
+                                }
+                                reach[0][u].or(downstream);
+                                downstream.set(u);
+                        }
+                }
+
+                // reach[k][u]: stations reachable from u using at most k + 1 trains.
+                for (int k = 1; k < MAX_LEGS; k++) {
+                        for (int u = 0; u < n; u++) {
+                                BitSet next = (BitSet) reach[k - 1][u].clone();
+                                BitSet frontier = reach[k - 1][u];
+                                for (int v = frontier.nextSetBit(0); v >= 0; v = frontier.nextSetBit(v + 1)) {
+                                        next.or(reach[0][v]);
+                                }
+                                reach[k][u] = next;
+                        }
+                }
+
+                return new Snapshot(version, stations, stationIndex, stationsByCode, stationsByCity, schedulesByTrain,
+                                schedulesByStation, reach, connections, trip);
+        }
+
+        /**
+         * One train running between consecutive stops. Times are minutes from
+         * midnight of the day the train starts, so overnight runs go past 1440.
+         * Stations are indexes into {@link Snapshot#stations()}.
+         */
+        public record Connection(TrainSchedule from, TrainSchedule to, int departure, int arrival, int fromStation,
+                        int toStation, int trip) {
+        }
+
+        private static String key(String value) {
+                return value.trim().toUpperCase(Locale.ROOT);
+        }
+
+        public static class Snapshot {
+                private final long version;
+                private final List<Station> stations;
+                private final Map<Long, Integer> stationIndex;
+                private final Map<String, Station> stationsByCode;
+                private final Map<String, List<Station>> stationsByCity;
+                private final Map<Long, List<TrainSchedule>> schedulesByTrain;
+                private final Map<Long, List<TrainSchedule>> schedulesByStation;
+                private final BitSet[][] reach;
+                private final List<Connection> connections;
+                private final int tripCount;
+                // Built on first use; a race only builds one twice
+                private volatile StationSuggestIndex suggestIndex;
+                private volatile StationGeoIndex geoIndex;
+
+                Snapshot(long version, List<Station> stations, Map<Long, Integer> stationIndex, Map<String, Station> stationsByCode,
+                                Map<String, List<Station>> stationsByCity,
+                                Map<Long, List<TrainSchedule>> schedulesByTrain,
+                                Map<Long, List<TrainSchedule>> schedulesByStation, BitSet[][] reach,
+                                List<Connection> connections, int tripCount) {
+                        this.version = version;
+                        this.stations = stations;
+                        this.stationIndex = stationIndex;
+                        this.stationsByCode = stationsByCode;
+                        this.stationsByCity = stationsByCity;
+                        this.schedulesByTrain = schedulesByTrain;
+                        this.schedulesByStation = schedulesByStation;
+                        this.reach = reach;
+                        this.connections = connections;
+                        this.tripCount = tripCount;
+                }
+
+                public long version() {
+                        return version;
+                }
+
+                public List<Station> stations() {
+                        return Collections.unmodifiableList(stations);
+                }
+
+                /** Position of the station in {@link #stations()}, or -1. */
+                public int stationIndexOf(Long stationId) {
+                        return stationIndex.getOrDefault(stationId, -1);
+                }
+
+                /** Every connection of the timetable, by departure minute. */
+                public List<Connection> connections() {
+                        return Collections.unmodifiableList(connections);
+                }
+
+                /** Connections number their train from 0 to tripCount - 1. */
+                public int tripCount() {
+                        return tripCount;
+                }
+
+                public Station stationByCode(String stationCode) {
+                        return stationCode == null ? null : stationsByCode.get(key(stationCode));
+                }
+
+                public List<Station> stationsInCity(String city) {
+                        return city == null ? List.of() : stationsByCity.getOrDefault(key(city), List.of());
+                }
+
+                /** Up to {@code limit} stations whose code, name or city (or a word in them) starts with the query. */
+                public List<Station> suggestStations(String query, int limit) {
+                        StationSuggestIndex index = suggestIndex;
+                        if (index == null) {
+                                index = StationSuggestIndex.build(stations);
+                                suggestIndex = index;
+                        }
+                        return index.suggest(query, limit);
+                }
+
+                /** Up to {@code limit} stations within {@code radiusKm} of the point, nearest first. */
+                public List<NearbyStation> stationsNear(double lat, double lng, double radiusKm, int limit) {
+                        StationGeoIndex index = geoIndex;
+                        if (index == null) {
+                                index = StationGeoIndex.build(stations);
+                                geoIndex = index;
+                        }
+                        return index.near(lat, lng, radiusKm, limit);
+                }
+
+                /** Stops of a train ordered by stop sequence. */
+                public List<TrainSchedule> stopsOfTrain(Long trainId) {
+                        return schedulesByTrain.getOrDefault(trainId, List.of());
+                }
+
+                /** Later stops of the same train, in order. */
+                public List<TrainSchedule> stopsAfter(TrainSchedule board) {
+                        List<TrainSchedule> stops = stopsOfTrain(board.getTrain().getTrainId());
+                        int i = 0;
+                        while (i < stops.size() && stops.get(i).getStopSequence() <= board.getStopSequence()) {
+                                i++;
+                        }
+                        return stops.subList(i, stops.size());
+                }
+
+                /** The call of a train with this stop sequence, or null. */
+                public TrainSchedule stopOfTrain(Long trainId, int stopSequence) {
+                        for (TrainSchedule ts : stopsOfTrain(trainId)) {
+                                if (ts.getStopSequence() == stopSequence) {
+                                        return ts;
+                                }
+                        }
+                        return null;
+                }
+
+                /** Every train call at a station, in no particular order. */
+                public List<TrainSchedule> callsAtStation(Long stationId) {
+                        return schedulesByStation.getOrDefault(stationId, List.of());
+                }
+
+                /**
+                 * Fewest trains needed to get from one station to another, ignoring
+                 * connection times, or {@link #UNREACHABLE} beyond {@link #MAX_LEGS}.
+                 */
+                public int minLegs(Long fromStationId, Long toStationId) {
+                        Integer u = stationIndex.get(fromStationId);
+                        Integer v = stationIndex.get(toStationId);
+                        if (u == null || v == null) {
+                                return UNREACHABLE;
+                        }
+                        for (int k = 0; k < MAX_LEGS; k++) {
+                                if (reach[k][u].get(v)) {
+                                        return k + 1;
+                                }
+                        }
+                        return UNREACHABLE;
+                }
+
+                public boolean canReach(Long fromStationId, Long toStationId, int legs) {
+                        return legs > 0 && minLegs(fromStationId, toStationId) <= legs;
+                }
+
+                /** True if any of the targets is within {@code legs} trains of the station. */
+                public boolean canReachAny(Long fromStationId, Set<Long> toStationIds, int legs) {
+                        Integer u = stationIndex.get(fromStationId);
+                        if (u == null || legs <= 0) {
+                                return false;
+                        }
+                        BitSet reachable = reach[Math.min(legs, MAX_LEGS) - 1][u];
+                        for (Long target : toStationIds) {
+                                Integer v = stationIndex.get(target);
+                                if (v != null && reachable.get(v)) {
+                                        return true;
+                                }
+                        }
+                        return false;
+                }
+
+                /** Multi-source variant of {@link #canReachAny(Long, Set, int)}. */
+                public boolean canReachAny(Set<Long> fromStationIds, Set<Long> toStationIds, int legs) {
+                        for (Long from : fromStationIds) {
+                                if (canReachAny(from, toStationIds, legs)) {
+                                        return true;
+                                }
+                        }
+                        return false;
+                }
+        }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.example.tbs.service;
+
+import com.example.tbs.entity.Station;
+import com.example.tbs.entity.Train;
+import com.example.tbs.entity.TrainSchedule;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary copy of the rows the timetable index is built from, so a restarted
+ * node can skip the database load. The header carries the database timetable
+ * version the rows were read at; a file whose version differs from the
+ * current counter is stale and ignored.
+ * <p>
+ * Layout, big-endian: magic, format, database version, then stations
+ * (id, code, name, city, latitude, longitude), trains (id, number, name,
+ * seats per coach, coaches, coach composition, price) and schedules (id,
+ * train index, station index, arrival and departure second of day,
+ * sequence, distance), and a CRC32 of everything before it. Strings are a
+ * length and UTF-8 bytes; -1 (NaN for coordinates, {@code Long.MIN_VALUE}
+ * for the price) stands for null.
+ */
+final class TimetableSnapshotFile {
+
+        private static final int MAGIC = 0x54425454;
+        private static final int FORMAT = 2;
+
+        private TimetableSnapshotFile() {
+        }
+
+        record Contents(long dbVersion, List<Station> stations, List<TrainSchedule> schedules) {
+        }
+
+        static void write(Path path, long dbVersion, List<Station> stations, List<TrainSchedule> schedules)
+                        throws IOException {
+                Map<Long, Integer> stationIndex = new HashMap<>();
+                for (Station s : stations) {
+                        stationIndex.put(s.getStationId(), stationIndex.size());
+                }
+                Map<Long, Integer> trainIndex = new HashMap<>();
+                List<Train> trains = new ArrayList<>();
+                for (TrainSchedule ts : schedules) {
+                        if (trainIndex.putIfAbsent(ts.getTrain().getTrainId(), trains.size()) == null) {
+                                trains.add(ts.getTrain());
+                        }
+                }
+
+                if (path.getParent() != null) {
+                        Files.createDirectories(path.getParent());
+                }
+                Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+                CRC32 crc = new CRC32();
+                try (OutputStream file = Files.newOutputStream(tmp)) {
+                        DataOutputStream out = new DataOutputStream(
+                                        new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc));
+                        out.writeInt(MAGIC);
+                        out.writeInt(FORMAT);
+                        out.writeLong(dbVersion);
+
+                        out.writeInt(stations.size());
+                        for (Station s : stations) {
+                                out.writeLong(s.getStationId());
+                                writeString(out, s.getStationCode());
+                                writeString(out, s.getStationName());
+                                writeString(out, s.getCity());
+                                out.writeDouble(s.getLatitude() != null ? s.getLatitude() : Double.NaN);
+                                out.writeDouble(s.getLongitude() != null ? s.getLongitude() : Double.NaN);
+                        }
+
+                        out.writeInt(trains.size());
+                        for (Train t : trains) {
+                                out.writeLong(t.getTrainId());
+                                writeString(out, t.getTrainNumber());
+                                writeString(out, t.getTrainName());
+                                out.writeInt(t.getTotalSeatsPerCoach() != null ? t.getTotalSeatsPerCoach() : -1);
+                                out.writeInt(t.getNumberOfCoaches() != null ? t.getNumberOfCoaches() : -1);
+                                writeString(out, t.getCoachComposition());
+                                out.writeLong(t.getPrice() != null ? t.getPrice() : Long.MIN_VALUE);
+                        }
+
+                        out.writeInt(schedules.size());
+                        for (TrainSchedule ts : schedules) {
+                                Integer station = stationIndex.get(ts.getStation().getStationId());
+                                if (station == null) {
+                                        throw new IOException("Schedule " + ts.getScheduleId() + " calls at unknown station");
+                                }
+                                out.writeLong(ts.getScheduleId());
+                                out.writeInt(trainIndex.get(ts.getTrain().getTrainId()));
+                                out.writeInt(station);
+                                out.writeInt(ts.getArrivalTime() != null ? ts.getArrivalTime().toSecondOfDay() : -1);
+                                out.writeInt(ts.getDepartureTime() != null ? ts.getDepartureTime().toSecondOfDay() : -1);
+                                out.writeInt(ts.getStopSequence());
+                                out.writeInt(ts.getDistanceFromStartKm());
+                        }
+                        out.flush();
+                        // The checksum trails the data it covers, so write it past the checked stream
+                        new DataOutputStream(file).writeLong(crc.getValue());
+                }
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /** Null when there is no usable file: missing, another format, or corrupt. */
+        static Contents read(Path path) throws IOException {
+                if (!Files.isRegularFile(path)) {
+                        return null;
+                }
+                MappedByteBuffer buf;
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                        buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+                if (buf.capacity() < 24 || buf.getInt(0) != MAGIC || buf.getInt(4) != FORMAT) {
+                        return null;
+                }
+                int end = buf.capacity() - Long.BYTES;
+                CRC32 crc = new CRC32();
+                crc.update(buf.slice(0, end));
+                if (crc.getValue() != buf.getLong(end)) {
+                        return null;
+                }
+
+                buf.position(8);
+                long dbVersion = buf.getLong();
+
+                List<Station> stations = new ArrayList<>();
+                for (int i = buf.getInt(); i > 0; i--) {
+                        long id = buf.getLong();
+                        String code = readString(buf);
+                        String name = readString(buf);
+                        String city = readString(buf);
+                        double lat = buf.getDouble();
+                        double lng = buf.getDouble();
+                        stations.add(new Station(id, code, name, city, Double.isNaN(lat) ? null : lat,
+                                        Double.isNaN(lng) ? null : lng));
+                }
+
+                List<Train> trains = new ArrayList<>();
+                for (int i = buf.getInt(); i > 0; i--) {
+                        long id = buf.getLong();
+                        String number = readString(buf);
+                        String name = readString(buf);
+                        int seats = buf.getInt();
+                        int coaches = buf.getInt();
+                        String composition = readString(buf);
+                        long price = buf.getLong();
+                        trains.add(new Train(id, number, name, seats < 0 ? null : seats, coaches < 0 ? null : coaches,
+                                        composition, price == Long.MIN_VALUE ? null : price));
+                }
+
+                List<TrainSchedule> schedules = new ArrayList<>();
+                for (int i = buf.getInt(); i > 0; i--) {
+                        long id = buf.getLong();
+                        Train train = trains.get(buf.getInt());
+                        Station station = stations.get(buf.getInt());
+                        int arrival = buf.getInt();
+                        int departure = buf.getInt();
+                        int sequence = buf.getInt();
+                        int distance = buf.getInt();
+                        schedules.add(new TrainSchedule(id, train, station,
+                                        arrival < 0 ? null : LocalTime.ofSecondOfDay(arrival),
+                                        departure < 0 ? null : LocalTime.ofSecondOfDay(departure), sequence, distance));
+                }
+                return new Contents(dbVersion, stations, schedules);
+        }
+
+        private static void writeString(DataOutputStream out, String s) throws IOException {
+                if (s == null) {
+                        out.writeInt(-1);
+                        return;
+                }
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+        }
+
+        private static String readString(ByteBuffer buf) {
+                int length = buf.getInt();
+                if (length < 0) {
+                        return null;
+                }
+                byte[] bytes = new byte[length];
+                buf.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+        }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.dto.TrainCalendarDTO;
+import com.example.tbs.entity.Train;
+import com.example.tbs.entity.TrainSchedule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Free seats of one train and segment for each day of a date range. The whole
+ * range is loaded into {@link SeatInventory} with one query, and answers are
+ * kept for {@code calendar.ttl-ms} so a calendar many people look at is only
+ * worked out once in a while; counts can be that much out of date.
+ */
+@Service
+public class TrainCalendarService {
+
+        public static final int MAX_DAYS = 180;
+
+        private final SeatInventory seatInventory;
+        private final TimetableIndex timetableIndex;
+        private final long ttlNanos;
+        private final Map<Key, Cached> cache;
+
+        public TrainCalendarService(SeatInventory seatInventory, TimetableIndex timetableIndex,
+                        @Value("${calendar.ttl-ms:30000}") long ttlMs,
+                        @Value("${calendar.cache-size:1000}") int cacheSize) {
+                this.seatInventory = seatInventory;
+                this.timetableIndex = timetableIndex;
+                this.ttlNanos = ttlMs * 1_000_000;
+                this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<Key, Cached> eldest) {
+                                return size() > cacheSize;
+                        }
+                };
+        }
+
+        /** Between the train's first and last stop when the sequences are not given. */
+        public TrainCalendarDTO getCalendar(Long trainId, LocalDate from, LocalDate to, Integer fromSeq,
+                        Integer toSeq) {
+                List<TrainSchedule> stops = timetableIndex.snapshot().stopsOfTrain(trainId);
+                if (stops.isEmpty()) {
+                        throw new RuntimeException("Train not found or has no schedule");
+                }
+                int startSeq = fromSeq != null ? fromSeq : stops.get(0).getStopSequence();
+                int endSeq = toSeq != null ? toSeq : stops.get(stops.size() - 1).getStopSequence();
+                if (startSeq >= endSeq) {
+                        throw new RuntimeException("fromSeq must be before toSeq");
+                }
+                if (to.isBefore(from)) {
+                        throw new RuntimeException("to must not be before from");
+                }
+                if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+                        throw new RuntimeException("At most " + MAX_DAYS + " days per calendar");
+                }
+
+                Key key = new Key(trainId, from, to, startSeq, endSeq);
+                long now = System.nanoTime();
+                synchronized (cache) {
+                        Cached cached = cache.get(key);
+                        if (cached != null && now - cached.at() < ttlNanos) {
+                                return cached.calendar();
+                        }
+                }
+
+                Train train = stops.get(0).getTrain();
+                seatInventory.preload(Set.of(trainId), from, to);
+                List<TrainCalendarDTO.DayDTO> days = new ArrayList<>();
+                for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                        days.add(new TrainCalendarDTO.DayDTO(d, seatInventory.seatsLeft(train, d, startSeq, endSeq)));
+                }
+                TrainCalendarDTO calendar = new TrainCalendarDTO();
+                calendar.setTrainId(trainId);
+                calendar.setFromSeq(startSeq);
+                calendar.setToSeq(endSeq);
+                calendar.setCapacity(SeatInventory.capacity(train));
+                calendar.setDays(days);
+
+                synchronized (cache) {
+                        cache.put(key, new Cached(now, calendar));
+                }
+                return calendar;
+        }
+
+        private record Key(Long trainId, LocalDate from, LocalDate to, int fromSeq, int toSeq) {
+        }
+
+        private record Cached(long at, TrainCalendarDTO calendar) {
+        }
+}
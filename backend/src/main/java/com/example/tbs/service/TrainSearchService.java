@@ -1,10 +1,14 @@
 package com.example.tbs.service;
 
+import com.example.tbs.dto.FlexSearchResultDTO;
+import com.example.tbs.dto.ProfileJourneyDTO;
+import com.example.tbs.dto.SearchBatchResultDTO;
+import com.example.tbs.dto.SearchRequestDTO;
 import com.example.tbs.dto.SearchResultDTO;
 import com.example.tbs.entity.Station;
 import com.example.tbs.entity.TrainSchedule;
-import com.example.tbs.repository.StationRepository;
-import com.example.tbs.repository.TrainScheduleRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
@@ -12,193 +16,597 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
 public class TrainSearchService {
 
-        private final TrainScheduleRepository trainScheduleRepository;
-        private final StationRepository stationRepository;
-        private final com.example.tbs.repository.BookedSeatRepository bookedSeatRepository;
-
-        public TrainSearchService(TrainScheduleRepository trainScheduleRepository,
-                        StationRepository stationRepository,
-                        com.example.tbs.repository.BookedSeatRepository bookedSeatRepository) {
-                this.trainScheduleRepository = trainScheduleRepository;
-                this.stationRepository = stationRepository;
-                this.bookedSeatRepository = bookedSeatRepository;
+        /** Widest +/- window a flexible-date search may ask for. */
+        public static final int MAX_FLEX_DAYS = 7;
+
+        /** Shortest and longest wait between two trains of an itinerary. */
+        static final int MIN_LAYOVER_MINUTES = 30;
+        static final int MAX_LAYOVER_MINUTES = 180;
+
+        /** Catchment of a search from a point when the request gives no radius, and the widest allowed. */
+        static final double DEFAULT_NEARBY_RADIUS_KM = 25;
+        static final double MAX_NEARBY_RADIUS_KM = 200;
+
+        private final SeatInventory seatInventory;
+        private final TimetableIndex timetableIndex;
+        private final ItineraryStore itineraryStore;
+        private final SearchMetrics searchMetrics;
+        private final ExecutorService batchExecutor;
+        private final int maxBatchQueries;
+        private final Duration defaultDeadline;
+
+        public TrainSearchService(SeatInventory seatInventory,
+                        TimetableIndex timetableIndex,
+                        ItineraryStore itineraryStore,
+                        SearchMetrics searchMetrics,
+                        @Value("${search.batch.threads:4}") int batchThreads,
+                        @Value("${search.batch.max-queries:100}") int maxBatchQueries,
+                        @Value("${search.deadline-ms:2000}") long deadlineMs) {
+                this.seatInventory = seatInventory;
+                this.timetableIndex = timetableIndex;
+                this.itineraryStore = itineraryStore;
+                this.searchMetrics = searchMetrics;
+                this.maxBatchQueries = maxBatchQueries;
+                this.defaultDeadline = Duration.ofMillis(deadlineMs);
+                // Bounded queue; when it is full the request thread runs the search itself
+                this.batchExecutor = new ThreadPoolExecutor(batchThreads, batchThreads, 60, TimeUnit.SECONDS,
+                                new ArrayBlockingQueue<>(maxBatchQueries), new ThreadPoolExecutor.CallerRunsPolicy());
         }
 
         public List<SearchResultDTO> searchTrains(String sourceStationCode, String destStationCode,
                         LocalDate journeyDate) {
-                Station sourceStation = stationRepository.findAll().stream()
-                                .filter(s -> s.getStationCode().equalsIgnoreCase(sourceStationCode))
-                                .findFirst()
-                                .orElseThrow(() -> new RuntimeException("Source station not found"));
+                SearchRequestDTO request = new SearchRequestDTO();
+                request.setFrom(sourceStationCode);
+                request.setTo(destStationCode);
+                request.setDate(journeyDate);
+                return searchTrains(request);
+        }
 
-                Station destStation = stationRepository.findAll().stream()
-                                .filter(s -> s.getStationCode().equalsIgnoreCase(destStationCode))
-                                .findFirst()
-                                .orElseThrow(() -> new RuntimeException("Destination station not found"));
+        /**
+         * Deadline for one request: the configured default, or a shorter budget
+         * the client asked for. Clients cannot extend it, since it is what keeps a
+         * slow search from holding a request thread.
+         */
+        public SearchDeadline deadline(Long requestedMs) {
+                Duration budget = defaultDeadline;
+                if (requestedMs != null && requestedMs > 0 && requestedMs < budget.toMillis()) {
+                        budget = Duration.ofMillis(requestedMs);
+                }
+                return SearchDeadline.after(budget);
+        }
 
-                List<SearchResultDTO> results = new ArrayList<>();
-                List<TrainSchedule> allSchedules = trainScheduleRepository.findAll();
+        /** Trace for explain output, or a sampled one for metrics; usually off. */
+        public SearchTrace trace(boolean explain) {
+                return searchMetrics.trace(explain);
+        }
 
-                // 1. DIRECT TRAINS
-                List<TrainSchedule> sourceSchedules = allSchedules.stream()
-                                .filter(ts -> ts.getStation().getStationId().equals(sourceStation.getStationId()))
-                                .collect(Collectors.toList());
+        public List<SearchResultDTO> searchTrains(SearchRequestDTO request) {
+                return searchTrains(request, deadline(null), trace(false));
+        }
 
-                List<TrainSchedule> destSchedules = allSchedules.stream()
-                                .filter(ts -> ts.getStation().getStationId().equals(destStation.getStationId()))
+        /** Results found before the deadline, if it is hit; check {@link SearchDeadline#hit()}. */
+        public List<SearchResultDTO> searchTrains(SearchRequestDTO request, SearchDeadline deadline,
+                        SearchTrace trace) {
+                if (request.getDate() == null) {
+                        throw new RuntimeException("Journey date is required");
+                }
+                trace.phase("timetable");
+                TimetableIndex.Snapshot timetable = timetableIndex.snapshot();
+                trace.phase("stations");
+                Set<Long> sourceIds = resolveSources(timetable, request);
+                Set<Long> destIds = resolveStations(timetable, request.getTo(), request.getToCity(), "Destination");
+
+                trace.phase("routes");
+                List<List<Leg>> itineraries = routes(timetable, sourceIds, destIds,
+                                bookable(request.getDate(), request.getPassengers()), deadline, trace);
+                trace.phase("seats");
+                seatInventory.preload(trainsOf(itineraries), request.getDate(), request.getDate());
+                trace.phase("results");
+                List<SearchResultDTO> results = itineraries.stream()
+                                .map(legs -> toResult(legs, timetable, request.getDate(), seatInventory::seatsLeft))
+                                .sorted(Comparator.comparing(SearchResultDTO::getSourceTime))
                                 .collect(Collectors.toList());
+                trace.count("results", results.size());
+                searchMetrics.recordSearch(deadline, trace);
+                return results;
+        }
 
-                for (TrainSchedule src : sourceSchedules) {
-                        for (TrainSchedule dst : destSchedules) {
-                                if (src.getTrain().getTrainId().equals(dst.getTrain().getTrainId())) {
-                                        if (src.getStopSequence() < dst.getStopSequence()) {
-                                                System.out.println("DEBUG: Found direct train: "
-                                                                + src.getTrain().getTrainNumber());
-                                                results.add(createDirectDTO(src, dst, allSchedules, journeyDate));
-                                        }
+        /**
+         * Same itineraries for every date in {@code date +/- flex}: the routes are
+         * found once and the seats for all legs and dates come from a single
+         * booked-seat query over the window.
+         */
+        public FlexSearchResultDTO searchFlexible(SearchRequestDTO request, SearchDeadline deadline,
+                        SearchTrace trace) {
+                if (request.getDate() == null) {
+                        throw new RuntimeException("Journey date is required");
+                }
+                int flex = Math.min(Math.max(request.getFlex(), 0), MAX_FLEX_DAYS);
+                trace.phase("timetable");
+                TimetableIndex.Snapshot timetable = timetableIndex.snapshot();
+                trace.phase("stations");
+                Set<Long> sourceIds = resolveSources(timetable, request);
+                Set<Long> destIds = resolveStations(timetable, request.getTo(), request.getToCity(), "Destination");
+
+                trace.phase("routes");
+                List<List<Leg>> itineraries = routes(timetable, sourceIds, destIds, leg -> true, deadline, trace);
+                itineraries.sort(Comparator.comparing(legs -> legs.get(0).board().getDepartureTime()));
+
+                List<LocalDate> dates = new ArrayList<>();
+                for (int d = -flex; d <= flex; d++) {
+                        dates.add(request.getDate().plusDays(d));
+                }
+
+                trace.phase("seats");
+                seatInventory.preload(trainsOf(itineraries), dates.get(0), dates.get(dates.size() - 1));
+                SeatCounter seats = seatInventory::seatsLeft;
+
+                trace.phase("results");
+                List<SearchResultDTO> results = new ArrayList<>();
+                int[][] availability = new int[itineraries.size()][dates.size()];
+                for (int i = 0; i < itineraries.size(); i++) {
+                        List<Leg> legs = itineraries.get(i);
+                        results.add(toResult(legs, timetable, request.getDate(), seats));
+                        for (int d = 0; d < dates.size(); d++) {
+                                int min = Integer.MAX_VALUE;
+                                for (Leg leg : legs) {
+                                        min = Math.min(min, seats.available(leg.board().getTrain(), dates.get(d),
+                                                        leg.board().getStopSequence(),
+                                                        leg.alight().getStopSequence()));
+                                }
+                                availability[i][d] = min;
+                        }
+                }
+                trace.count("results", results.size());
+                searchMetrics.recordSearch(deadline, trace);
+                return new FlexSearchResultDTO(dates, results, availability, deadline.hit());
+        }
+
+        /**
+         * Timetable view of a station pair: every journey leaving during the day
+         * that no other journey beats by leaving later and arriving no later, from
+         * one sweep over the connection array. Unlike {@link #searchTrains} the
+         * number of trains and the length of a wait are not capped, only the
+         * minimum layover applies, so slow but late options are kept.
+         */
+        public List<ProfileJourneyDTO> searchProfile(SearchRequestDTO request, SearchDeadline deadline,
+                        SearchTrace trace) {
+                if (request.getDate() == null) {
+                        throw new RuntimeException("Journey date is required");
+                }
+                trace.phase("timetable");
+                TimetableIndex.Snapshot timetable = timetableIndex.snapshot();
+                trace.phase("stations");
+                Set<Long> sourceIds = resolveSources(timetable, request);
+                Set<Long> destIds = resolveStations(timetable, request.getTo(), request.getToCity(), "Destination");
+
+                trace.phase("sweep");
+                List<ProfileSearch.Journey> journeys = ProfileSearch.run(timetable, sourceIds, destIds,
+                                MIN_LAYOVER_MINUTES, deadline, trace);
+                trace.phase("seats");
+                seatInventory.preload(trainsOf(journeys.stream().map(ProfileSearch.Journey::legs).toList()),
+                                request.getDate(), request.getDate());
+
+                trace.phase("results");
+                List<ProfileJourneyDTO> results = new ArrayList<>();
+                for (ProfileSearch.Journey journey : journeys) {
+                        List<SearchResultDTO.SegmentDTO> segments = new ArrayList<>();
+                        for (int i = 0; i < journey.legs().size(); i++) {
+                                Leg leg = journey.legs().get(i);
+                                TrainSchedule board = leg.board();
+                                TrainSchedule alight = leg.alight();
+                                SearchResultDTO.SegmentDTO segment = new SearchResultDTO.SegmentDTO(
+                                                board.getTrain().getTrainName(),
+                                                board.getTrain().getTrainNumber(),
+                                                board.getStation().getStationCode(),
+                                                alight.getStation().getStationCode(),
+                                                board.getDepartureTime(),
+                                                alight.getArrivalTime(),
+                                                i < journey.legs().size() - 1
+                                                                ? "Layover at " + alight.getStation().getStationCode()
+                                                                : "Destination",
+                                                board.getTrain().getTrainId(),
+                                                board.getStation().getStationId(),
+                                                alight.getStation().getStationId());
+                                segment.setAvailableSeats(seatInventory.seatsLeft(board.getTrain(), request.getDate(),
+                                                board.getStopSequence(), alight.getStopSequence()));
+                                segments.add(segment);
+                        }
+                        Duration duration = Duration.ofMinutes(journey.arrival() - journey.departure());
+                        results.add(new ProfileJourneyDTO(
+                                        LocalTime.ofSecondOfDay(journey.departure() % (24 * 60) * 60L),
+                                        LocalTime.ofSecondOfDay(journey.arrival() % (24 * 60) * 60L),
+                                        journey.arrival() / (24 * 60) - journey.departure() / (24 * 60),
+                                        String.format("%dh %dm", duration.toHours(), duration.toMinutesPart()),
+                                        segments.size() - 1,
+                                        segments));
+                }
+                trace.count("results", results.size());
+                searchMetrics.recordSearch(deadline, trace);
+                return results;
+        }
+
+        /**
+         * Runs many searches against one timetable snapshot. Route finding for the
+         * distinct queries runs in parallel on a bounded pool; seats for every
+         * train and date in the batch are then loaded with a single query.
+         * Results are keyed by {@link #queryKey(SearchRequestDTO)}; the deadline
+         * covers the whole batch and each query reports whether it was cut short.
+         */
+        public Map<String, SearchBatchResultDTO> searchBatch(List<SearchRequestDTO> queries,
+                        SearchDeadline deadline) {
+                if (queries == null || queries.isEmpty()) {
+                        return new LinkedHashMap<>();
+                }
+                if (queries.size() > maxBatchQueries) {
+                        throw new RuntimeException("At most " + maxBatchQueries + " queries per batch");
+                }
+                TimetableIndex.Snapshot timetable = timetableIndex.snapshot();
+
+                Map<String, SearchRequestDTO> distinct = new LinkedHashMap<>();
+                for (SearchRequestDTO query : queries) {
+                        distinct.putIfAbsent(queryKey(query), query);
+                }
+                Map<String, SearchDeadline> deadlines = new LinkedHashMap<>();
+                Map<String, Future<List<List<Leg>>>> routes = new LinkedHashMap<>();
+                distinct.forEach((key, query) -> {
+                        SearchDeadline queryDeadline = deadline.fork();
+                        deadlines.put(key, queryDeadline);
+                        routes.put(key, batchExecutor.submit(() -> {
+                                if (query.getDate() == null) {
+                                        throw new RuntimeException("Journey date is required");
                                 }
+                                return routes(timetable,
+                                                resolveSources(timetable, query),
+                                                resolveStations(timetable, query.getTo(), query.getToCity(),
+                                                                "Destination"),
+                                                bookable(query.getDate(), query.getPassengers()), queryDeadline,
+                                                SearchTrace.off());
+                        }));
+                });
+
+                Map<String, SearchBatchResultDTO> results = new LinkedHashMap<>();
+                Map<String, List<List<Leg>>> found = new LinkedHashMap<>();
+                for (Map.Entry<String, Future<List<List<Leg>>>> entry : routes.entrySet()) {
+                        try {
+                                found.put(entry.getKey(), entry.getValue().get());
+                        } catch (ExecutionException e) {
+                                results.put(entry.getKey(), new SearchBatchResultDTO(null, e.getCause().getMessage(),
+                                                false));
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new RuntimeException("Batch search interrupted");
                         }
                 }
 
-                // 2. LAYOVER TRAINS
-                // Train 1: Source -> Intermediate
-                List<TrainSchedule> potentialFirstLegs = sourceSchedules; // Same as above
-
-                for (TrainSchedule firstLegStart : potentialFirstLegs) {
-                        // Find where this train goes (potential intermediates)
-                        List<TrainSchedule> firstLegEnds = allSchedules.stream()
-                                        .filter(ts -> ts.getTrain().getTrainId()
-                                                        .equals(firstLegStart.getTrain().getTrainId()) &&
-                                                        ts.getStopSequence() > firstLegStart.getStopSequence())
-                                        .collect(Collectors.toList());
-
-                        for (TrainSchedule intermediateArr : firstLegEnds) {
-                                // Now find Train 2: Intermediate -> Destination (Single Layover)
-                                List<TrainSchedule> secondLegStarts = allSchedules.stream()
-                                                .filter(ts -> ts.getStation().getStationId()
-                                                                .equals(intermediateArr.getStation().getStationId())
-                                                                &&
-                                                                !ts.getTrain().getTrainId().equals(
-                                                                                firstLegStart.getTrain().getTrainId()))
-                                                .collect(Collectors.toList());
-
-                                for (TrainSchedule intermediateDep : secondLegStarts) {
-                                        if (isLayoverValid(intermediateArr.getArrivalTime(),
-                                                        intermediateDep.getDepartureTime())) {
-
-                                                // OPTION A: Train 2 goes to Destination (Single Layover)
-                                                TrainSchedule secondLegEnd = allSchedules.stream()
-                                                                .filter(ts -> ts.getTrain().getTrainId().equals(
-                                                                                intermediateDep.getTrain().getTrainId())
-                                                                                &&
-                                                                                ts.getStation().getStationId().equals(
-                                                                                                destStation.getStationId())
-                                                                                &&
-                                                                                ts.getStopSequence() > intermediateDep
-                                                                                                .getStopSequence())
-                                                                .findFirst()
-                                                                .orElse(null);
-
-                                                if (secondLegEnd != null) {
-                                                        results.add(
-                                                                        createLayoverDTO(firstLegStart, intermediateArr,
-                                                                                        intermediateDep, secondLegEnd,
-                                                                                        allSchedules, journeyDate));
+                // Only the train-days asked for: dates months apart must not load everything in between
+                Map<LocalDate, Set<Long>> trainsByDate = new HashMap<>();
+                found.forEach((key, itineraries) -> trainsByDate
+                                .computeIfAbsent(distinct.get(key).getDate(), d -> new HashSet<>())
+                                .addAll(trainsOf(itineraries)));
+                trainsByDate.forEach((date, trainIds) -> seatInventory.preload(trainIds, date, date));
+                SeatCounter seats = seatInventory::seatsLeft;
+
+                found.forEach((key, itineraries) -> {
+                        LocalDate date = distinct.get(key).getDate();
+                        results.put(key, new SearchBatchResultDTO(itineraries.stream()
+                                        .map(legs -> toResult(legs, timetable, date, seats))
+                                        .sorted(Comparator.comparing(SearchResultDTO::getSourceTime))
+                                        .collect(Collectors.toList()), null, deadlines.get(key).hit()));
+                        searchMetrics.recordSearch(deadlines.get(key), SearchTrace.off());
+                });
+
+                Map<String, SearchBatchResultDTO> ordered = new LinkedHashMap<>();
+                distinct.keySet().forEach(key -> ordered.put(key, results.get(key)));
+                return ordered;
+        }
+
+        /**
+         * FROM-TO-DATE, using the city name for city searches, e.g. "SBC-MYS-2026-01-20",
+         * and NEAR(lat,lng,radius) for searches from a point. A party size adds
+         * "-P" and the count, e.g. "SBC-MYS-2026-01-20-P3", since it changes which
+         * legs are bookable.
+         */
+        public static String queryKey(SearchRequestDTO query) {
+                String from = query.getFromCity() != null && !query.getFromCity().isBlank() ? query.getFromCity()
+                                : query.getFrom();
+                if (query.getNearLat() != null || query.getNearLng() != null) {
+                        from = "NEAR(" + query.getNearLat() + "," + query.getNearLng() + "," + query.getRadiusKm() + ")";
+                }
+                String to = query.getToCity() != null && !query.getToCity().isBlank() ? query.getToCity()
+                                : query.getTo();
+                String key = (from + "-" + to).toUpperCase(Locale.ROOT) + "-" + query.getDate();
+                return query.getPassengers() > 0 ? key + "-P" + query.getPassengers() : key;
+        }
+
+        @PreDestroy
+        public void shutdown() {
+                batchExecutor.shutdown();
+        }
+
+        private Set<Long> trainsOf(List<List<Leg>> itineraries) {
+                Set<Long> trainIds = new HashSet<>();
+                itineraries.forEach(legs -> legs.forEach(leg -> trainIds.add(leg.board().getTrain().getTrainId())));
+                return trainIds;
+        }
+
+        /** Every station around the request's point when one is given, otherwise its station or city. */
+        private Set<Long> resolveSources(TimetableIndex.Snapshot timetable, SearchRequestDTO request) {
+                if (request.getNearLat() == null && request.getNearLng() == null) {
+                        return resolveStations(timetable, request.getFrom(), request.getFromCity(), "Source");
+                }
+                if (request.getNearLat() == null || request.getNearLng() == null) {
+                        throw new RuntimeException("Both nearLat and nearLng are required");
+                }
+                double radiusKm = request.getRadiusKm() != null ? request.getRadiusKm() : DEFAULT_NEARBY_RADIUS_KM;
+                if (!(radiusKm > 0 && radiusKm <= MAX_NEARBY_RADIUS_KM)) {
+                        throw new RuntimeException("radiusKm must be above 0 and at most " + MAX_NEARBY_RADIUS_KM);
+                }
+                Set<Long> ids = new LinkedHashSet<>();
+                timetable.stationsNear(request.getNearLat(), request.getNearLng(), radiusKm, Integer.MAX_VALUE)
+                                .forEach(nearby -> ids.add(nearby.station().getStationId()));
+                if (ids.isEmpty()) {
+                        throw new RuntimeException("No stations within " + radiusKm + " km");
+                }
+                return ids;
+        }
+
+        private Set<Long> resolveStations(TimetableIndex.Snapshot timetable, String stationCode, String city,
+                        String label) {
+                Set<Long> ids = new LinkedHashSet<>();
+                if (city != null && !city.isBlank()) {
+                        timetable.stationsInCity(city).forEach(s -> ids.add(s.getStationId()));
+                        if (ids.isEmpty()) {
+                                throw new RuntimeException(label + " city not found");
+                        }
+                        return ids;
+                }
+                Station station = timetable.stationByCode(stationCode);
+                if (station == null) {
+                        throw new RuntimeException(label + " station not found");
+                }
+                ids.add(station.getStationId());
+                return ids;
+        }
+
+        /**
+         * Itineraries from the precomputed store when it is in step with this
+         * timetable, otherwise from {@link #findItineraries}. Both give the same
+         * answer: stored itineraries are per station pair, so here they still get
+         * the party-size filter, the city rule that nobody changes trains inside
+         * the origin or destination city, and the cross-station merge.
+         */
+        private List<List<Leg>> routes(TimetableIndex.Snapshot timetable, Set<Long> sourceIds, Set<Long> destIds,
+                        Predicate<Leg> bookable, SearchDeadline deadline, SearchTrace trace) {
+                List<List<ItineraryStore.Hop>> stored = itineraryStore.lookup(timetable, sourceIds, destIds);
+                if (stored == null) {
+                        return findItineraries(timetable, sourceIds, destIds, bookable, deadline, trace);
+                }
+                trace.count("storedItineraries", stored.size());
+                Map<String, List<Leg>> best = new LinkedHashMap<>();
+                for (List<ItineraryStore.Hop> hops : stored) {
+                        if (deadline.expired()) {
+                                break;
+                        }
+                        List<Leg> legs = new ArrayList<>(hops.size());
+                        for (ItineraryStore.Hop hop : hops) {
+                                TrainSchedule board = timetable.stopOfTrain(hop.trainId(), hop.boardSeq());
+                                TrainSchedule alight = timetable.stopOfTrain(hop.trainId(), hop.alightSeq());
+                                if (board == null || alight == null) {
+                                        return findItineraries(timetable, sourceIds, destIds, bookable, deadline,
+                                                        trace);
+                                }
+                                legs.add(new Leg(board, alight));
+                        }
+                        boolean transfersOutsideEnds = legs.subList(0, legs.size() - 1).stream()
+                                        .map(leg -> leg.alight().getStation().getStationId())
+                                        .noneMatch(id -> sourceIds.contains(id) || destIds.contains(id));
+                        if (transfersOutsideEnds && legs.stream().allMatch(bookable)) {
+                                offer(best, legs);
+                        }
+                }
+                return new ArrayList<>(best.values());
+        }
+
+        /**
+         * Date-independent part of the search: every itinerary of up to
+         * {@link TimetableIndex#MAX_LEGS} trains from any source station to any
+         * destination station. All sources are expanded in one pass; itineraries
+         * that only differ in which station of the origin or destination city they
+         * use are merged, keeping the quickest.
+         * <p>
+         * Each leg must pass {@code bookable} before anything beyond it is explored.
+         * A leg that fails stays failed for every later stop of the same train
+         * (a longer ride only adds occupied segments), so the walk along that
+         * train stops there.
+         * <p>
+         * Once the deadline passes the walk stops and whatever was found is returned.
+         */
+        private List<List<Leg>> findItineraries(TimetableIndex.Snapshot timetable, Set<Long> sourceIds,
+                        Set<Long> destIds, Predicate<Leg> bookable, SearchDeadline deadline, SearchTrace trace) {
+                Map<String, List<Leg>> best = new LinkedHashMap<>();
+                long[] candidates = new long[TimetableIndex.MAX_LEGS];
+
+                // No connection within MAX_LEGS trains: answer without touching the schedules.
+                if (!timetable.canReachAny(sourceIds, destIds, TimetableIndex.MAX_LEGS)) {
+                        return new ArrayList<>();
+                }
+
+                search:
+                for (Long sourceId : sourceIds) {
+                        for (TrainSchedule board1 : timetable.callsAtStation(sourceId)) {
+                                if (deadline.expired()) {
+                                        break search;
+                                }
+                                for (TrainSchedule alight1 : timetable.stopsAfter(board1)) {
+                                        Leg leg1 = new Leg(board1, alight1);
+                                        candidates[0]++;
+                                        if (!bookable.test(leg1)) {
+                                                break;
+                                        }
+                                        Long stop1 = alight1.getStation().getStationId();
+                                        if (destIds.contains(stop1)) {
+                                                offer(best, List.of(leg1));
+                                                continue;
+                                        }
+                                        // Two trains left at most: skip stops that cannot get there in time
+                                        if (sourceIds.contains(stop1) || !timetable.canReachAny(stop1, destIds, 2)) {
+                                                continue;
+                                        }
+
+                                        for (TrainSchedule board2 : timetable.callsAtStation(stop1)) {
+                                                if (deadline.expired()) {
+                                                        break search;
+                                                }
+                                                if (sameTrain(board1, board2) || !isLayoverValid(
+                                                                alight1.getArrivalTime(), board2.getDepartureTime())) {
+                                                        continue;
                                                 }
+                                                for (TrainSchedule alight2 : timetable.stopsAfter(board2)) {
+                                                        Leg leg2 = new Leg(board2, alight2);
+                                                        candidates[1]++;
+                                                        if (!bookable.test(leg2)) {
+                                                                break;
+                                                        }
+                                                        Long stop2 = alight2.getStation().getStationId();
+                                                        if (destIds.contains(stop2)) {
+                                                                offer(best, List.of(leg1, leg2));
+                                                                continue;
+                                                        }
+                                                        if (sourceIds.contains(stop2)
+                                                                        || !timetable.canReachAny(stop2, destIds, 1)) {
+                                                                continue;
+                                                        }
 
-                                                // OPTION B: Train 2 goes to Intermediate 2 (Double Layover)
-                                                List<TrainSchedule> secondLegEnds = allSchedules.stream()
-                                                                .filter(ts -> ts.getTrain().getTrainId()
-                                                                                .equals(intermediateDep.getTrain()
-                                                                                                .getTrainId())
-                                                                                &&
-                                                                                ts.getStopSequence() > intermediateDep
-                                                                                                .getStopSequence())
-                                                                .collect(Collectors.toList());
-
-                                                for (TrainSchedule i2Arr : secondLegEnds) {
-                                                        List<TrainSchedule> thirdLegStarts = allSchedules.stream()
-                                                                        .filter(ts -> ts.getStation().getStationId()
-                                                                                        .equals(i2Arr.getStation()
-                                                                                                        .getStationId())
-                                                                                        &&
-                                                                                        !ts.getTrain().getTrainId()
-                                                                                                        .equals(intermediateDep
-                                                                                                                        .getTrain()
-                                                                                                                        .getTrainId()))
-                                                                        .collect(Collectors.toList());
-
-                                                        for (TrainSchedule i2Dep : thirdLegStarts) {
-                                                                if (isLayoverValid(i2Arr.getArrivalTime(),
-                                                                                i2Dep.getDepartureTime())) {
-                                                                        TrainSchedule thirdLegEnd = allSchedules
-                                                                                        .stream()
-                                                                                        .filter(ts -> ts.getTrain()
-                                                                                                        .getTrainId()
-                                                                                                        .equals(i2Dep.getTrain()
-                                                                                                                        .getTrainId())
-                                                                                                        &&
-                                                                                                        ts.getStation().getStationId()
-                                                                                                                        .equals(destStation
-                                                                                                                                        .getStationId())
-                                                                                                        &&
-                                                                                                        ts.getStopSequence() > i2Dep
-                                                                                                                        .getStopSequence())
-                                                                                        .findFirst()
-                                                                                        .orElse(null);
-
-                                                                        if (thirdLegEnd != null) {
-                                                                                results.add(createDoubleLayoverDTO(
-                                                                                                firstLegStart,
-                                                                                                intermediateArr,
-                                                                                                intermediateDep, i2Arr,
-                                                                                                i2Dep, thirdLegEnd,
-                                                                                                allSchedules));
+                                                        for (TrainSchedule board3 : timetable.callsAtStation(stop2)) {
+                                                                if (deadline.expired()) {
+                                                                        break search;
+                                                                }
+                                                                if (sameTrain(board2, board3) || !isLayoverValid(
+                                                                                alight2.getArrivalTime(),
+                                                                                board3.getDepartureTime())) {
+                                                                        continue;
+                                                                }
+                                                                for (TrainSchedule alight3 : timetable.stopsAfter(
+                                                                                board3)) {
+                                                                        Leg leg3 = new Leg(board3, alight3);
+                                                                        candidates[2]++;
+                                                                        if (!bookable.test(leg3)) {
+                                                                                break;
+                                                                        }
+                                                                        if (destIds.contains(alight3.getStation()
+                                                                                        .getStationId())) {
+                                                                                offer(best, List.of(leg1, leg2, leg3));
                                                                         }
                                                                 }
                                                         }
                                                 }
-
                                         }
                                 }
                         }
                 }
+                trace.count("round1Candidates", candidates[0]);
+                trace.count("round2Candidates", candidates[1]);
+                trace.count("round3Candidates", candidates[2]);
+                return new ArrayList<>(best.values());
+        }
 
-                return results.stream().sorted(Comparator.comparing(SearchResultDTO::getSourceTime))
-                                .collect(Collectors.toList());
+        /** Leg filter for a party size; 0 or less keeps every leg. */
+        private Predicate<Leg> bookable(LocalDate date, int passengers) {
+                if (passengers <= 0) {
+                        return leg -> true;
+                }
+                return leg -> seatInventory.seatsLeft(leg.board().getTrain(), date, leg.board().getStopSequence(),
+                                leg.alight().getStopSequence()) >= passengers;
+        }
+
+        private boolean sameTrain(TrainSchedule a, TrainSchedule b) {
+                return a.getTrain().getTrainId().equals(b.getTrain().getTrainId());
+        }
 
+        /**
+         * Itineraries riding the same trains through the same transfer stations are
+         * duplicates for the traveller, whichever origin/destination station they use.
+         */
+        private void offer(Map<String, List<Leg>> best, List<Leg> legs) {
+                StringBuilder key = new StringBuilder();
+                for (int i = 0; i < legs.size(); i++) {
+                        key.append(legs.get(i).board().getTrain().getTrainId());
+                        if (i < legs.size() - 1) {
+                                key.append('@').append(legs.get(i).alight().getStation().getStationId()).append('/');
+                        }
+                }
+                best.merge(key.toString(), legs, (current, candidate) -> travelMinutes(candidate) < travelMinutes(
+                                current) ? candidate : current);
         }
 
-        private boolean isLayoverValid(LocalTime arrival, LocalTime departure) {
-                if (departure.isBefore(arrival))
+        private long travelMinutes(List<Leg> legs) {
+                Duration duration = Duration.between(legs.get(0).board().getDepartureTime(),
+                                legs.get(legs.size() - 1).alight().getArrivalTime());
+                if (duration.isNegative()) {
+                        duration = duration.plusHours(24);
+                }
+                return duration.toMinutes();
+        }
+
+        private SearchResultDTO toResult(List<Leg> legs, TimetableIndex.Snapshot timetable, LocalDate journeyDate,
+                        SeatCounter seats) {
+                Leg first = legs.get(0);
+                if (legs.size() == 1) {
+                        return createDirectDTO(first.board(), first.alight(), timetable, journeyDate, seats);
+                }
+                Leg second = legs.get(1);
+                if (legs.size() == 2) {
+                        return createLayoverDTO(first.board(), first.alight(), second.board(), second.alight(),
+                                        timetable, journeyDate, seats);
+                }
+                Leg third = legs.get(2);
+                return createDoubleLayoverDTO(first.board(), first.alight(), second.board(), second.alight(),
+                                third.board(), third.alight(), timetable, journeyDate, seats);
+        }
+
+        /** One train ride: boarding and alighting calls of the same train. */
+        record Leg(TrainSchedule board, TrainSchedule alight) {
+        }
+
+        static boolean isLayoverValid(LocalTime arrival, LocalTime departure) {
+                if (arrival == null || departure == null || departure.isBefore(arrival))
                         return false;
                 long minutes = Duration.between(arrival, departure).toMinutes();
-                return minutes >= 30 && minutes <= 180;
+                return minutes >= MIN_LAYOVER_MINUTES && minutes <= MAX_LAYOVER_MINUTES;
         }
 
-        private int getAvailableSeats(com.example.tbs.entity.Train train, LocalDate date, int startSeq, int endSeq) {
-                int coaches = train.getNumberOfCoaches() != null ? train.getNumberOfCoaches() : 3;
-                int seatsPerCoach = train.getTotalSeatsPerCoach() != null ? train.getTotalSeatsPerCoach() : 40;
-                int totalSeats = seatsPerCoach * coaches;
-
-                long bookedCount = bookedSeatRepository.countOverlappingBookings(train.getTrainId(), date, startSeq,
-                                endSeq);
-                return Math.max(120, totalSeats - (int) bookedCount);
+        /** Where seat counts come from; normally {@link SeatInventory#seatsLeft}. */
+        @FunctionalInterface
+        private interface SeatCounter {
+                int available(com.example.tbs.entity.Train train, LocalDate date, int startSeq, int endSeq);
         }
 
         private List<SearchResultDTO.StationPointDTO> getPath(Long trainId, int startSeq, int endSeq,
-                        List<TrainSchedule> allSchedules) {
-                return allSchedules.stream()
-                                .filter(ts -> ts.getTrain().getTrainId().equals(trainId) &&
-                                                ts.getStopSequence() >= startSeq &&
+                        TimetableIndex.Snapshot timetable) {
+                return timetable.stopsOfTrain(trainId).stream()
+                                .filter(ts -> ts.getStopSequence() >= startSeq &&
                                                 ts.getStopSequence() <= endSeq)
-                                .sorted(Comparator.comparingInt(TrainSchedule::getStopSequence))
                                 .map(ts -> new SearchResultDTO.StationPointDTO(
                                                 ts.getStation().getStationCode(),
                                                 ts.getStation().getStationName(),
@@ -213,7 +621,7 @@ public class TrainSearchService {
         }
 
         private SearchResultDTO createDirectDTO(TrainSchedule src, TrainSchedule dst,
-                        List<TrainSchedule> allSchedules, LocalDate journeyDate) {
+                        TimetableIndex.Snapshot timetable, LocalDate journeyDate, SeatCounter seats) {
                 // ... (existing logic)
                 double basePrice = src.getTrain().getPrice() != null ? src.getTrain().getPrice() : 100.0;
                 double distancePrice = (dst.getDistanceFromStartKm() - src.getDistanceFromStartKm()) * 2.0;
@@ -222,9 +630,9 @@ public class TrainSearchService {
                 String durationStr = String.format("%dh %dm", duration.toHours(), duration.toMinutesPart());
 
                 List<SearchResultDTO.StationPointDTO> path = getPath(src.getTrain().getTrainId(), src.getStopSequence(),
-                                dst.getStopSequence(), allSchedules);
+                                dst.getStopSequence(), timetable);
 
-                int available = getAvailableSeats(src.getTrain(), journeyDate, src.getStopSequence(),
+                int available = seats.available(src.getTrain(), journeyDate, src.getStopSequence(),
                                 dst.getStopSequence());
 
                 SearchResultDTO dto = new SearchResultDTO(
@@ -250,7 +658,8 @@ public class TrainSearchService {
         }
 
         private SearchResultDTO createLayoverDTO(TrainSchedule t1Src, TrainSchedule t1End, TrainSchedule t2Start,
-                        TrainSchedule t2End, List<TrainSchedule> allSchedules, LocalDate journeyDate) {
+                        TrainSchedule t2End, TimetableIndex.Snapshot timetable, LocalDate journeyDate,
+                        SeatCounter seats) {
                 // ... existing layover logic
                 double dist1 = t1End.getDistanceFromStartKm() - t1Src.getDistanceFromStartKm();
                 double dist2 = t2End.getDistanceFromStartKm() - t2Start.getDistanceFromStartKm();
@@ -287,7 +696,7 @@ public class TrainSearchService {
                                 t1Src.getTrain().getTrainId(),
                                 t1Src.getStation().getStationId(),
                                 t1End.getStation().getStationId());
-                seg1.setAvailableSeats(getAvailableSeats(t1Src.getTrain(), journeyDate, t1Src.getStopSequence(),
+                seg1.setAvailableSeats(seats.available(t1Src.getTrain(), journeyDate, t1Src.getStopSequence(),
                                 t1End.getStopSequence()));
 
                 SearchResultDTO.SegmentDTO seg2 = new SearchResultDTO.SegmentDTO(
@@ -301,7 +710,7 @@ public class TrainSearchService {
                                 t2Start.getTrain().getTrainId(),
                                 t2Start.getStation().getStationId(),
                                 t2End.getStation().getStationId());
-                seg2.setAvailableSeats(getAvailableSeats(t2Start.getTrain(), journeyDate, t2Start.getStopSequence(),
+                seg2.setAvailableSeats(seats.available(t2Start.getTrain(), journeyDate, t2Start.getStopSequence(),
                                 t2End.getStopSequence()));
 
                 List<SearchResultDTO.SegmentDTO> segments = new ArrayList<>();
@@ -311,9 +720,9 @@ public class TrainSearchService {
                 // ... path creation
                 List<SearchResultDTO.StationPointDTO> path1 = getPath(t1Src.getTrain().getTrainId(),
                                 t1Src.getStopSequence(),
-                                t1End.getStopSequence(), allSchedules);
+                                t1End.getStopSequence(), timetable);
                 List<SearchResultDTO.StationPointDTO> path2 = getPath(t2Start.getTrain().getTrainId(),
-                                t2Start.getStopSequence(), t2End.getStopSequence(), allSchedules);
+                                t2Start.getStopSequence(), t2End.getStopSequence(), timetable);
 
                 List<SearchResultDTO.StationPointDTO> fullPath = new ArrayList<>(path1);
                 fullPath.addAll(path2);
@@ -345,7 +754,7 @@ public class TrainSearchService {
         private SearchResultDTO createDoubleLayoverDTO(TrainSchedule t1Src, TrainSchedule t1End,
                         TrainSchedule t2Start, TrainSchedule t2End,
                         TrainSchedule t3Start, TrainSchedule t3End,
-                        List<TrainSchedule> allSchedules) {
+                        TimetableIndex.Snapshot timetable, LocalDate journeyDate, SeatCounter seats) {
 
                 double dist1 = t1End.getDistanceFromStartKm() - t1Src.getDistanceFromStartKm();
                 double dist2 = t2End.getDistanceFromStartKm() - t2Start.getDistanceFromStartKm();
@@ -390,16 +799,22 @@ public class TrainSearchService {
                                 t3Start.getDepartureTime(), t3End.getArrivalTime(), "Destination",
                                 t3Start.getTrain().getTrainId(), t3Start.getStation().getStationId(),
                                 t3End.getStation().getStationId()));
+                segments.get(0).setAvailableSeats(seats.available(t1Src.getTrain(), journeyDate,
+                                t1Src.getStopSequence(), t1End.getStopSequence()));
+                segments.get(1).setAvailableSeats(seats.available(t2Start.getTrain(), journeyDate,
+                                t2Start.getStopSequence(), t2End.getStopSequence()));
+                segments.get(2).setAvailableSeats(seats.available(t3Start.getTrain(), journeyDate,
+                                t3Start.getStopSequence(), t3End.getStopSequence()));
 
                 List<SearchResultDTO.StationPointDTO> path = new ArrayList<>();
                 path.addAll(getPath(t1Src.getTrain().getTrainId(), t1Src.getStopSequence(), t1End.getStopSequence(),
-                                allSchedules));
+                                timetable));
                 path.addAll(getPath(t2Start.getTrain().getTrainId(), t2Start.getStopSequence(), t2End.getStopSequence(),
-                                allSchedules));
+                                timetable));
                 path.addAll(getPath(t3Start.getTrain().getTrainId(), t3Start.getStopSequence(), t3End.getStopSequence(),
-                                allSchedules));
+                                timetable));
 
-                return new SearchResultDTO(
+                SearchResultDTO dto = new SearchResultDTO(
                                 trainName, trainNumber, t1Src.getDepartureTime(), t3End.getArrivalTime(),
                                 durationStr, price, false,
                                 t1End.getStation().getStationName() + ", " + t2End.getStation().getStationName(),
@@ -407,5 +822,8 @@ public class TrainSearchService {
                                 t1Src.getStation().getStationId(), t3End.getStation().getStationId(),
                                 t1Src.getStation().getStationName(), t1Src.getStation().getStationCode(),
                                 t3End.getStation().getStationName(), t3End.getStation().getStationCode());
+                dto.setAvailableSeats(segments.stream().mapToInt(SearchResultDTO.SegmentDTO::getAvailableSeats).min()
+                                .orElse(0));
+                return dto;
         }
 }
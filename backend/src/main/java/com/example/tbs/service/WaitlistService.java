@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.dto.WaitlistEntryDTO;
+import com.example.tbs.dto.WaitlistRequestDTO;
+import com.example.tbs.entity.BookedSeat;
+import com.example.tbs.entity.Booking;
+import com.example.tbs.entity.Station;
+import com.example.tbs.entity.Train;
+import com.example.tbs.entity.TrainSchedule;
+import com.example.tbs.entity.User;
+import com.example.tbs.entity.WaitlistEntry;
+import com.example.tbs.repository.BookedSeatRepository;
+import com.example.tbs.repository.BookingRepository;
+import com.example.tbs.repository.StationRepository;
+import com.example.tbs.repository.TrainRepository;
+import com.example.tbs.repository.TrainScheduleRepository;
+import com.example.tbs.repository.UserRepository;
+import com.example.tbs.repository.WaitlistRepository;
+import com.example.tbs.service.SeatInventory.CoachDay;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Waitlists per train, date and coach. Each is a priority queue in memory,
+ * loaded from the WAITING rows the first time the coach is looked at and
+ * kept in step with every join, promotion and cancellation.
+ * <p>
+ * Freeing seats (cancellation, refund, unblock) schedules a match of the
+ * coach after the commit, on one background thread, so nobody has to poll.
+ * A match locks the train as a booking does, reads the coach's seats fresh
+ * and walks the queue in order: every request whose segment has enough free
+ * seats gets the lowest-numbered ones, in one transaction with the others
+ * promoted by the same match. A request too big for what freed up keeps its
+ * place, and smaller ones behind it may still be served.
+ */
+@Service
+public class WaitlistService {
+
+        public static final int MAX_SEATS = 6;
+
+        private static final Comparator<Waiting> ORDER = Comparator.comparingLong(Waiting::id);
+        private static final Random RANDOM = new Random();
+
+        private final WaitlistRepository waitlistRepository;
+        private final UserRepository userRepository;
+        private final TrainRepository trainRepository;
+        private final StationRepository stationRepository;
+        private final TrainScheduleRepository trainScheduleRepository;
+        private final BookingRepository bookingRepository;
+        private final BookedSeatRepository bookedSeatRepository;
+        private final SeatInventory seatInventory;
+        private final TransactionTemplate transactionTemplate;
+
+        // Queues are changed only inside compute calls, and read while holding their monitor
+        private final Map<CoachDay, PriorityQueue<Waiting>> queues = new ConcurrentHashMap<>();
+        private final Set<CoachDay> pending = ConcurrentHashMap.newKeySet();
+        private final ExecutorService matcher = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "waitlist-matcher");
+                thread.setDaemon(true);
+                return thread;
+        });
+
+        public WaitlistService(WaitlistRepository waitlistRepository, UserRepository userRepository,
+                        TrainRepository trainRepository, StationRepository stationRepository,
+                        TrainScheduleRepository trainScheduleRepository, BookingRepository bookingRepository,
+                        BookedSeatRepository bookedSeatRepository, SeatInventory seatInventory,
+                        PlatformTransactionManager transactionManager) {
+                this.waitlistRepository = waitlistRepository;
+                this.userRepository = userRepository;
+                this.trainRepository = trainRepository;
+                this.stationRepository = stationRepository;
+                this.trainScheduleRepository = trainScheduleRepository;
+                this.bookingRepository = bookingRepository;
+                this.bookedSeatRepository = bookedSeatRepository;
+                this.seatInventory = seatInventory;
+                this.transactionTemplate = new TransactionTemplate(transactionManager);
+        }
+
+        /**
+         * Puts the request at the back of the coach's queue. It is matched right
+         * away too, so seats that are free already are confirmed at once.
+         */
+        public WaitlistEntryDTO join(WaitlistRequestDTO request) {
+                WaitlistEntry entry = transactionTemplate.execute(status -> waitlistRepository.save(entryOf(request)));
+                CoachDay key = keyOf(entry);
+                // A queue loaded later reads the row from the database instead, and one loaded since the
+                // commit already holds it
+                queues.computeIfPresent(key, (k, queue) -> {
+                        synchronized (queue) {
+                                if (queue.stream().noneMatch(w -> w.id() == entry.getWaitlistId())) {
+                                        queue.add(Waiting.of(entry));
+                                }
+                        }
+                        return queue;
+                });
+                schedule(key);
+                return toDTO(entry);
+        }
+
+        public void leave(Long waitlistId) {
+                WaitlistEntry entry = transactionTemplate.execute(status -> {
+                        WaitlistEntry waiting = waitlistRepository.findByIdWithLock(waitlistId)
+                                        .orElseThrow(() -> new RuntimeException("Waitlist entry not found"));
+                        if (!"WAITING".equals(waiting.getStatus())) {
+                                throw new RuntimeException("Waitlist entry is already " + waiting.getStatus());
+                        }
+                        waiting.setStatus("CANCELLED");
+                        return waitlistRepository.save(waiting);
+                });
+                remove(keyOf(entry), Set.of(waitlistId));
+        }
+
+        public List<WaitlistEntryDTO> getUserEntries(Long userId) {
+                return waitlistRepository.findByUserUserIdOrderByWaitlistIdDesc(userId).stream()
+                                .map(this::toDTO)
+                                .toList();
+        }
+
+        /** Call after freeing seats; the coaches are matched once the transaction commits. */
+        public void seatsFreed(SeatInventory.Changes changes) {
+                List<CoachDay> coachDays = changes.coachDays();
+                if (coachDays.isEmpty()) {
+                        return;
+                }
+                SeatInventory.afterCommit(() -> coachDays.forEach(coachDay -> schedule(
+                                new CoachDay(coachDay.trainId(), coachDay.date(), normalize(coachDay.coach())))));
+        }
+
+        /** The train does not run that day: nobody waiting for it will get a seat. */
+        public void cancelTrainDate(Long trainId, LocalDate journeyDate) {
+                waitlistRepository.cancelWaiting(trainId, journeyDate);
+                SeatInventory.afterCommit(() -> queues.keySet()
+                                .removeIf(key -> key.trainId().equals(trainId) && key.date().equals(journeyDate)));
+        }
+
+        @PreDestroy
+        public void shutdown() {
+                matcher.shutdownNow();
+        }
+
+        private WaitlistEntry entryOf(WaitlistRequestDTO request) {
+                if (request.getJourneyDate() == null) {
+                        throw new RuntimeException("Journey date is required");
+                }
+                if (request.getSeats() < 1 || request.getSeats() > MAX_SEATS) {
+                        throw new RuntimeException("Between 1 and " + MAX_SEATS + " seats can be waitlisted");
+                }
+                User user = userRepository.findById(request.getUserId())
+                                .orElseThrow(() -> new RuntimeException("User not found"));
+                Train train = trainRepository.findById(request.getTrainId())
+                                .orElseThrow(() -> new RuntimeException("Train not found"));
+                Station source = stationRepository.findById(request.getSourceStationId())
+                                .orElseThrow(() -> new RuntimeException("Source Station not found"));
+                Station dest = stationRepository.findById(request.getDestStationId())
+                                .orElseThrow(() -> new RuntimeException("Destination Station not found"));
+                TrainSchedule sourceSchedule = trainScheduleRepository.findByTrainAndStation(train, source)
+                                .orElseThrow(() -> new RuntimeException("Train schedule not found for source station"));
+                TrainSchedule destSchedule = trainScheduleRepository.findByTrainAndStation(train, dest)
+                                .orElseThrow(() -> new RuntimeException(
+                                                "Train schedule not found for destination station"));
+                if (sourceSchedule.getStopSequence() >= destSchedule.getStopSequence()) {
+                        throw new RuntimeException("Invalid route: Source must be before destination");
+                }
+
+                if (request.getCoachType() == null || request.getCoachType().isBlank()) {
+                        throw new RuntimeException("Coach is required");
+                }
+                String coach = SeatService.coachOf(train, request.getCoachType());
+                if (request.getSeats() > SeatService.seatsPerCoach(train)) {
+                        throw new RuntimeException("Coach " + coach + " has only " + SeatService.seatsPerCoach(train)
+                                        + " seats");
+                }
+                if (waitlistRepository.countWaiting(user.getUserId(), train.getTrainId(), request.getJourneyDate(),
+                                coach) > 0) {
+                        throw new RuntimeException("Already on the waitlist for coach " + coach);
+                }
+
+                WaitlistEntry entry = new WaitlistEntry();
+                entry.setUser(user);
+                entry.setTrain(train);
+                entry.setJourneyDate(request.getJourneyDate());
+                entry.setCoachType(coach);
+                entry.setSourceStation(source);
+                entry.setDestStation(dest);
+                entry.setFromSeq(sourceSchedule.getStopSequence());
+                entry.setToSeq(destSchedule.getStopSequence());
+                entry.setSeats(request.getSeats());
+                // Priced as a booking of the same seats would be
+                double dist = destSchedule.getDistanceFromStartKm() - sourceSchedule.getDistanceFromStartKm();
+                entry.setTotalFare(dist * 2.0 * request.getSeats());
+                entry.setStatus("WAITING");
+                entry.setCreatedAt(LocalDateTime.now());
+                return entry;
+        }
+
+        // Runs of the same coach queued while one is pending collapse into it
+        private void schedule(CoachDay key) {
+                if (!pending.add(key)) {
+                        return;
+                }
+                try {
+                        matcher.execute(() -> {
+                                pending.remove(key);
+                                try {
+                                        match(key);
+                                } catch (RuntimeException e) {
+                                        System.err.println("Waitlist matching failed for " + key + ": " + e.getMessage());
+                                }
+                        });
+                } catch (RejectedExecutionException e) {
+                        pending.remove(key);
+                }
+        }
+
+        private void match(CoachDay key) {
+                PriorityQueue<Waiting> queue = queues.computeIfAbsent(key, this::load);
+                List<Waiting> waiting;
+                synchronized (queue) {
+                        waiting = new ArrayList<>(queue);
+                }
+                waiting.sort(ORDER);
+                Set<Long> done = waiting.isEmpty() ? Set.of()
+                                : transactionTemplate.execute(status -> promote(key, waiting));
+                remove(key, done);
+        }
+
+        /** Ids of the requests promoted, or found no longer waiting. */
+        private Set<Long> promote(CoachDay key, List<Waiting> waiting) {
+                Set<Long> done = new HashSet<>();
+                Train train = trainRepository.findByIdWithLock(key.trainId()).orElse(null);
+                if (train == null) {
+                        waiting.forEach(w -> done.add(w.id()));
+                        return done;
+                }
+                int seatsPerCoach = SeatService.seatsPerCoach(train);
+                SeatOccupancy day = seatInventory.loadUncached(key.trainId(), key.date(), key.date()).get(key.date());
+                SeatInventory.Changes changes = new SeatInventory.Changes();
+                int promoted = 0;
+                for (Waiting w : waiting) {
+                        List<Integer> seats = freeSeats(day, key.coach(), seatsPerCoach, w.fromSeq(), w.toSeq(),
+                                        w.seats());
+                        if (seats.size() < w.seats()) {
+                                continue;
+                        }
+                        WaitlistEntry entry = waitlistRepository.findByIdWithLock(w.id()).orElse(null);
+                        if (entry == null || !"WAITING".equals(entry.getStatus())) {
+                                done.add(w.id());
+                                continue;
+                        }
+
+                        Booking booking = new Booking();
+                        booking.setUser(entry.getUser());
+                        booking.setTrain(train);
+                        booking.setJourneyDate(entry.getJourneyDate());
+                        booking.setSourceStation(entry.getSourceStation());
+                        booking.setDestStation(entry.getDestStation());
+                        booking.setBookingStatus("CONFIRMED");
+                        booking.setPnr("TBS" + (1000 + RANDOM.nextInt(9000)));
+                        booking.setTotalFare(entry.getTotalFare());
+                        Booking saved = bookingRepository.save(booking);
+
+                        List<BookedSeat> rows = new ArrayList<>(seats.size());
+                        for (int seat : seats) {
+                                rows.add(new BookedSeat(null, saved, key.coach(), seat, w.fromSeq(), w.toSeq()));
+                                day.add(key.coach(), seat, w.fromSeq(), w.toSeq());
+                                changes.add(key.trainId(), key.date(), key.coach(), seat);
+                        }
+                        bookedSeatRepository.saveAll(rows);
+
+                        entry.setStatus("PROMOTED");
+                        entry.setBookingId(saved.getBookingId());
+                        done.add(w.id());
+                        promoted++;
+                }
+                seatInventory.invalidate(changes);
+                if (promoted > 0) {
+                        System.out.println("Waitlist: promoted " + promoted + " request(s) for train " + key.trainId()
+                                        + " on " + key.date() + " coach " + key.coach());
+                }
+                return done;
+        }
+
+        /** The lowest-numbered seats of the coach free between the two stops, at most {@code wanted}. */
+        static List<Integer> freeSeats(SeatOccupancy day, String coach, int seatsPerCoach, int fromSeq, int toSeq,
+                        int wanted) {
+                long[] taken = new long[(seatsPerCoach >>> 6) + 1];
+                day.seatsTaken(coach, fromSeq, toSeq, taken, null);
+                List<Integer> free = new ArrayList<>(wanted);
+                for (int seat = 1; seat <= seatsPerCoach && free.size() < wanted; seat++) {
+                        if ((taken[seat >>> 6] & (1L << seat)) == 0) {
+                                free.add(seat);
+                        }
+                }
+                return free;
+        }
+
+        private PriorityQueue<Waiting> load(CoachDay key) {
+                PriorityQueue<Waiting> queue = new PriorityQueue<>(ORDER);
+                waitlistRepository.findWaiting(key.trainId(), key.date(), key.coach())
+                                .forEach(entry -> queue.add(Waiting.of(entry)));
+                return queue;
+        }
+
+        // Drops the ids, and the queue once it is empty
+        private void remove(CoachDay key, Set<Long> ids) {
+                queues.computeIfPresent(key, (k, queue) -> {
+                        synchronized (queue) {
+                                queue.removeIf(w -> ids.contains(w.id()));
+                                return queue.isEmpty() ? null : queue;
+                        }
+                });
+        }
+
+        private Integer position(CoachDay key, Long waitlistId) {
+                PriorityQueue<Waiting> queue = queues.computeIfAbsent(key, this::load);
+                synchronized (queue) {
+                        return (int) queue.stream().filter(w -> w.id() < waitlistId).count();
+                }
+        }
+
+        private WaitlistEntryDTO toDTO(WaitlistEntry entry) {
+                Integer position = "WAITING".equals(entry.getStatus())
+                                ? position(keyOf(entry), entry.getWaitlistId())
+                                : null;
+                return new WaitlistEntryDTO(entry.getWaitlistId(), entry.getTrain().getTrainId(),
+                                entry.getJourneyDate(), entry.getCoachType(),
+                                entry.getSourceStation().getStationId(), entry.getDestStation().getStationId(),
+                                entry.getSeats(), entry.getStatus(), position, entry.getBookingId());
+        }
+
+        private static CoachDay keyOf(WaitlistEntry entry) {
+                return new CoachDay(entry.getTrain().getTrainId(), entry.getJourneyDate(), entry.getCoachType());
+        }
+
+        private static String normalize(String coach) {
+                return coach.trim().toUpperCase(Locale.ROOT);
+        }
+
+        /** What matching needs of a WAITING entry; the rest is read when it is promoted. */
+        private record Waiting(long id, int fromSeq, int toSeq, int seats) {
+                static Waiting of(WaitlistEntry entry) {
+                        return new Waiting(entry.getWaitlistId(), entry.getFromSeq(), entry.getToSeq(),
+                                        entry.getSeats());
+                }
+        }
+}
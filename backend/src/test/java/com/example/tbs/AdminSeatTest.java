@@ -1,12 +1,15 @@
 package com.example.tbs;
 
 import com.example.tbs.dto.BookingRequestDTO;
+import com.example.tbs.dto.SeatBlockRequestDTO;
+import com.example.tbs.dto.SeatBlockResultDTO;
 import com.example.tbs.entity.Station;
 import com.example.tbs.entity.Train;
 import com.example.tbs.entity.TrainSchedule;
 import com.example.tbs.entity.User;
 import com.example.tbs.repository.*;
 import com.example.tbs.service.BookingService;
+import com.example.tbs.service.SeatBlockService;
 import com.example.tbs.service.SeatService;
 import com.example.tbs.controller.SeatController.SeatRowDTO;
 import org.junit.jupiter.api.Assertions;
@@ -24,6 +27,9 @@ public class AdminSeatTest {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private SeatBlockService seatBlockService;
+
     @Autowired
     private SeatService seatService;
 
@@ -89,15 +95,14 @@ public class AdminSeatTest {
         int seatToBlock = 10;
 
         // 1. Block Seat 10 (without specifying stations, relying on auto-detect)
-        BookingRequestDTO blockRequest = new BookingRequestDTO();
-        blockRequest.setUserId(user.getUserId());
+        SeatBlockRequestDTO blockRequest = new SeatBlockRequestDTO();
         blockRequest.setTrainId(train.getTrainId());
-        blockRequest.setJourneyDate(date);
-        blockRequest.setCoachType(coach);
-        blockRequest.setSelectedSeats(List.of(seatToBlock));
+        blockRequest.setFromDate(date);
+        blockRequest.setCoaches(List.of(coach));
+        blockRequest.setSeatNumbers(List.of(seatToBlock));
 
-        Long blockBookingId = bookingService.createAdminBlock(blockRequest);
-        Assertions.assertNotNull(blockBookingId);
+        SeatBlockResultDTO blocked = seatBlockService.block(blockRequest);
+        Assertions.assertEquals(1, blocked.getSeatsChanged());
 
         // 2. Verify Status in Layout
         List<SeatRowDTO> layout = seatService.getSeatLayout(train.getTrainId(), date, coach, 1, 100);
@@ -128,7 +133,8 @@ public class AdminSeatTest {
         Assertions.assertTrue(bookingFailed, "User booking should fail on blocked seat");
 
         // 4. Unblock
-        bookingService.unblockSeats(train.getTrainId(), date, List.of(seatToBlock), coach);
+        SeatBlockResultDTO unblocked = seatBlockService.unblock(blockRequest);
+        Assertions.assertEquals(1, unblocked.getSeatsChanged());
 
         // 5. Verify Available
         List<SeatRowDTO> layoutAfter = seatService.getSeatLayout(train.getTrainId(), date, coach, 1, 100);
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs;
+
+import com.example.tbs.controller.SeatController.SeatRowDTO;
+import com.example.tbs.dto.BookingRequestDTO;
+import com.example.tbs.dto.CancellationResultDTO;
+import com.example.tbs.entity.Station;
+import com.example.tbs.entity.Train;
+import com.example.tbs.entity.TrainSchedule;
+import com.example.tbs.entity.User;
+import com.example.tbs.repository.*;
+import com.example.tbs.service.BookingService;
+import com.example.tbs.service.SeatService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@SpringBootTest
+public class BookingCancellationTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private SeatService seatService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TrainRepository trainRepository;
+
+    @Autowired
+    private StationRepository stationRepository;
+
+    @Autowired
+    private TrainScheduleRepository trainScheduleRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookedSeatRepository bookedSeatRepository;
+
+    private User user;
+    private Station s1;
+    private Station s2;
+    private Train train;
+
+    private void setUp(String trainNumber) {
+        String uniqueSuffix = "" + System.currentTimeMillis();
+
+        user = new User();
+        user.setEmail("cancel" + uniqueSuffix + "@test.com");
+        user.setPassword("pass");
+        user.setFullName("Cancel User");
+        user.setRole("USER");
+        userRepository.save(user);
+
+        s1 = new Station();
+        s1.setStationCode("S1" + uniqueSuffix);
+        s1.setStationName("Station 1");
+        stationRepository.save(s1);
+
+        s2 = new Station();
+        s2.setStationCode("S2" + uniqueSuffix);
+        s2.setStationName("Station 2");
+        stationRepository.save(s2);
+
+        train = new Train();
+        train.setTrainNumber(trainNumber + uniqueSuffix);
+        train.setTrainName("Cancel Test Express");
+        train.setTotalSeatsPerCoach(50);
+        train.setNumberOfCoaches(1);
+        trainRepository.save(train);
+
+        TrainSchedule ts1 = new TrainSchedule();
+        ts1.setTrain(train);
+        ts1.setStation(s1);
+        ts1.setStopSequence(1);
+        ts1.setDepartureTime(LocalTime.of(10, 0));
+        ts1.setDistanceFromStartKm(0);
+        trainScheduleRepository.save(ts1);
+
+        TrainSchedule ts2 = new TrainSchedule();
+        ts2.setTrain(train);
+        ts2.setStation(s2);
+        ts2.setStopSequence(2);
+        ts2.setArrivalTime(LocalTime.of(12, 0));
+        ts2.setDistanceFromStartKm(100);
+        trainScheduleRepository.save(ts2);
+    }
+
+    private Long book(LocalDate date, Integer... seats) {
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setUserId(user.getUserId());
+        request.setTrainId(train.getTrainId());
+        request.setSourceStationId(s1.getStationId());
+        request.setDestStationId(s2.getStationId());
+        request.setJourneyDate(date);
+        request.setCoachType("S1");
+        request.setSelectedSeats(List.of(seats));
+        return bookingService.createBooking(request);
+    }
+
+    private String statusOf(Long bookingId) {
+        return bookingRepository.findById(bookingId).orElseThrow().getBookingStatus();
+    }
+
+    private String seatStatus(LocalDate date, int seat) {
+        List<SeatRowDTO> layout = seatService.getSeatLayout(train.getTrainId(), date, "S1", 1, 2);
+        return layout.stream()
+                .flatMap(row -> row.seats.stream())
+                .filter(s -> s.number.equals(String.valueOf(seat)))
+                .map(s -> s.status)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    public void testCancelBookingsFreesTheirSeats() {
+        setUp("7771");
+        LocalDate date = LocalDate.now().plusDays(3);
+        Long first = book(date, 1, 2);
+        Long second = book(date, 3);
+        Long kept = book(date, 4);
+        Assertions.assertEquals("booked", seatStatus(date, 1));
+
+        // Each booking once, however often it is listed
+        Assertions.assertEquals(2, bookingService.cancelBookings(List.of(first, second, first), "CANCELLED"));
+
+        Assertions.assertEquals("CANCELLED", statusOf(first));
+        Assertions.assertEquals("CANCELLED", statusOf(second));
+        Assertions.assertEquals("CONFIRMED", statusOf(kept));
+        Assertions.assertEquals(1, bookedSeatRepository.countBookedSeats(train.getTrainId(), date));
+        Assertions.assertEquals("available", seatStatus(date, 1));
+        Assertions.assertEquals("booked", seatStatus(date, 4));
+
+        // A freed seat can be booked again
+        Assertions.assertNotNull(book(date, 1));
+
+        Assertions.assertThrows(RuntimeException.class, () -> bookingService.cancelBooking(-1L));
+    }
+
+    @Test
+    public void testCancelTrainDateCancelsOnlyThatDate() {
+        setUp("7772");
+        LocalDate date = LocalDate.now().plusDays(4);
+        Long first = book(date, 1, 2);
+        Long second = book(date, 3);
+        Long nextDay = book(date.plusDays(1), 1);
+
+        CancellationResultDTO result = bookingService.cancelTrainDate(train.getTrainId(), date);
+        Assertions.assertEquals(2, result.getBookings());
+        Assertions.assertEquals(3, result.getSeats());
+
+        Assertions.assertEquals("CANCELLED", statusOf(first));
+        Assertions.assertEquals("CANCELLED", statusOf(second));
+        Assertions.assertEquals("CONFIRMED", statusOf(nextDay));
+        Assertions.assertEquals(0, bookedSeatRepository.countBookedSeats(train.getTrainId(), date));
+        Assertions.assertEquals(1, bookedSeatRepository.countBookedSeats(train.getTrainId(), date.plusDays(1)));
+        Assertions.assertEquals("available", seatStatus(date, 3));
+
+        // Cancelled bookings are not cancelled twice
+        Assertions.assertEquals(0, bookingService.cancelTrainDate(train.getTrainId(), date).getBookings());
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs;
+
+import com.example.tbs.controller.SeatController.SeatRowDTO;
+import com.example.tbs.dto.BookingRequestDTO;
+import com.example.tbs.dto.SeatBlockRequestDTO;
+import com.example.tbs.dto.SeatBlockResultDTO;
+import com.example.tbs.dto.TrainSeatMapDTO;
+import com.example.tbs.entity.Station;
+import com.example.tbs.entity.Train;
+import com.example.tbs.entity.TrainSchedule;
+import com.example.tbs.entity.User;
+import com.example.tbs.repository.*;
+import com.example.tbs.service.BookingService;
+import com.example.tbs.service.SeatBlockService;
+import com.example.tbs.service.SeatService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@SpringBootTest
+public class SeatBlockRangeTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private SeatBlockService seatBlockService;
+
+    @Autowired
+    private SeatService seatService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TrainRepository trainRepository;
+
+    @Autowired
+    private StationRepository stationRepository;
+
+    @Autowired
+    private TrainScheduleRepository trainScheduleRepository;
+
+    private User user;
+    private Station s1;
+    private Station s2;
+    private Train train;
+
+    private void setUp(String trainNumber) {
+        setUp(trainNumber, null);
+    }
+
+    private void setUp(String trainNumber, String composition) {
+        String uniqueSuffix = "" + System.currentTimeMillis();
+
+        user = new User();
+        user.setEmail("block" + uniqueSuffix + "@test.com");
+        user.setPassword("pass");
+        user.setFullName("Block User");
+        user.setRole("USER");
+        userRepository.save(user);
+
+        s1 = new Station();
+        s1.setStationCode("S1" + uniqueSuffix);
+        s1.setStationName("Station 1");
+        stationRepository.save(s1);
+
+        s2 = new Station();
+        s2.setStationCode("S2" + uniqueSuffix);
+        s2.setStationName("Station 2");
+        stationRepository.save(s2);
+
+        train = new Train();
+        train.setTrainNumber(trainNumber + uniqueSuffix);
+        train.setTrainName("Block Test Express");
+        train.setTotalSeatsPerCoach(10);
+        train.setNumberOfCoaches(composition != null ? composition.length() : 2);
+        train.setCoachComposition(composition);
+        trainRepository.save(train);
+
+        TrainSchedule ts1 = new TrainSchedule();
+        ts1.setTrain(train);
+        ts1.setStation(s1);
+        ts1.setStopSequence(1);
+        ts1.setDepartureTime(LocalTime.of(10, 0));
+        ts1.setDistanceFromStartKm(0);
+        trainScheduleRepository.save(ts1);
+
+        TrainSchedule ts2 = new TrainSchedule();
+        ts2.setTrain(train);
+        ts2.setStation(s2);
+        ts2.setStopSequence(2);
+        ts2.setArrivalTime(LocalTime.of(12, 0));
+        ts2.setDistanceFromStartKm(100);
+        trainScheduleRepository.save(ts2);
+    }
+
+    private SeatBlockRequestDTO range(LocalDate from, LocalDate to, Integer seatFrom, Integer seatTo,
+            String... coaches) {
+        SeatBlockRequestDTO request = new SeatBlockRequestDTO();
+        request.setTrainId(train.getTrainId());
+        request.setFromDate(from);
+        request.setToDate(to);
+        request.setSeatFrom(seatFrom);
+        request.setSeatTo(seatTo);
+        request.setCoaches(List.of(coaches));
+        request.setReason("Maintenance");
+        return request;
+    }
+
+    private Long book(LocalDate date, String coach, Integer... seats) {
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setUserId(user.getUserId());
+        request.setTrainId(train.getTrainId());
+        request.setSourceStationId(s1.getStationId());
+        request.setDestStationId(s2.getStationId());
+        request.setJourneyDate(date);
+        request.setCoachType(coach);
+        request.setSelectedSeats(List.of(seats));
+        return bookingService.createBooking(request);
+    }
+
+    private String seatStatus(LocalDate date, String coach, int seat) {
+        List<SeatRowDTO> layout = seatService.getSeatLayout(train.getTrainId(), date, coach, 1, 2);
+        return layout.stream()
+                .flatMap(row -> row.seats.stream())
+                .filter(s -> s.number.equals(String.valueOf(seat)))
+                .map(s -> s.status)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    public void testBlockAndUnblockSeatRangesOverDays() {
+        setUp("5551");
+        LocalDate day1 = LocalDate.now().plusDays(10);
+        LocalDate day2 = day1.plusDays(1);
+        LocalDate day3 = day1.plusDays(2);
+
+        // Seats 3-6 of every coach for three days
+        SeatBlockResultDTO blocked = seatBlockService.block(range(day1, day3, 3, 6));
+        Assertions.assertEquals(3, blocked.getDays());
+        Assertions.assertEquals(List.of("S1", "S2"), blocked.getCoaches());
+        Assertions.assertEquals(3 * 2 * 4, blocked.getSeatsChanged());
+        Assertions.assertEquals("blocked", seatStatus(day2, "S2", 3));
+        Assertions.assertEquals("available", seatStatus(day2, "S2", 7));
+        Assertions.assertThrows(RuntimeException.class, () -> book(day2, "S2", 4));
+
+        // Seat 7 is booked on day 2, so widening the block to 5-8 fails unless booked seats are skipped
+        Assertions.assertNotNull(book(day2, "S2", 7));
+        Assertions.assertThrows(RuntimeException.class, () -> seatBlockService.block(range(day1, day3, 5, 8)));
+        Assertions.assertEquals("available", seatStatus(day1, "S1", 8));
+
+        SeatBlockRequestDTO widen = range(day1, day3, 5, 8);
+        widen.setSkipTaken(true);
+        SeatBlockResultDTO widened = seatBlockService.block(widen);
+        // Seats 5 and 6 were blocked already and S2 seat 7 is booked on day 2
+        Assertions.assertEquals(3 * 2 * 2 + 1, widened.getSeatsSkipped());
+        Assertions.assertEquals(3 * 2 * 4 - widened.getSeatsSkipped(), widened.getSeatsChanged());
+        Assertions.assertEquals("booked", seatStatus(day2, "S2", 7));
+        Assertions.assertEquals("blocked", seatStatus(day2, "S1", 7));
+
+        // Unblock seats 4-5 of one coach on the middle day only
+        SeatBlockResultDTO unblocked = seatBlockService.unblock(range(day2, day2, 4, 5, "s1"));
+        Assertions.assertEquals(2, unblocked.getSeatsChanged());
+        Assertions.assertEquals("available", seatStatus(day2, "S1", 4));
+        Assertions.assertEquals("blocked", seatStatus(day2, "S1", 3));
+        Assertions.assertEquals("blocked", seatStatus(day2, "S2", 4));
+        Assertions.assertEquals("blocked", seatStatus(day1, "S1", 4));
+        Assertions.assertNotNull(book(day2, "S1", 4));
+
+        // Unblocking the whole train leaves the booking alone
+        SeatBlockResultDTO cleared = seatBlockService.unblock(range(day1, day3, null, null));
+        Assertions.assertEquals(3 * 2 * 6 - 2 - 1, cleared.getSeatsChanged());
+        Assertions.assertEquals("available", seatStatus(day3, "S2", 8));
+        Assertions.assertEquals("booked", seatStatus(day2, "S2", 7));
+    }
+
+    @Test
+    public void testInvalidSelectionsAreRejected() {
+        setUp("5552");
+        LocalDate day = LocalDate.now().plusDays(10);
+
+        Assertions.assertThrows(RuntimeException.class,
+                () -> seatBlockService.block(range(day, day.minusDays(1), 1, 2)));
+        Assertions.assertThrows(RuntimeException.class,
+                () -> seatBlockService.block(range(day, day.plusDays(SeatBlockService.MAX_DAYS), 1, 2)));
+        Assertions.assertThrows(RuntimeException.class, () -> seatBlockService.block(range(day, day, 5, 11)));
+        Assertions.assertThrows(RuntimeException.class, () -> seatBlockService.block(range(day, day, 6, 5)));
+        Assertions.assertThrows(RuntimeException.class, () -> seatBlockService.block(range(day, day, 1, 2, "S3")));
+        // Coach numbers only go up to the coach count, but an all-seater train has no C1
+        Assertions.assertThrows(RuntimeException.class, () -> seatBlockService.block(range(day, day, 1, 2, "C1")));
+
+        SeatBlockRequestDTO backwards = range(day, day, 1, 2);
+        backwards.setFromSeq(2);
+        backwards.setToSeq(1);
+        Assertions.assertThrows(RuntimeException.class, () -> seatBlockService.block(backwards));
+        Assertions.assertEquals("available", seatStatus(day, "S1", 1));
+    }
+
+    @Test
+    public void testCoachesFollowTheComposition() {
+        setUp("5553", "SSB");
+        LocalDate day = LocalDate.now().plusDays(10);
+
+        SeatBlockResultDTO blocked = seatBlockService.block(range(day, day, 1, 1));
+        Assertions.assertEquals(List.of("S1", "S2", "B1"), blocked.getCoaches());
+        Assertions.assertEquals(List.of("S1", "S2", "B1"), seatService.getTrainSeatMap(train.getTrainId(), day, 1, 2)
+                .getCoaches().stream().map(TrainSeatMapDTO.CoachSeatMapDTO::getCoach).toList());
+        Assertions.assertEquals("SLEEPER", seatService.getCoachSeatMap(train.getTrainId(), day, "b1", 1, 2).getType());
+
+        Assertions.assertNotNull(book(day, "b1", 2));
+        Assertions.assertEquals("booked", seatStatus(day, "B1", 2));
+        // Three coaches, but the third is the only sleeper and there is no chair car
+        Assertions.assertThrows(RuntimeException.class, () -> book(day, "S3", 2));
+        Assertions.assertThrows(RuntimeException.class, () -> book(day, "B2", 2));
+        Assertions.assertThrows(RuntimeException.class, () -> book(day, "C1", 2));
+        Assertions.assertThrows(RuntimeException.class, () -> seatStatus(day, "C1", 2));
+        Assertions.assertThrows(RuntimeException.class, () -> seatBlockService.block(range(day, day, 1, 2, "S3")));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs;
+
+import com.example.tbs.dto.TimetableImportResultDTO;
+import com.example.tbs.exception.TimetableImportException;
+import com.example.tbs.service.TimetableImporter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+@SpringBootTest
+public class TimetableImportTest {
+
+    @Autowired
+    private TimetableImporter timetableImporter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static InputStream csv(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int countStations(String code) {
+        return jdbcTemplate.queryForObject("select count(*) from karbs.station where station_code = ?",
+                Integer.class, code);
+    }
+
+    private List<Map<String, Object>> stopsOf(String trainNumber) {
+        return jdbcTemplate.queryForList("select s.station_code, ts.stop_sequence, ts.distance_from_start_km "
+                + "from karbs.train_schedule ts join karbs.train t on t.train_id = ts.train_id "
+                + "join karbs.station s on s.station_id = ts.station_id "
+                + "where t.train_number = ? order by ts.stop_sequence", trainNumber);
+    }
+
+    @Test
+    public void testImportLoadsAndReplacesStops() {
+        String suffix = "" + System.currentTimeMillis();
+        String a = "IA" + suffix;
+        String b = "IB" + suffix;
+        String c = "IC" + suffix;
+        String train = "I" + suffix;
+
+        TimetableImportResultDTO result = timetableImporter.importCsv(
+                csv("station_code,station_name,city,latitude,longitude",
+                        a + ",Import A,City,12.97,77.59",
+                        b + ",\"Import B, Halt\",City,13.02,77.55",
+                        c + ",Import C,,,"),
+                // Columns in any order
+                csv("train_name,train_number,seats_per_coach,coaches,price",
+                        "Import Express," + train + ",40,2,150"),
+                csv("train_number,stop_sequence,station_code,arrival_time,departure_time,distance_km",
+                        train + ",1," + a + ",,06:00,",
+                        train + ",2," + b + ",06:30,06:32,",
+                        train + ",5," + c + ",25:10,,40"));
+        Assertions.assertEquals(3, result.getStations());
+        Assertions.assertEquals(1, result.getTrains());
+        Assertions.assertEquals(3, result.getStops());
+
+        List<Map<String, Object>> stops = stopsOf(train);
+        Assertions.assertEquals(3, stops.size());
+        Assertions.assertEquals(0, ((Number) stops.get(0).get("distance_from_start_km")).intValue());
+        // Computed from the coordinates when the column is blank
+        Assertions.assertTrue(((Number) stops.get(1).get("distance_from_start_km")).intValue() > 0);
+        Assertions.assertEquals(40, ((Number) stops.get(2).get("distance_from_start_km")).intValue());
+        Assertions.assertEquals("Import B, Halt", jdbcTemplate.queryForObject(
+                "select station_name from karbs.station where station_code = ?", String.class, b));
+
+        // A second import of the train replaces its stops instead of adding to them
+        TimetableImportResultDTO again = timetableImporter.importCsv(null, null,
+                csv("train_number,stop_sequence,station_code,arrival_time,departure_time",
+                        train + ",1," + c + ",,07:00",
+                        train + ",2," + a + ",08:00,"));
+        Assertions.assertEquals(1, again.getTrainsRescheduled());
+        List<Map<String, Object>> replaced = stopsOf(train);
+        Assertions.assertEquals(2, replaced.size());
+        Assertions.assertEquals(c, replaced.get(0).get("station_code"));
+    }
+
+    @Test
+    public void testInvalidRowRollsBackTheWholeImport() {
+        String suffix = "" + System.currentTimeMillis();
+        String a = "RA" + suffix;
+        String b = "RB" + suffix;
+        String train = "R" + suffix;
+
+        // Stations and trains are valid and already written when the stop times fail
+        TimetableImportException e = Assertions.assertThrows(TimetableImportException.class,
+                () -> timetableImporter.importCsv(
+                        csv("station_code,station_name,city,latitude,longitude",
+                                a + ",Rollback A,City,12.97,77.59",
+                                b + ",Rollback B,City,13.02,77.55"),
+                        csv("train_number,train_name,seats_per_coach,coaches,price",
+                                train + ",Rollback Express,40,2,100"),
+                        csv("train_number,stop_sequence,station_code,arrival_time,departure_time",
+                                train + ",2," + a + ",,06:00",
+                                train + ",1,NOPE" + suffix + ",7:xx,")));
+        Assertions.assertEquals(List.of(
+                "stop_times line 3: arrival_time is not a time: 7:xx",
+                "stop_times line 3: unknown station NOPE" + suffix,
+                "stop_times line 3: stop_sequence 1 does not increase for train " + train), e.getErrors());
+
+        Assertions.assertEquals(0, countStations(a));
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from karbs.train where train_number = ?", Integer.class, train));
+    }
+
+    @Test
+    public void testEveryFileIsValidatedAfterTheFirstError() {
+        String suffix = "" + System.currentTimeMillis();
+        String a = "VA" + suffix;
+        String train = "V" + suffix;
+
+        TimetableImportException e = Assertions.assertThrows(TimetableImportException.class,
+                () -> timetableImporter.importCsv(
+                        csv("station_code,station_name,city,latitude,longitude",
+                                a + ",Valid A,City,12.97,77.59",
+                                ",No Code,City,north,77.55"),
+                        csv("train_number,train_name,seats_per_coach,coaches,price",
+                                train + ",Valid Express,40,2,100",
+                                train + ",Valid Express,forty,2,100"),
+                        null));
+        Assertions.assertEquals(List.of(
+                "stations line 3: station_code is required",
+                "stations line 3: latitude is not a number: north",
+                "trains line 3: seats_per_coach is not a whole number: forty",
+                "trains line 3: duplicate train " + train), e.getErrors());
+        Assertions.assertEquals(0, countStations(a));
+
+        Assertions.assertThrows(TimetableImportException.class,
+                () -> timetableImporter.importCsv(csv(""), null, null), "An empty file has no header");
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs;
+
+import com.example.tbs.dto.BookingRequestDTO;
+import com.example.tbs.dto.WaitlistEntryDTO;
+import com.example.tbs.dto.WaitlistRequestDTO;
+import com.example.tbs.entity.Station;
+import com.example.tbs.entity.Train;
+import com.example.tbs.entity.TrainSchedule;
+import com.example.tbs.entity.User;
+import com.example.tbs.repository.*;
+import com.example.tbs.service.BookingService;
+import com.example.tbs.service.WaitlistService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@SpringBootTest
+public class WaitlistPromotionTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TrainRepository trainRepository;
+
+    @Autowired
+    private StationRepository stationRepository;
+
+    @Autowired
+    private TrainScheduleRepository trainScheduleRepository;
+
+    @Autowired
+    private BookedSeatRepository bookedSeatRepository;
+
+    private Station s1;
+    private Station s2;
+    private Train train;
+
+    private void setUp(String trainNumber) {
+        String uniqueSuffix = "" + System.currentTimeMillis();
+
+        s1 = new Station();
+        s1.setStationCode("S1" + uniqueSuffix);
+        s1.setStationName("Station 1");
+        stationRepository.save(s1);
+
+        s2 = new Station();
+        s2.setStationCode("S2" + uniqueSuffix);
+        s2.setStationName("Station 2");
+        stationRepository.save(s2);
+
+        // Two seats, so two bookings sell the train out
+        train = new Train();
+        train.setTrainNumber(trainNumber + uniqueSuffix);
+        train.setTrainName("Waitlist Test Express");
+        train.setTotalSeatsPerCoach(2);
+        train.setNumberOfCoaches(1);
+        trainRepository.save(train);
+
+        TrainSchedule ts1 = new TrainSchedule();
+        ts1.setTrain(train);
+        ts1.setStation(s1);
+        ts1.setStopSequence(1);
+        ts1.setDepartureTime(LocalTime.of(10, 0));
+        ts1.setDistanceFromStartKm(0);
+        trainScheduleRepository.save(ts1);
+
+        TrainSchedule ts2 = new TrainSchedule();
+        ts2.setTrain(train);
+        ts2.setStation(s2);
+        ts2.setStopSequence(2);
+        ts2.setArrivalTime(LocalTime.of(12, 0));
+        ts2.setDistanceFromStartKm(100);
+        trainScheduleRepository.save(ts2);
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setEmail(name + System.nanoTime() + "@test.com");
+        user.setPassword("pass");
+        user.setFullName(name);
+        user.setRole("USER");
+        return userRepository.save(user);
+    }
+
+    private Long book(User user, LocalDate date, Integer... seats) {
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setUserId(user.getUserId());
+        request.setTrainId(train.getTrainId());
+        request.setSourceStationId(s1.getStationId());
+        request.setDestStationId(s2.getStationId());
+        request.setJourneyDate(date);
+        request.setCoachType("S1");
+        request.setSelectedSeats(List.of(seats));
+        return bookingService.createBooking(request);
+    }
+
+    private WaitlistEntryDTO join(User user, LocalDate date, int seats) {
+        WaitlistRequestDTO request = new WaitlistRequestDTO();
+        request.setUserId(user.getUserId());
+        request.setTrainId(train.getTrainId());
+        request.setSourceStationId(s1.getStationId());
+        request.setDestStationId(s2.getStationId());
+        request.setJourneyDate(date);
+        request.setCoachType("S1");
+        request.setSeats(seats);
+        return waitlistService.join(request);
+    }
+
+    private WaitlistEntryDTO entryOf(User user) {
+        return waitlistService.getUserEntries(user.getUserId()).get(0);
+    }
+
+    // Matching runs on the waitlist's own thread after the commit
+    private WaitlistEntryDTO awaitStatus(User user, String status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        WaitlistEntryDTO entry = entryOf(user);
+        while (!status.equals(entry.getStatus()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            entry = entryOf(user);
+        }
+        return entry;
+    }
+
+    @Test
+    public void testCancellationPromotesWaitingRequestsInOrder() throws InterruptedException {
+        setUp("6661");
+        LocalDate date = LocalDate.now().plusDays(6);
+        User holder = user("Holder");
+        User first = user("First");
+        User second = user("Second");
+
+        Long booking = book(holder, date, 1, 2);
+        Assertions.assertEquals("WAITING", join(first, date, 2).getStatus());
+        Assertions.assertEquals("WAITING", join(second, date, 1).getStatus());
+        Assertions.assertThrows(RuntimeException.class, () -> join(first, date, 1),
+                "Joining the same coach twice should fail");
+        // One request ahead of it
+        Assertions.assertEquals(1, entryOf(second).getPosition());
+
+        bookingService.cancelBooking(booking);
+
+        // Both freed seats go to the earlier request; the later one keeps waiting, now first in line
+        WaitlistEntryDTO promoted = awaitStatus(first, "PROMOTED");
+        Assertions.assertEquals("PROMOTED", promoted.getStatus());
+        Assertions.assertNotNull(promoted.getBookingId());
+        Assertions.assertEquals(2, bookedSeatRepository.countBookedSeats(train.getTrainId(), date));
+
+        WaitlistEntryDTO waiting = entryOf(second);
+        Assertions.assertEquals("WAITING", waiting.getStatus());
+        Assertions.assertEquals(0, waiting.getPosition());
+
+        bookingService.cancelBooking(promoted.getBookingId());
+        Assertions.assertEquals("PROMOTED", awaitStatus(second, "PROMOTED").getStatus());
+        Assertions.assertEquals(1, bookedSeatRepository.countBookedSeats(train.getTrainId(), date));
+    }
+
+    @Test
+    public void testLeftAndCancelledRequestsAreNotPromoted() throws InterruptedException {
+        setUp("6662");
+        LocalDate date = LocalDate.now().plusDays(7);
+        User holder = user("Holder");
+        User leaving = user("Leaving");
+        User staying = user("Staying");
+
+        book(holder, date, 1, 2);
+        waitlistService.leave(join(leaving, date, 1).getWaitlistId());
+        join(staying, date, 1);
+        Assertions.assertEquals("CANCELLED", entryOf(leaving).getStatus());
+        Assertions.assertEquals(0, entryOf(staying).getPosition());
+
+        // The train does not run: its bookings and waiting requests are cancelled, nothing is promoted
+        bookingService.cancelTrainDate(train.getTrainId(), date);
+        Thread.sleep(500);
+        Assertions.assertEquals("CANCELLED", entryOf(staying).getStatus());
+        Assertions.assertEquals(0, bookedSeatRepository.countBookedSeats(train.getTrainId(), date));
+    }
+}
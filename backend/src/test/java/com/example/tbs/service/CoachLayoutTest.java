@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.entity.Train;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class CoachLayoutTest {
+
+    @Test
+    public void coachesAreNumberedWithinTheirType() {
+        Assertions.assertEquals(List.of("S1", "S2", "C1", "S3", "B1", "C2"),
+                CoachLayout.coachCodes("SSCSBC", 6));
+        // Without a composition every coach is a seater
+        Assertions.assertEquals(List.of("S1", "S2", "S3"), CoachLayout.coachCodes(null, 3));
+        Assertions.assertEquals(List.of("S1"), CoachLayout.coachCodes(" ", 1));
+    }
+
+    @Test
+    public void compositionIsNormalizedAndChecked() {
+        Assertions.assertEquals("SSCB", CoachLayout.composition(" ss c b "));
+        Assertions.assertNull(CoachLayout.composition(""));
+        Assertions.assertThrows(RuntimeException.class, () -> CoachLayout.composition("SSA"));
+    }
+
+    @Test
+    public void onlyCoachesOfTheCompositionAreAccepted() {
+        Train train = new Train(1L, "1", "Train 1", 40, 3, "SCB", 100L);
+        Assertions.assertEquals(3, SeatService.coachesOf(train));
+        Assertions.assertEquals("C1", SeatService.coachOf(train, " c1"));
+        Assertions.assertThrows(RuntimeException.class, () -> SeatService.coachOf(train, "S2"));
+        Assertions.assertThrows(RuntimeException.class, () -> SeatService.coachOf(train, "C2"));
+        Assertions.assertThrows(RuntimeException.class, () -> SeatService.coachOf(train, "A1"));
+        Assertions.assertThrows(RuntimeException.class, () -> SeatService.coachOf(train, null));
+
+        Train seaters = new Train(2L, "2", "Train 2", 40, 2, null, 100L);
+        Assertions.assertEquals(List.of("S1", "S2"), SeatService.coachCodesOf(seaters));
+        Assertions.assertEquals("S2", SeatService.coachOf(seaters, "s2"));
+        Assertions.assertThrows(RuntimeException.class, () -> SeatService.coachOf(seaters, "B1"));
+        Assertions.assertThrows(RuntimeException.class, () -> SeatService.coachOf(seaters, "S3"));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.entity.Station;
+import com.example.tbs.entity.Train;
+import com.example.tbs.entity.TrainSchedule;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class ItineraryStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<Station> stations = new ArrayList<>();
+    private final List<TrainSchedule> schedules = new ArrayList<>();
+    private volatile TimetableIndex.Snapshot current;
+
+    // Serves whatever snapshot the test last built, without a database
+    private final TimetableIndex timetableIndex = new TimetableIndex(null, null, null, "unused", event -> {
+    }) {
+        @Override
+        public Snapshot snapshot() {
+            return current;
+        }
+    };
+
+    private Station station(long id) {
+        Station station = new Station(id, "ST" + id, "Station " + id, null, null, null);
+        stations.add(station);
+        return station;
+    }
+
+    // Stops given as station, "HH:mm" pairs; replaces any stops the train had
+    private void train(long id, Object... stops) {
+        schedules.removeIf(ts -> ts.getTrain().getTrainId() == id);
+        Train train = new Train(id, String.valueOf(id), "Train " + id, 40, 1, null, 100L);
+        int count = stops.length / 2;
+        for (int i = 0; i < count; i++) {
+            LocalTime time = LocalTime.parse((String) stops[2 * i + 1]);
+            schedules.add(new TrainSchedule(id * 100 + i, train, (Station) stops[2 * i], i == 0 ? null : time,
+                    i == count - 1 ? null : time.plusMinutes(2), i + 1, i * 40));
+        }
+    }
+
+    private void randomTrain(Random random, long id) {
+        List<Station> route = new ArrayList<>(stations);
+        Collections.shuffle(route, random);
+        int stops = 2 + random.nextInt(5);
+        LocalTime time = LocalTime.of(4 + random.nextInt(12), 5 * random.nextInt(12));
+        Object[] args = new Object[2 * stops];
+        for (int i = 0; i < stops; i++) {
+            args[2 * i] = route.get(i);
+            args[2 * i + 1] = time.toString();
+            time = time.plusMinutes(40 + random.nextInt(60));
+        }
+        train(id, args);
+    }
+
+    private TimetableIndex.Snapshot publish(long version) {
+        current = TimetableIndex.build(version, stations, schedules);
+        return current;
+    }
+
+    private static List<List<ItineraryStore.Hop>> await(ItineraryStore store, TimetableIndex.Snapshot timetable,
+            Station from, Station to) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        List<List<ItineraryStore.Hop>> found;
+        while ((found = store.lookup(timetable, Set.of(from.getStationId()), Set.of(to.getStationId()))) == null
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return found;
+    }
+
+    private static Set<List<ItineraryStore.Hop>> lookup(ItineraryStore store, TimetableIndex.Snapshot timetable,
+            Station from, Station to) {
+        return new HashSet<>(store.lookup(timetable, Set.of(from.getStationId()), Set.of(to.getStationId())));
+    }
+
+    @Test
+    public void keepsOnlyItinerariesNotBeatenOnTimesOrTrains() throws InterruptedException {
+        Station a = station(1);
+        Station b = station(2);
+        Station c = station(3);
+        train(1, a, "08:00", c, "10:00");
+        train(2, a, "08:30", c, "09:45");
+        train(3, a, "08:30", b, "09:00");
+        train(4, b, "09:30", c, "09:40");
+        ItineraryStore store = new ItineraryStore(timetableIndex, true, dir.resolve("store.bin").toString());
+        try {
+            TimetableIndex.Snapshot timetable = publish(1);
+            store.onStartup();
+
+            // Train 1 leaves earlier and arrives later than train 2; the change via B arrives
+            // earlier still, so it stays next to the direct train
+            List<List<ItineraryStore.Hop>> found = await(store, timetable, a, c);
+            Assertions.assertEquals(Set.of(
+                    List.of(new ItineraryStore.Hop(2L, 1, 2)),
+                    List.of(new ItineraryStore.Hop(3L, 1, 2), new ItineraryStore.Hop(4L, 1, 2))),
+                    new HashSet<>(found));
+            Assertions.assertEquals(2, found.size());
+            // Asking about another timetable version is answered by the search itself
+            Assertions.assertNull(store.lookup(TimetableIndex.build(2, stations, schedules),
+                    Set.of(a.getStationId()), Set.of(c.getStationId())));
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    public void reroutedTrainsGiveTheSameStoreAsAFullBuild() throws InterruptedException {
+        Random random = new Random(31);
+        for (long id = 1; id <= 30; id++) {
+            station(id);
+        }
+        for (long id = 1; id <= 25; id++) {
+            randomTrain(random, id);
+        }
+        ItineraryStore store = new ItineraryStore(timetableIndex, true, dir.resolve("store.bin").toString());
+        try {
+            TimetableIndex.Snapshot timetable = publish(1);
+            store.onStartup();
+            await(store, timetable, stations.get(0), stations.get(1));
+
+            for (long version = 2; version <= 6; version++) {
+                long rerouted = 1 + random.nextInt(25);
+                randomTrain(random, rerouted);
+                timetable = publish(version);
+                store.onTimetableChanged(new TimetableIndex.Changed(version, Set.of(rerouted)));
+                Assertions.assertNotNull(await(store, timetable, stations.get(0), stations.get(1)));
+
+                ItineraryStore full = new ItineraryStore(timetableIndex, true,
+                        dir.resolve("full-" + version + ".bin").toString());
+                try {
+                    full.onStartup();
+                    await(full, timetable, stations.get(0), stations.get(1));
+                    for (Station from : stations) {
+                        for (Station to : stations) {
+                            Assertions.assertEquals(lookup(full, timetable, from, to),
+                                    lookup(store, timetable, from, to),
+                                    "after rerouting train " + rerouted + ": " + from.getStationCode() + " to "
+                                            + to.getStationCode());
+                        }
+                    }
+                } finally {
+                    full.shutdown();
+                }
+            }
+        } finally {
+            store.shutdown();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.entity.Station;
+import com.example.tbs.entity.Train;
+import com.example.tbs.entity.TrainSchedule;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class ProfileSearchTest {
+
+    private final Station a = station(1L, "A");
+    private final Station b = station(2L, "B");
+    private final Station c = station(3L, "C");
+    private final Station d = station(4L, "D");
+    private final List<TrainSchedule> schedules = new ArrayList<>();
+
+    private static Station station(long id, String code) {
+        return new Station(id, code, "Station " + code, null, null, null);
+    }
+
+    // Stops given as station, "HH:mm" pairs; the first only departs, the last only arrives
+    private void train(long id, Object... stops) {
+        Train train = new Train(id, String.valueOf(id), "Train " + id, 40, 1, null, 100L);
+        int count = stops.length / 2;
+        for (int i = 0; i < count; i++) {
+            LocalTime time = LocalTime.parse((String) stops[2 * i + 1]);
+            schedules.add(new TrainSchedule(id * 100 + i, train, (Station) stops[2 * i], i == 0 ? null : time,
+                    i == count - 1 ? null : time, i + 1, i * 50));
+        }
+    }
+
+    private List<ProfileSearch.Journey> search(Station from, Station to, int transferMinutes) {
+        TimetableIndex.Snapshot timetable = TimetableIndex.build(1, List.of(a, b, c, d), schedules);
+        return ProfileSearch.run(timetable, Set.of(from.getStationId()), Set.of(to.getStationId()), transferMinutes,
+                SearchDeadline.after(Duration.ofSeconds(10)), SearchTrace.off());
+    }
+
+    private static List<Long> trainsOf(ProfileSearch.Journey journey) {
+        return journey.legs().stream().map(leg -> leg.board().getTrain().getTrainId()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void keepsOnlyJourneysNotBeatenByALaterDeparture() {
+        train(1, a, "08:00", b, "09:00", c, "10:00");
+        train(2, a, "08:30", c, "09:45");
+        train(3, a, "11:00", c, "12:00");
+
+        List<ProfileSearch.Journey> journeys = search(a, c, 5);
+        // Train 1 leaves earlier and arrives later than train 2
+        Assertions.assertEquals(2, journeys.size());
+        Assertions.assertEquals(8 * 60 + 30, journeys.get(0).departure());
+        Assertions.assertEquals(9 * 60 + 45, journeys.get(0).arrival());
+        Assertions.assertEquals(List.of(2L), trainsOf(journeys.get(0)));
+        Assertions.assertEquals(List.of(3L), trainsOf(journeys.get(1)));
+    }
+
+    @Test
+    public void changesTrainsOnlyWithTheTransferTime() {
+        train(1, a, "08:00", b, "09:00", c, "10:00");
+        train(2, a, "08:30", c, "09:45");
+        train(4, c, "10:10", d, "11:00");
+
+        List<ProfileSearch.Journey> journeys = search(a, d, 5);
+        Assertions.assertEquals(1, journeys.size());
+        ProfileSearch.Journey journey = journeys.get(0);
+        Assertions.assertEquals(8 * 60 + 30, journey.departure());
+        Assertions.assertEquals(11 * 60, journey.arrival());
+        Assertions.assertEquals(List.of(2L, 4L), trainsOf(journey));
+        Assertions.assertEquals(c, journey.legs().get(0).alight().getStation());
+        Assertions.assertEquals(c, journey.legs().get(1).board().getStation());
+
+        // Neither train reaches C 30 minutes before train 4 leaves
+        Assertions.assertEquals(List.of(), search(a, d, 30));
+    }
+
+    @Test
+    public void overnightTrainsArriveAfterMidnight() {
+        train(5, a, "22:00", b, "23:30", d, "01:15");
+
+        List<ProfileSearch.Journey> journeys = search(b, d, 5);
+        Assertions.assertEquals(1, journeys.size());
+        Assertions.assertEquals(23 * 60 + 30, journeys.get(0).departure());
+        Assertions.assertEquals(24 * 60 + 75, journeys.get(0).arrival());
+    }
+}
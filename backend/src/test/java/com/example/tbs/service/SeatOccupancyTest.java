@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.Set;
+
+public class SeatOccupancyTest {
+
+    @Test
+    public void segmentMaskCoversTheStopsBetween() {
+        Assertions.assertEquals(0b110L, SeatOccupancy.segmentMask(1, 3));
+        Assertions.assertEquals(0L, SeatOccupancy.segmentMask(3, 3));
+        Assertions.assertEquals(0L, SeatOccupancy.segmentMask(4, 2));
+        // Stops past 63 share the last bit
+        Assertions.assertEquals(3L << 62, SeatOccupancy.segmentMask(62, 70));
+        Assertions.assertEquals(1L << 63, SeatOccupancy.segmentMask(65, 70));
+    }
+
+    @Test
+    public void seatsTakenSeparatesBookedBlockedAndHeld() {
+        SeatOccupancy occupancy = new SeatOccupancy();
+        occupancy.add("S1", 1, 1, 3);
+        occupancy.add("S1", 2, 3, 4);
+        occupancy.add("S1", 7, 1, 4, SeatOccupancy.Status.HELD);
+        BitSet blocks = new BitSet();
+        blocks.set(0);
+        blocks.set(4);
+        occupancy.addBlock("S1", blocks.toByteArray(), 2, 3);
+
+        long[] taken = new long[1], blocked = new long[1], held = new long[1];
+        occupancy.seatsTaken("S1", 1, 2, taken, blocked, held);
+        Assertions.assertEquals((1L << 1) | (1L << 7), taken[0]);
+        Assertions.assertEquals(0L, blocked[0]);
+        Assertions.assertEquals(1L << 7, held[0]);
+
+        taken[0] = blocked[0] = held[0] = 0;
+        occupancy.seatsTaken("S1", 2, 4, taken, blocked, held);
+        Assertions.assertEquals((1L << 1) | (1L << 2) | (1L << 5) | (1L << 7), taken[0]);
+        Assertions.assertEquals((1L << 1) | (1L << 5), blocked[0]);
+
+        // Only the coach asked for, and nothing beyond the arrays
+        long[] none = new long[1];
+        occupancy.seatsTaken("S2", 1, 4, none, null);
+        Assertions.assertEquals(0L, none[0]);
+        Assertions.assertEquals(Set.of("S1"), occupancy.coaches());
+    }
+
+    @Test
+    public void occupiedCountsMatchTheSegments() {
+        SeatOccupancy occupancy = new SeatOccupancy();
+        occupancy.add("S1", 1, 1, 3);
+        occupancy.add("S1", 1, 4, 5);
+        occupancy.add("S1", 2, 2, 4);
+        occupancy.add("S2", 1, 3, 5);
+
+        Assertions.assertEquals(1, occupancy.occupiedSeats(1, 2));
+        Assertions.assertEquals(2, occupancy.occupiedSeats(1, 3));
+        Assertions.assertEquals(3, occupancy.occupiedSeats(1, 5));
+        Assertions.assertEquals(0, occupancy.occupiedSeats(5, 6));
+
+        Assertions.assertArrayEquals(new int[] { 1, 2, 1, 1 },
+                occupancy.occupiedBySegment("S1", new int[] { 1, 2, 3, 4, 5 }));
+        Assertions.assertArrayEquals(new int[] { 0, 0 }, occupancy.occupiedBySegment("S3", new int[] { 1, 3, 5 }));
+    }
+
+    @Test
+    public void occupiedMatrixAgreesWithOccupiedSeats() {
+        Random random = new Random(7);
+        SeatOccupancy occupancy = new SeatOccupancy();
+        for (int i = 0; i < 300; i++) {
+            int from = 1 + random.nextInt(11);
+            int to = from + 1 + random.nextInt(12 - from);
+            occupancy.add("S" + (1 + random.nextInt(3)), 1 + random.nextInt(40), from, to);
+        }
+
+        int[] seqs = { 1, 2, 4, 5, 8, 9, 12 };
+        int[][] matrix = occupancy.occupiedMatrix(seqs);
+        for (int i = 0; i < seqs.length; i++) {
+            for (int j = i + 1; j < seqs.length; j++) {
+                Assertions.assertEquals(occupancy.occupiedSeats(seqs[i], seqs[j]), matrix[i][j],
+                        "stops " + seqs[i] + " to " + seqs[j]);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.entity.Station;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class StationGeoIndexTest {
+
+    private static List<String> codes(List<TimetableIndex.NearbyStation> nearby) {
+        return nearby.stream().map(n -> n.station().getStationCode()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void nearestFirstWithinRadiusAndLimit() {
+        StationGeoIndex index = StationGeoIndex.build(List.of(
+                new Station(1L, "SBC", "KSR Bengaluru", "Bengaluru", 12.9784, 77.5698),
+                new Station(2L, "YPR", "Yesvantpur Jn", "Bengaluru", 13.0234, 77.5500),
+                new Station(3L, "MYS", "Mysuru Jn", "Mysuru", 12.3164, 76.6459),
+                new Station(4L, "XXX", "No Coordinates", "Bengaluru", null, null)));
+
+        List<TimetableIndex.NearbyStation> near = index.near(12.97, 77.57, 25, 10);
+        Assertions.assertEquals(List.of("SBC", "YPR"), codes(near));
+        Assertions.assertEquals(StationDistanceService.haversineKm(12.97, 77.57, 12.9784, 77.5698),
+                near.get(0).distanceKm(), 1e-9);
+
+        Assertions.assertEquals(List.of("SBC", "YPR", "MYS"), codes(index.near(12.97, 77.57, 200, 10)));
+        Assertions.assertEquals(List.of("SBC"), codes(index.near(12.97, 77.57, 200, 1)));
+        Assertions.assertEquals(List.of(), codes(index.near(28.64, 77.22, 50, 10)));
+    }
+
+    @Test
+    public void agreesWithCheckingEveryStation() {
+        Random random = new Random(11);
+        List<Station> stations = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            stations.add(new Station(id, "G" + id, "Station " + id, null, 8 + random.nextDouble() * 22,
+                    70 + random.nextDouble() * 18));
+        }
+        StationGeoIndex index = StationGeoIndex.build(stations);
+
+        for (int q = 0; q < 50; q++) {
+            double lat = 8 + random.nextDouble() * 22;
+            double lng = 70 + random.nextDouble() * 18;
+            double radiusKm = 1 + random.nextDouble() * 150;
+            Comparator<Station> byDistance = Comparator.comparingDouble(
+                    s -> StationDistanceService.haversineKm(lat, lng, s.getLatitude(), s.getLongitude()));
+            List<String> expected = stations.stream()
+                    .filter(s -> StationDistanceService.haversineKm(lat, lng, s.getLatitude(), s.getLongitude())
+                            <= radiusKm)
+                    .sorted(byDistance)
+                    .map(Station::getStationCode)
+                    .collect(Collectors.toList());
+            Assertions.assertEquals(expected, codes(index.near(lat, lng, radiusKm, Integer.MAX_VALUE)));
+        }
+    }
+}
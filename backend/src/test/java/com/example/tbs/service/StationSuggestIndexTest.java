@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.entity.Station;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class StationSuggestIndexTest {
+
+    private final StationSuggestIndex index = StationSuggestIndex.build(List.of(
+            new Station(1L, "SBC", "KSR Bengaluru", "Bengaluru", null, null),
+            new Station(2L, "YPR", "Yesvantpur Jn", "Bengaluru", null, null),
+            new Station(3L, "MYS", "Mysūru Jn", "Mysuru", null, null),
+            new Station(4L, "BNC", "Bengaluru Cantt", "Bengaluru", null, null),
+            new Station(5L, "BAND", "Bandra Terminus", "Mumbai", null, null),
+            new Station(6L, null, null, null, null, null)));
+
+    private List<String> codes(String query, int limit) {
+        return index.suggest(query, limit).stream().map(Station::getStationCode).collect(Collectors.toList());
+    }
+
+    @Test
+    public void strongerKindsOfMatchComeFirst() {
+        // Code, then full name, then a later word of the name, then city
+        Assertions.assertEquals(List.of("BAND", "BNC", "SBC", "YPR"), codes("b", 10));
+        Assertions.assertEquals(List.of("BNC", "SBC", "YPR"), codes("beng", 10));
+        Assertions.assertEquals(List.of("YPR"), codes("ypr", 10));
+    }
+
+    @Test
+    public void eachStationOnceAndAtMostTheLimit() {
+        Assertions.assertEquals(List.of("BAND", "BNC"), codes("b", 2));
+        Assertions.assertEquals(List.of(), codes("b", 0));
+        Assertions.assertEquals(List.of("SBC"), codes("ksr bengaluru", 10));
+    }
+
+    @Test
+    public void queriesAreNormalizedLikeTerms() {
+        Assertions.assertEquals("mysuru jn", StationSuggestIndex.normalize("  Mysūru--JN "));
+        Assertions.assertEquals("", StationSuggestIndex.normalize(null));
+        Assertions.assertEquals(List.of("MYS"), codes("MYSŪ", 10));
+        Assertions.assertEquals(List.of("SBC"), codes("KSR-Beng", 10));
+        Assertions.assertEquals(List.of(), codes(" - ", 10));
+        Assertions.assertEquals(List.of(), codes("chennai", 10));
+    }
+}
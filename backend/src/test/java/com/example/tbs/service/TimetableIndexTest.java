@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.entity.Station;
+import com.example.tbs.entity.Train;
+import com.example.tbs.entity.TrainSchedule;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class TimetableIndexTest {
+
+    private final List<Station> stations = new ArrayList<>();
+    private final List<TrainSchedule> schedules = new ArrayList<>();
+
+    private Station station(long id) {
+        Station station = new Station(id, "ST" + id, "Station " + id, null, null, null);
+        stations.add(station);
+        return station;
+    }
+
+    private void train(long id, LocalTime start, Station... stops) {
+        Train train = new Train(id, String.valueOf(id), "Train " + id, 40, 1, null, 100L);
+        LocalTime time = start;
+        for (int i = 0; i < stops.length; i++) {
+            schedules.add(new TrainSchedule(id * 100 + i, train, stops[i], i == 0 ? null : time,
+                    i == stops.length - 1 ? null : time.plusMinutes(5), i + 1, i * 40));
+            time = time.plusMinutes(65);
+        }
+    }
+
+    @Test
+    public void minLegsCountsTrainsNotStops() {
+        Station a = station(1);
+        Station b = station(2);
+        Station c = station(3);
+        Station d = station(4);
+        Station e = station(5);
+        Station f = station(6);
+        train(1, LocalTime.of(6, 0), a, b, c);
+        train(2, LocalTime.of(9, 0), c, d);
+        train(3, LocalTime.of(12, 0), d, e);
+        train(4, LocalTime.of(15, 0), e, f);
+        TimetableIndex.Snapshot timetable = TimetableIndex.build(1, stations, schedules);
+
+        Assertions.assertEquals(1, timetable.minLegs(1L, 3L));
+        Assertions.assertEquals(2, timetable.minLegs(1L, 4L));
+        Assertions.assertEquals(3, timetable.minLegs(1L, 5L));
+        // Four trains is past MAX_LEGS, and trains only run one way
+        Assertions.assertEquals(TimetableIndex.UNREACHABLE, timetable.minLegs(1L, 6L));
+        Assertions.assertEquals(TimetableIndex.UNREACHABLE, timetable.minLegs(3L, 1L));
+        Assertions.assertEquals(TimetableIndex.UNREACHABLE, timetable.minLegs(1L, 99L));
+
+        Assertions.assertTrue(timetable.canReach(1L, 4L, 2));
+        Assertions.assertFalse(timetable.canReach(1L, 4L, 1));
+        Assertions.assertFalse(timetable.canReach(1L, 3L, 0));
+        Assertions.assertTrue(timetable.canReachAny(2L, Set.of(6L, 5L), 3));
+        Assertions.assertFalse(timetable.canReachAny(2L, Set.of(6L, 5L), 2));
+        Assertions.assertTrue(timetable.canReachAny(Set.of(6L, 4L), Set.of(5L), 1));
+        Assertions.assertFalse(timetable.canReachAny(Set.of(6L, 5L), Set.of(1L), 3));
+    }
+
+    @Test
+    public void prunedSearchFindsWhatTheFullSearchFinds() {
+        Random random = new Random(26);
+        for (long id = 1; id <= 40; id++) {
+            station(id);
+        }
+        for (long id = 1; id <= 30; id++) {
+            List<Station> route = new ArrayList<>(stations);
+            Collections.shuffle(route, random);
+            train(id, LocalTime.of(4 + random.nextInt(12), 5 * random.nextInt(12)),
+                    route.subList(0, 2 + random.nextInt(5)).toArray(new Station[0]));
+        }
+        TimetableIndex.Snapshot timetable = TimetableIndex.build(1, stations, schedules);
+
+        int connected = 0;
+        for (Station from : stations) {
+            for (Station to : stations) {
+                if (from == to) {
+                    continue;
+                }
+                Set<Long> sources = Set.of(from.getStationId());
+                Set<Long> targets = Set.of(to.getStationId());
+                Set<String> full = itineraries(timetable, sources, targets, false);
+                Assertions.assertEquals(full, itineraries(timetable, sources, targets, true),
+                        from.getStationCode() + " to " + to.getStationCode());
+                if (!full.isEmpty()) {
+                    connected++;
+                    Assertions.assertTrue(timetable.canReachAny(sources, targets, TimetableIndex.MAX_LEGS));
+                    Assertions.assertTrue(timetable.minLegs(from.getStationId(), to.getStationId())
+                            <= fewestLegs(full));
+                }
+            }
+        }
+        // The network must be connected enough for the comparison to mean something
+        Assertions.assertTrue(connected > 100, "only " + connected + " connected pairs");
+    }
+
+    private static int fewestLegs(Set<String> itineraries) {
+        return itineraries.stream().mapToInt(key -> key.split(">").length).min().orElseThrow();
+    }
+
+    /**
+     * Itineraries of up to three trains, walked the way the train search walks
+     * them, with or without skipping stops the reach sets rule out.
+     */
+    private static Set<String> itineraries(TimetableIndex.Snapshot timetable, Set<Long> sources, Set<Long> targets,
+            boolean prune) {
+        Set<String> found = new HashSet<>();
+        if (prune && !timetable.canReachAny(sources, targets, TimetableIndex.MAX_LEGS)) {
+            return found;
+        }
+        for (Long source : sources) {
+            for (TrainSchedule board : timetable.callsAtStation(source)) {
+                walk(timetable, sources, targets, prune, board, "", 1, found);
+            }
+        }
+        return found;
+    }
+
+    private static void walk(TimetableIndex.Snapshot timetable, Set<Long> sources, Set<Long> targets, boolean prune,
+            TrainSchedule board, String prefix, int leg, Set<String> found) {
+        for (TrainSchedule alight : timetable.stopsAfter(board)) {
+            String key = prefix + board.getTrain().getTrainId() + "@" + alight.getStopSequence();
+            Long stop = alight.getStation().getStationId();
+            if (targets.contains(stop)) {
+                found.add(key);
+                continue;
+            }
+            int legsLeft = TimetableIndex.MAX_LEGS - leg;
+            if (legsLeft == 0 || sources.contains(stop)
+                    || (prune && !timetable.canReachAny(stop, targets, legsLeft))) {
+                continue;
+            }
+            for (TrainSchedule next : timetable.callsAtStation(stop)) {
+                if (!next.getTrain().getTrainId().equals(board.getTrain().getTrainId())
+                        && TrainSearchService.isLayoverValid(alight.getArrivalTime(), next.getDepartureTime())) {
+                    walk(timetable, sources, targets, prune, next, key + ">", leg + 1, found);
+                }
+            }
+        }
+    }
+}
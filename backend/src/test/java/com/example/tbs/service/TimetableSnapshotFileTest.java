@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.entity.Station;
+import com.example.tbs.entity.Train;
+import com.example.tbs.entity.TrainSchedule;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.List;
+
+public class TimetableSnapshotFileTest {
+
+    @TempDir
+    Path dir;
+
+    private final Station bengaluru = new Station(1L, "SBC", "KSR Bengaluru", "Bengaluru", 12.9784, 77.5698);
+    // Nulls must come back as nulls, not as the markers the file uses for them
+    private final Station halt = new Station(2L, "HLT", "Hālt", null, null, null);
+    private final Train express = new Train(10L, "12007", "Shatabdi", 40, 8, "SSSSSSCB", 250L);
+    private final Train passenger = new Train(11L, "56201", null, null, null, null, null);
+    private final List<TrainSchedule> schedules = List.of(
+            new TrainSchedule(100L, express, bengaluru, null, LocalTime.of(6, 0), 1, 0),
+            new TrainSchedule(101L, express, halt, LocalTime.of(7, 30, 15), null, 2, 140),
+            new TrainSchedule(102L, passenger, halt, LocalTime.of(23, 59), LocalTime.of(0, 5), 1, 0));
+
+    @Test
+    public void readsBackWhatWasWritten() throws IOException {
+        Path path = dir.resolve("nested/timetable.bin");
+        TimetableSnapshotFile.write(path, 42, List.of(bengaluru, halt), schedules);
+
+        TimetableSnapshotFile.Contents contents = TimetableSnapshotFile.read(path);
+        Assertions.assertNotNull(contents);
+        Assertions.assertEquals(42L, contents.dbVersion());
+        Assertions.assertEquals(List.of(bengaluru, halt), contents.stations());
+        Assertions.assertEquals(schedules, contents.schedules());
+        // Schedules of a train share one Train, as rows loaded through JPA do
+        Assertions.assertSame(contents.schedules().get(0).getTrain(), contents.schedules().get(1).getTrain());
+        Assertions.assertFalse(Files.exists(dir.resolve("nested/timetable.bin.tmp")));
+    }
+
+    @Test
+    public void missingOrCorruptFilesReadAsNull() throws IOException {
+        Path path = dir.resolve("timetable.bin");
+        Assertions.assertNull(TimetableSnapshotFile.read(path));
+
+        TimetableSnapshotFile.write(path, 7, List.of(bengaluru, halt), schedules);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(path, bytes);
+        Assertions.assertNull(TimetableSnapshotFile.read(path));
+
+        Files.write(path, new byte[] { 1, 2, 3 });
+        Assertions.assertNull(TimetableSnapshotFile.read(path));
+    }
+
+    @Test
+    public void schedulesAtUnknownStationsAreRejected() {
+        Assertions.assertThrows(IOException.class,
+                () -> TimetableSnapshotFile.write(dir.resolve("timetable.bin"), 1, List.of(bengaluru), schedules));
+    }
+}
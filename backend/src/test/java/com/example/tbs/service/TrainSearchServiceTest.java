@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.example.tbs.service;
+
+import com.example.tbs.dto.SearchRequestDTO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+public class TrainSearchServiceTest {
+
+    private static final LocalDate DATE = LocalDate.of(2026, 1, 20);
+
+    private static SearchRequestDTO query(String from, String to, int passengers) {
+        SearchRequestDTO query = new SearchRequestDTO();
+        query.setFrom(from);
+        query.setTo(to);
+        query.setDate(DATE);
+        query.setPassengers(passengers);
+        return query;
+    }
+
+    @Test
+    public void queryKeyNamesStationsCitiesAndPoints() {
+        Assertions.assertEquals("SBC-MYS-2026-01-20", TrainSearchService.queryKey(query("sbc", "MYS", 0)));
+
+        SearchRequestDTO city = query("SBC", "MYS", 0);
+        city.setFromCity("Bengaluru");
+        Assertions.assertEquals("BENGALURU-MYS-2026-01-20", TrainSearchService.queryKey(city));
+
+        SearchRequestDTO near = query(null, "MYS", 0);
+        near.setNearLat(12.97);
+        near.setNearLng(77.57);
+        near.setRadiusKm(10.0);
+        Assertions.assertEquals("NEAR(12.97,77.57,10.0)-MYS-2026-01-20", TrainSearchService.queryKey(near));
+    }
+
+    @Test
+    public void queryKeySeparatesPartySizes() {
+        // A batch keeps one query per key, so party sizes must not share one
+        Assertions.assertEquals("SBC-MYS-2026-01-20-P3", TrainSearchService.queryKey(query("SBC", "MYS", 3)));
+        Assertions.assertNotEquals(TrainSearchService.queryKey(query("SBC", "MYS", 1)),
+                TrainSearchService.queryKey(query("SBC", "MYS", 4)));
+        Assertions.assertEquals(TrainSearchService.queryKey(query("SBC", "MYS", 2)),
+                TrainSearchService.queryKey(query("sbc", "mys", 2)));
+        Assertions.assertNotEquals(TrainSearchService.queryKey(query("SBC", "MYS", 2)),
+                TrainSearchService.queryKey(query("MYS", "SBC", 2)));
+    }
+}
@@ -10,45 +10,33 @@
  * LICENSE file in the root directory of this source tree.
  */
 
-import { useState, useEffect } from 'react';
+import { useState } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { motion } from 'framer-motion';
 import { MapPin, Calendar, Search, ArrowRight } from 'lucide-react';
 import { format } from 'date-fns';
 import { Button } from '@/components/ui/button';
 import { Calendar as CalendarUI } from '@/components/ui/calendar';
-import {
-  Select,
-  SelectContent,
-  SelectItem,
-  SelectTrigger,
-  SelectValue,
-} from '@/components/ui/select';
 import {
   Popover,
   PopoverContent,
   PopoverTrigger,
 } from '@/components/ui/popover';
+import StationPicker from '@/components/StationPicker';
 import { cn } from '@/lib/utils';
-import { stationApi } from '@/lib/api';
 import { Station } from '@/types';
 
 const SearchCard = () => {
   const navigate = useNavigate();
-  const [fromStation, setFromStation] = useState('');
-  const [toStation, setToStation] = useState('');
+  const [fromStation, setFromStation] = useState<Station | null>(null);
+  const [toStation, setToStation] = useState<Station | null>(null);
   const [date, setDate] = useState<Date>();
-  const [stations, setStations] = useState<Station[]>([]);
-
-  useEffect(() => {
-    stationApi.getAll().then(res => setStations(res.data)).catch(console.error);
-  }, []);
 
   const handleSearch = () => {
     if (fromStation && toStation && date) {
       const params = new URLSearchParams({
-        from: fromStation,
-        to: toStation,
+        from: fromStation.stationCode,
+        to: toStation.stationCode,
         date: format(date, 'yyyy-MM-dd'),
       });
       navigate(`/search?${params.toString()}`);
@@ -73,18 +61,12 @@ const SearchCard = () => {
             <MapPin className="w-4 h-4" />
             From
           </label>
-          <Select value={fromStation} onValueChange={setFromStation}>
-            <SelectTrigger className="h-12 bg-muted/50 border-border">
-              <SelectValue placeholder="Select departure" />
-            </SelectTrigger>
-            <SelectContent className="bg-card border-border z-50">
-              {stations.map((station) => (
-                <SelectItem key={station.stationId} value={station.stationCode}>
-                  {station.stationName} ({station.stationCode})
-                </SelectItem>
-              ))}
-            </SelectContent>
-          </Select>
+          <StationPicker
+            value={fromStation}
+            onChange={setFromStation}
+            placeholder="Select departure"
+            excludeCode={toStation?.stationCode}
+          />
         </div>
 
         {/* To Station */}
@@ -93,18 +75,12 @@ const SearchCard = () => {
             <MapPin className="w-4 h-4" />
             To
           </label>
-          <Select value={toStation} onValueChange={setToStation}>
-            <SelectTrigger className="h-12 bg-muted/50 border-border">
-              <SelectValue placeholder="Select destination" />
-            </SelectTrigger>
-            <SelectContent className="bg-card border-border z-50">
-              {stations.filter(s => s.stationCode !== fromStation).map((station) => (
-                <SelectItem key={station.stationId} value={station.stationCode}>
-                  {station.stationName} ({station.stationCode})
-                </SelectItem>
-              ))}
-            </SelectContent>
-          </Select>
+          <StationPicker
+            value={toStation}
+            onChange={setToStation}
+            placeholder="Select destination"
+            excludeCode={fromStation?.stationCode}
+          />
         </div>
 
         {/* Date */}
@@ -14,7 +14,8 @@ import { useState, useEffect } from 'react';
 import { motion } from 'framer-motion';
 import { Loader2 } from 'lucide-react';
 import { seatApi } from '@/lib/api';
-import { Seat } from '@/types';
+import { applySeatMap, loadLayoutTemplate, SeatRow } from '@/lib/seatMap';
+import { Seat, SeatChanges } from '@/types';
 import { cn } from '@/lib/utils';
 import { Button } from '@/components/ui/button';
 
@@ -27,11 +28,6 @@ interface SeatSelectorProps {
     isAdmin?: boolean; // New prop for admin mode
 }
 
-interface SeatRow {
-    rowNumber: number;
-    seats: Seat[];
-}
-
 const SeatSelector = ({ trainId, coach, date, selectedSeats, onSeatToggle, isAdmin = false }: SeatSelectorProps) => {
     // Store rows instead of flat seats for better layout control
     const [rows, setRows] = useState<SeatRow[]>([]);
@@ -43,25 +39,11 @@ const SeatSelector = ({ trainId, coach, date, selectedSeats, onSeatToggle, isAdm
             setLoading(true);
             setError('');
             try {
-                const response = await seatApi.getLayout(trainId, date, coach);
+                // Bitmaps per status over a cached layout template, instead of an object per seat
+                const response = await seatApi.getBitmaps(trainId, date, coach);
                 if (response.data) {
-                    // Backend returns List<SeatRowDTO>
-                    // Structure: [{ rowNumber: 1, seats: [{ id: 1, number: "1", status: "booked" }, ...] }, ...]
-                    const rawRows: any[] = response.data;
-
-                    const parsedRows: SeatRow[] = rawRows.map(row => ({
-                        rowNumber: row.rowNumber,
-                        seats: row.seats.map((s: any) => ({
-                            seatNumber: parseInt(s.number),
-                            // Backend now sends "available", "booked", "blocked"
-                            // Fallback to boolean check if needed for backward compat (though we changed backend)
-                            status: s.status ? s.status : (s.isBooked ? 'booked' : 'available'),
-                            // Helper to attach original ID or other props if needed
-                            seatId: s.id
-                        })).sort((a: Seat, b: Seat) => a.seatNumber - b.seatNumber) // Ensure order
-                    })).sort((a, b) => a.rowNumber - b.rowNumber);
-
-                    setRows(parsedRows);
+                    const template = await loadLayoutTemplate(response.data.layout, seatApi.getLayoutTemplate);
+                    setRows(applySeatMap(template, response.data));
                 }
             } catch (err) {
                 console.error("Failed to fetch seat layout", err);
@@ -76,6 +58,23 @@ const SeatSelector = ({ trainId, coach, date, selectedSeats, onSeatToggle, isAdm
         }
     }, [trainId, coach, date]);
 
+    // Live updates: the server pushes the seats that changed, at most a couple of times a second
+    useEffect(() => {
+        if (!trainId || !coach || !date) return;
+        const source = new EventSource(seatApi.streamUrl(trainId, date, coach));
+        source.addEventListener('seats', (event) => {
+            const changes: SeatChanges = JSON.parse((event as MessageEvent).data);
+            const statuses = new Map(changes.seats.map(s => [s.id, s.status as Seat['status']]));
+            setRows(prev => prev.map(row => ({
+                ...row,
+                seats: row.seats.map(seat => statuses.has(seat.seatNumber)
+                    ? { ...seat, status: statuses.get(seat.seatNumber)! }
+                    : seat)
+            })));
+        });
+        return () => source.close();
+    }, [trainId, coach, date]);
+
     if (loading) {
         return (
             <div className="flex items-center justify-center p-12">
@@ -98,9 +97,10 @@ const SeatSelector = ({ trainId, coach, date, selectedSeats, onSeatToggle, isAdm
         return seat.status;
     };
 
-    // Helper to determine seat type based on index in a 4-seat row
+    // Berth label from the coach layout; older responses without one get the 4-seat row guess
     // 0: Window, 1: Aisle, (GAP), 2: Aisle, 3: Window
-    const getSeatType = (index: number, totalInRow: number) => {
+    const getSeatType = (seat: Seat, index: number, totalInRow: number) => {
+        if (seat.berth) return seat.berth;
         if (totalInRow !== 4) return ''; // Fallback for specific layouts
         if (index === 0 || index === 3) return 'W';
         return 'A';
@@ -117,13 +117,13 @@ const SeatSelector = ({ trainId, coach, date, selectedSeats, onSeatToggle, isAdm
                     {rows.map((row) => (
                         <div key={row.rowNumber} className="flex items-center justify-center gap-4 sm:gap-6">
 
-                            {/* Left Side (Seats 1, 2) */}
+                            {/* Left Side (first half of the row) */}
                             <div className="flex gap-3">
-                                {row.seats.slice(0, 2).map((seat, idx) => (
+                                {row.seats.slice(0, Math.ceil(row.seats.length / 2)).map((seat, idx) => (
                                     <SeatButton
                                         key={seat.seatNumber}
                                         seat={seat}
-                                        type={getSeatType(idx, 4)}
+                                        type={getSeatType(seat, idx, row.seats.length)}
                                         status={getStatus(seat)}
                                         onToggle={onSeatToggle}
                                         isAdmin={isAdmin}
@@ -136,13 +136,13 @@ const SeatSelector = ({ trainId, coach, date, selectedSeats, onSeatToggle, isAdm
                                 {row.rowNumber}
                             </div>
 
-                            {/* Right Side (Seats 3, 4) */}
+                            {/* Right Side (rest of the row) */}
                             <div className="flex gap-3">
-                                {row.seats.slice(2, 4).map((seat, idx) => (
+                                {row.seats.slice(Math.ceil(row.seats.length / 2)).map((seat, idx) => (
                                     <SeatButton
                                         key={seat.seatNumber}
                                         seat={seat}
-                                        type={getSeatType(idx + 2, 4)}
+                                        type={getSeatType(seat, idx + Math.ceil(row.seats.length / 2), row.seats.length)}
                                         status={getStatus(seat)}
                                         onToggle={onSeatToggle}
                                         isAdmin={isAdmin}
@@ -187,9 +187,10 @@ const SeatButton = ({ seat, type, status, onToggle, isAdmin }: { seat: Seat, typ
     // If not admin: Booked/Blocked -> disabled.
     // If admin: Booked/Blocked -> interactable (user can select to unblock).
 
-    // Status can be: 'available', 'booked', 'blocked', 'selected'
+    // Status can be: 'available', 'booked', 'held', 'blocked', 'selected'
 
-    const isBooked = status === 'booked';
+    // Held seats belong to a pending booking and behave as booked
+    const isBooked = status === 'booked' || status === 'held';
     const isBlocked = status === 'blocked';
     const isSelected = status === 'selected';
 
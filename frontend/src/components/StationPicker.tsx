@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+import { useState, useEffect } from 'react';
+import { Button } from '@/components/ui/button';
+import {
+  Command,
+  CommandEmpty,
+  CommandInput,
+  CommandItem,
+  CommandList,
+} from '@/components/ui/command';
+import {
+  Popover,
+  PopoverContent,
+  PopoverTrigger,
+} from '@/components/ui/popover';
+import { cn } from '@/lib/utils';
+import { stationApi } from '@/lib/api';
+import { Station } from '@/types';
+
+const SUGGESTIONS = 8;
+const TYPING_PAUSE_MS = 150;
+
+interface StationPickerProps {
+  value: Station | null;
+  onChange: (station: Station) => void;
+  placeholder: string;
+  excludeCode?: string;
+}
+
+// Asks the server for matches as the user types instead of loading every station
+const StationPicker = ({ value, onChange, placeholder, excludeCode }: StationPickerProps) => {
+  const [open, setOpen] = useState(false);
+  const [query, setQuery] = useState('');
+  const [matches, setMatches] = useState<Station[]>([]);
+
+  useEffect(() => {
+    const q = query.trim();
+    if (!q) {
+      setMatches([]);
+      return;
+    }
+    // Answers to a query typed over since are dropped
+    let stale = false;
+    const timer = setTimeout(() => {
+      stationApi.suggest(q, SUGGESTIONS)
+        .then(res => { if (!stale) setMatches(res.data); })
+        .catch(console.error);
+    }, TYPING_PAUSE_MS);
+    return () => {
+      stale = true;
+      clearTimeout(timer);
+    };
+  }, [query]);
+
+  const select = (station: Station) => {
+    onChange(station);
+    setOpen(false);
+    setQuery('');
+  };
+
+  return (
+    <Popover open={open} onOpenChange={setOpen}>
+      <PopoverTrigger asChild>
+        <Button
+          variant="outline"
+          role="combobox"
+          aria-expanded={open}
+          className={cn(
+            "w-full h-12 justify-start text-left font-normal bg-muted/50 border-border",
+            !value && "text-muted-foreground"
+          )}
+        >
+          {value ? `${value.stationName} (${value.stationCode})` : placeholder}
+        </Button>
+      </PopoverTrigger>
+      <PopoverContent className="w-[--radix-popover-trigger-width] p-0 bg-card border-border z-50" align="start">
+        <Command shouldFilter={false}>
+          <CommandInput placeholder="Station, code or city" value={query} onValueChange={setQuery} />
+          <CommandList>
+            {query.trim() && <CommandEmpty>No stations found.</CommandEmpty>}
+            {matches.filter(s => s.stationCode !== excludeCode).map((station) => (
+              <CommandItem key={station.stationId} value={String(station.stationId)} onSelect={() => select(station)}>
+                {station.stationName} ({station.stationCode})
+                <span className="ml-auto text-xs text-muted-foreground">{station.city}</span>
+              </CommandItem>
+            ))}
+          </CommandList>
+        </Command>
+      </PopoverContent>
+    </Popover>
+  );
+};
+
+export default StationPicker;
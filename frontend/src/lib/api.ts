@@ -46,18 +46,29 @@ export const authApi = {
 // Station API endpoints
 export const stationApi = {
     getAll: () => api.get('/stations'),
-    search: (query) => api.get(`/stations/search?query=${query}`)
+    suggest: (q, limit = 10) => api.get('/stations/suggest', { params: { q, limit } })
 };
 
 // Train API endpoints
 export const trainApi = {
     search: (from, to, date) => api.get('/search', { params: { from, to, date } }),
-    getDetails: (id) => api.get(`/trains/${id}`)
+    getDetails: (id) => api.get(`/trains/${id}`),
+    getCalendar: (id, from, to, fromSeq?, toSeq?) =>
+        api.get(`/trains/${id}/calendar`, { params: { from, to, fromSeq, toSeq } })
 };
 
 // Seat API endpoints
 export const seatApi = {
-    getLayout: (trainId, date, coach) => api.get('/seats', { params: { trainId, date, coach } })
+    getLayout: (trainId, date, coach) => api.get('/seats', { params: { trainId, date, coach } }),
+    getBitmaps: (trainId, date, coach) => api.get('/seats', {
+        params: { trainId, date, coach },
+        headers: { Accept: 'application/vnd.tbs.seatmap+json' }
+    }),
+    getLayoutTemplate: (layoutId) => api.get(`/seats/layouts/${layoutId}`),
+    // Server-sent events; EventSource cannot go through axios
+    streamUrl: (trainId, date, coach) =>
+        `/api/seats/stream?${new URLSearchParams({ trainId: String(trainId), date, coach })}`,
+    getTrainMap: (trainId, date, startSeq, endSeq) => api.get('/seats/train', { params: { trainId, date, startSeq, endSeq } })
 };
 
 // Admin API endpoints
@@ -72,8 +83,11 @@ export const adminApi = {
     updateTrain: (id, data) => api.put(`/admin/trains/${id}`, data),
     deleteTrain: (id) => api.delete(`/admin/trains/${id}`),
     addSchedule: (trainId, data) => api.post(`/admin/trains/${trainId}/schedule`, data),
+    cancelTrainDate: (trainId, date) => api.post(`/admin/trains/${trainId}/cancel`, null, { params: { date } }),
     blockSeats: (data) => api.post('/admin/seats/block', data),
-    unblockSeats: (data) => api.post('/admin/seats/unblock', data)
+    unblockSeats: (data) => api.post('/admin/seats/unblock', data),
+    blockSeatRange: (data) => api.post('/admin/seats/block-range', data),
+    unblockSeatRange: (data) => api.post('/admin/seats/unblock-range', data)
 };
 
 // Booking API endpoints
@@ -82,7 +96,10 @@ export const bookingApi = {
     createComposite: (data) => api.post('/bookings/composite', data),
     getMyBookings: () => Promise.resolve({ data: [] }), // Deprecated
     getUserBookings: (userId) => api.get(`/bookings/user/${userId}`),
-    cancel: (id) => api.delete(`/bookings/${id}`)
+    cancel: (id) => api.delete(`/bookings/${id}`),
+    joinWaitlist: (data) => api.post('/bookings/waitlist', data),
+    getUserWaitlist: (userId) => api.get(`/bookings/waitlist/user/${userId}`),
+    leaveWaitlist: (id) => api.delete(`/bookings/waitlist/${id}`)
 };
 
 // Export the base axios instance as default
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026 Thilak S. All Rights Reserved.
+ *
+ * This source code, inclusive of the logic, design, and intellectual property,
+ * is the sole property of Thilak S.
+ *
+ * Created by Thilak S.
+ *
+ * This source code is licensed under the proprietary license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+import { CoachSeatMap, Seat, Train } from '@/types';
+
+/*
+ * Compact seat map (Accept: application/vnd.tbs.seatmap+json on /api/seats,
+ * and each coach of /api/seats/train):
+ *
+ *   { coach: "S1", layout: "S-40", type: "SEATER", seats: 40, seatsPerRow: 4,
+ *     available: 37, booked: "CQAAAAA=", blocked: "CAAAAAA=", held: "AAAAAAA=" }
+ *
+ * booked, blocked and held are base64 bitmaps of ceil(seats / 8) bytes; seat n
+ * is bit (n - 1) % 8 of byte (n - 1) / 8. A seat is in at most one of them and
+ * is available otherwise. Rows, seat labels and berths come from the layout
+ * template, GET /api/seats/layouts/{layout}, which is fixed per id and can be
+ * cached for the session.
+ */
+
+export interface SeatRow {
+    rowNumber: number;
+    seats: Seat[];
+}
+
+const decodeBitmap = (base64: string): Uint8Array => {
+    const raw = atob(base64 || '');
+    const bytes = new Uint8Array(raw.length);
+    for (let i = 0; i < raw.length; i++) bytes[i] = raw.charCodeAt(i);
+    return bytes;
+};
+
+const isSet = (bitmap: Uint8Array, seat: number) => {
+    const byte = bitmap[(seat - 1) >> 3];
+    return byte !== undefined && (byte & (1 << ((seat - 1) & 7))) !== 0;
+};
+
+/** Status of every seat 1..seats, indexed by seat number. */
+export const decodeSeatStatuses = (map: CoachSeatMap): Seat['status'][] => {
+    const booked = decodeBitmap(map.booked);
+    const blocked = decodeBitmap(map.blocked);
+    const held = decodeBitmap(map.held);
+    const statuses: Seat['status'][] = new Array(map.seats + 1);
+    for (let seat = 1; seat <= map.seats; seat++) {
+        statuses[seat] = isSet(blocked, seat) ? 'blocked'
+            : isSet(held, seat) ? 'held'
+            : isSet(booked, seat) ? 'booked' : 'available';
+    }
+    return statuses;
+};
+
+const templates = new Map<string, any[]>();
+
+/** Layout template rows as sent by the backend, fetched once per id. */
+export const loadLayoutTemplate = async (layout: string, fetch: (id: string) => Promise<{ data: any[] }>) => {
+    let rows = templates.get(layout);
+    if (!rows) {
+        rows = (await fetch(layout)).data;
+        templates.set(layout, rows);
+    }
+    return rows;
+};
+
+/** Template rows with each seat's status taken from the compact map. */
+export const applySeatMap = (templateRows: any[], map: CoachSeatMap): SeatRow[] => {
+    const statuses = decodeSeatStatuses(map);
+    return templateRows.map(row => ({
+        rowNumber: row.rowNumber,
+        seats: row.seats.map((s: any) => ({
+            seatNumber: s.id,
+            status: statuses[s.id] ?? 'available',
+            berth: s.berth
+        }))
+    }));
+};
+
+/**
+ * Coach codes of a train in running order, numbered within each type as the
+ * backend does: composition "SSCB" gives S1, S2, C1, B1. Without one the
+ * train is all seaters.
+ */
+export const coachCodes = (train: Pick<Train, 'numberOfCoaches' | 'coachComposition'>): string[] => {
+    const composition = train.coachComposition?.trim();
+    if (!composition) {
+        return Array.from({ length: train.numberOfCoaches || 3 }, (_, i) => `S${i + 1}`);
+    }
+    const counts: Record<string, number> = {};
+    return composition.toUpperCase().split('').map(letter => {
+        counts[letter] = (counts[letter] || 0) + 1;
+        return `${letter}${counts[letter]}`;
+    });
+};
@@ -20,6 +20,7 @@ import { Label } from '@/components/ui/label';
 import { Select, SelectContent, SelectItem, SelectTrigger, SelectValue } from '@/components/ui/select';
 import { useToast } from '@/hooks/use-toast';
 import { adminApi, seatApi } from '@/lib/api';
+import { coachCodes } from '@/lib/seatMap';
 import SeatSelector from '@/components/SeatSelector';
 import { Train } from '@/types';
 
@@ -36,6 +37,15 @@ const AdminSeatManagement = ({ isOpen, onClose, train }: AdminSeatManagementProp
     const [selectedSeats, setSelectedSeats] = useState<number[]>([]);
     const [refreshTrigger, setRefreshTrigger] = useState(0);
     const [loadingAction, setLoadingAction] = useState(false);
+    const coaches = train ? coachCodes(train) : [];
+
+    // Another train may not have the coach picked for the last one
+    useEffect(() => {
+        if (train) {
+            setCoach(coachCodes(train)[0]);
+            setSelectedSeats([]);
+        }
+    }, [train]);
 
     // SeatSelector manages state internally or via props.
     // We assume backend handles blocking logic based on selected seats. 
@@ -112,7 +122,7 @@ const AdminSeatManagement = ({ isOpen, onClose, train }: AdminSeatManagementProp
                                 <SelectValue />
                             </SelectTrigger>
                             <SelectContent>
-                                {['S1', 'S2', 'S3', 'B1', 'A1'].map(c => (
+                                {coaches.map(c => (
                                     <SelectItem key={c} value={c}>{c}</SelectItem>
                                 ))}
                             </SelectContent>
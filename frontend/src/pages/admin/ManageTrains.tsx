@@ -223,6 +223,17 @@ const EditTrainDialog = ({ isOpen, onClose, formData, setFormData, onSave, isLoa
               />
             </div>
           </div>
+          <div className="space-y-2">
+            <Label htmlFor="edit-composition">Coach Composition</Label>
+            <Input
+              id="edit-composition"
+              value={formData.coachComposition}
+              onChange={(e) => setFormData({ ...formData, coachComposition: e.target.value.toUpperCase() })}
+              placeholder="e.g., SSSCCB (S seater, C chair car, B sleeper; blank for all seaters)"
+              pattern="[SCBscb]*"
+              className="bg-muted/50"
+            />
+          </div>
           <div className="space-y-2">
             <Label htmlFor="edit-price">Base Price</Label>
             <Input
@@ -269,6 +280,7 @@ const ManageTrains = () => {
     trainName: '',
     totalSeatsPerCoach: '40',
     numberOfCoaches: '3',
+    coachComposition: '',
     price: '100',
   });
   const [routeStops, setRouteStops] = useState<RouteStop[]>([]);
@@ -320,6 +332,7 @@ const ManageTrains = () => {
         trainName: formData.trainName,
         totalSeatsPerCoach: parseInt(formData.totalSeatsPerCoach),
         numberOfCoaches: parseInt(formData.numberOfCoaches),
+        coachComposition: formData.coachComposition || null,
         price: parseInt(formData.price),
       };
 
@@ -344,7 +357,7 @@ const ManageTrains = () => {
       }
 
       setTrains([...trains, newTrain]);
-      setFormData({ trainNumber: '', trainName: '', totalSeatsPerCoach: '40', numberOfCoaches: '3', price: '100' });
+      setFormData({ trainNumber: '', trainName: '', totalSeatsPerCoach: '40', numberOfCoaches: '3', coachComposition: '', price: '100' });
       setRouteStops([]);
 
       toast({
@@ -396,6 +409,7 @@ const ManageTrains = () => {
       trainName: train.trainName,
       totalSeatsPerCoach: train.totalSeatsPerCoach.toString(),
       numberOfCoaches: train.numberOfCoaches.toString(),
+      coachComposition: train.coachComposition ?? '',
       price: train.price ? train.price.toString() : '100',
     });
     setIsEditOpen(true);
@@ -413,6 +427,7 @@ const ManageTrains = () => {
         trainName: formData.trainName,
         totalSeatsPerCoach: parseInt(formData.totalSeatsPerCoach),
         numberOfCoaches: parseInt(formData.numberOfCoaches),
+        coachComposition: formData.coachComposition || null,
         price: parseInt(formData.price),
       };
 
@@ -425,7 +440,7 @@ const ManageTrains = () => {
 
       setIsEditOpen(false);
       setEditingTrain(null);
-      setFormData({ trainNumber: '', trainName: '', totalSeatsPerCoach: '40', numberOfCoaches: '3', price: '100' });
+      setFormData({ trainNumber: '', trainName: '', totalSeatsPerCoach: '40', numberOfCoaches: '3', coachComposition: '', price: '100' });
       // Refresh trains
       const res = await adminApi.getTrains();
       setTrains(res.data);
@@ -452,7 +467,7 @@ const ManageTrains = () => {
           onClose={() => {
             setIsEditOpen(false);
             setEditingTrain(null);
-            setFormData({ trainNumber: '', trainName: '', totalSeatsPerCoach: '40', numberOfCoaches: '3', price: '100' });
+            setFormData({ trainNumber: '', trainName: '', totalSeatsPerCoach: '40', numberOfCoaches: '3', coachComposition: '', price: '100' });
           }}
           formData={formData}
           setFormData={setFormData}
@@ -15,8 +15,8 @@ export interface Station {
   stationName: string;
   stationCode: string;
   city: string;
-  latitude: number;
-  longitude: number;
+  latitude: number | null;
+  longitude: number | null;
 }
 
 export interface Train {
@@ -25,6 +25,7 @@ export interface Train {
   trainName: string;
   totalSeatsPerCoach: number;
   numberOfCoaches: number;
+  coachComposition?: string | null; // one type letter per coach, e.g. "SSSCCB"; null for all seaters
   ticketCost?: number; // legacy name or mapped field? Let's use price as per backend entity update.
   price?: number;
 }
@@ -94,7 +95,49 @@ export interface Segment {
 
 export interface Seat {
   seatNumber: number;
-  status: 'available' | 'booked' | 'selected' | 'blocked';
+  status: 'available' | 'booked' | 'selected' | 'blocked' | 'held';
+  berth?: string;
+}
+
+// Compact seat map of one coach; see lib/seatMap.ts for the encoding
+export interface CoachSeatMap {
+  coach: string;
+  layout: string;
+  type: 'SEATER' | 'CHAIR_CAR' | 'SLEEPER';
+  seats: number;
+  seatsPerRow: number;
+  available: number;
+  booked: string;
+  blocked: string;
+  held: string;
+}
+
+export interface TrainSeatMap {
+  trainId: number;
+  date: string;
+  startSeq: number;
+  endSeq: number;
+  coaches: CoachSeatMap[];
+}
+
+// "seats" event of /api/seats/stream; reset lists every seat of the coach
+export interface SeatChanges {
+  version: number;
+  reset: boolean;
+  seats: { id: number; number: string; status: string; berth?: string }[];
+}
+
+export interface WaitlistEntry {
+  waitlistId: number;
+  trainId: number;
+  journeyDate: string;
+  coachType: string;
+  sourceStationId: number;
+  destStationId: number;
+  seats: number;
+  status: 'WAITING' | 'PROMOTED' | 'CANCELLED';
+  position: number | null;
+  bookingId: number | null;
 }
 
 export interface Booking {